@@ -0,0 +1,344 @@
+package de.citytwin.algorithm.keywords;
+
+import de.citytwin.text.TermDictionary;
+import de.citytwin.text.TermIdIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * this class is a directed co-occurrence graph of terms, build by a sliding word window <br>
+ * ids of a {@link TermDictionary} are mapped to dense int ids (vertices), window pairs are collected in a primitive open addressing
+ * table (key = source id, target id). after building, out going and in going edges are stored in compressed sparse row format
+ * <p>
+ * {@code outTargets[outPointers[i]] ... outTargets[outPointers[i + 1] - 1]} targets of term_i (ascending) <br>
+ * {@code inSources[inPointers[i]] ... inSources[inPointers[i + 1] - 1]} sources of term_i (ascending)
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class CooccurrenceGraph implements AutoCloseable {
+
+    private static final long EMPTY = -1L;
+
+    /**
+     * this method maps each sentence to term ids
+     *
+     * @param termDictionary
+     * @param textCorpus
+     * @return new reference of {@code List<int[]>}
+     */
+    private static List<int[]> getIds(TermDictionary termDictionary, List<List<String>> textCorpus) {
+        List<int[]> results = new ArrayList<int[]>(textCorpus.size());
+        for (List<String> sentence : textCorpus) {
+            results.add(termDictionary.getIds(sentence));
+        }
+        return results;
+    }
+
+    /**
+     * this method calculate a slot of the edge table (murmur3 finalizer)
+     *
+     * @param key
+     * @param mask
+     * @return {@code int}
+     */
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int)key & mask;
+    }
+
+    private Map<String, Integer> indexOfTerm;
+    private String[] terms;
+    // dictionary id to vertex id, only used while building
+    private TermIdIndex termIdIndex;
+    private int countTerms;
+    private double edgeWeight;
+    // edge table, only used while building
+    private long[] edgeKeys;
+    private int countEdges;
+    // compressed sparse row
+    private int[] outPointers;
+    private int[] outTargets;
+    private int[] inPointers;
+    private int[] inSources;
+
+    /**
+     * constructor.
+     *
+     * @param textCorpus {@code List<List<String>> senetences}
+     * @param wordWindowSize <br>
+     *            example <br>
+     *            wordwindowsSize = 4 and sentence_I ([term_0], [term_1], [term_2], [term_3], [term_4], [term_5], [term_N]) <br>
+     *            first iteration take [term_0], [term_1], [term_2], [term_3] of sentence_I <br>
+     *            next iteration take [term_1], [term_2], [term_3], [term_4] of sentence_I <br>
+     *            last iteration take [term_N-3], [term_N-2], [term_N-1], [term_N] of sentence_I <br>
+     *            each term of a window is linked to all following terms of the window
+     * @param edgeWeight weight of each edge
+     */
+    public CooccurrenceGraph(List<List<String>> textCorpus, int wordWindowSize, double edgeWeight) {
+        this(new TermDictionary(), textCorpus, wordWindowSize, edgeWeight);
+    }
+
+    /**
+     * constructor.
+     *
+     * @param sentences {@code List<int[]>} term ids of each sentence
+     * @param termDictionary {@link TermDictionary} of the term ids
+     * @param wordWindowSize see {@link CooccurrenceGraph#CooccurrenceGraph(List, int, double)}
+     * @param edgeWeight weight of each edge
+     */
+    public CooccurrenceGraph(List<int[]> sentences, TermDictionary termDictionary, int wordWindowSize, double edgeWeight) {
+        this.edgeWeight = edgeWeight;
+        this.termIdIndex = new TermIdIndex();
+        this.edgeKeys = new long[1024];
+        Arrays.fill(edgeKeys, EMPTY);
+        build(sentences, wordWindowSize);
+        initializeTerms(termDictionary);
+        initializeAdjacency();
+        edgeKeys = null;
+        termIdIndex = null;
+    }
+
+    /**
+     * constructor.
+     *
+     * @param termDictionary local dictionary
+     * @param textCorpus
+     * @param wordWindowSize
+     * @param edgeWeight
+     */
+    private CooccurrenceGraph(TermDictionary termDictionary, List<List<String>> textCorpus, int wordWindowSize, double edgeWeight) {
+        this(getIds(termDictionary, textCorpus), termDictionary, wordWindowSize, edgeWeight);
+    }
+
+    /**
+     * this method add an edge, an existing edge will be ignored
+     *
+     * @param source
+     * @param target
+     */
+    private void addEdge(int source, int target) {
+        long key = ((long)source << 32) | (target & 0xffffffffL);
+        int mask = edgeKeys.length - 1;
+        int index = slot(key, mask);
+        while (edgeKeys[index] != EMPTY) {
+            if (edgeKeys[index] == key) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        edgeKeys[index] = key;
+        // load factor 0.5
+        if (++countEdges * 2 > edgeKeys.length) {
+            long[] keys = edgeKeys;
+            edgeKeys = new long[keys.length * 2];
+            Arrays.fill(edgeKeys, EMPTY);
+            mask = edgeKeys.length - 1;
+            for (long temp : keys) {
+                if (temp == EMPTY) {
+                    continue;
+                }
+                index = slot(temp, mask);
+                while (edgeKeys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                edgeKeys[index] = temp;
+            }
+        }
+    }
+
+    /**
+     * this method maps all term ids to vertex ids and collect the window pairs
+     *
+     * @param sentences
+     * @param wordWindowSize
+     */
+    private void build(List<int[]> sentences, int wordWindowSize) {
+        int[] ids = new int[64];
+        for (int[] sentence : sentences) {
+            int size = sentence.length;
+            if (size < wordWindowSize || wordWindowSize < 1) {
+                continue;
+            }
+            if (ids.length < size) {
+                ids = new int[size];
+            }
+            for (int index = 0; index < size; index++) {
+                ids[index] = termIdIndex.add(sentence[index]);
+            }
+            for (int wordIndex = 0; wordIndex <= (size - wordWindowSize); ++wordIndex) {
+                for (int windowIndex = wordIndex; windowIndex < wordIndex + wordWindowSize; ++windowIndex) {
+                    for (int slidingWindowIndex = windowIndex + 1; slidingWindowIndex < wordIndex + wordWindowSize; ++slidingWindowIndex) {
+                        // avoid graph loops, sometimes heading and sentence start with same term and will be combine,
+                        if (ids[windowIndex] != ids[slidingWindowIndex]) {
+                            addEdge(ids[windowIndex], ids[slidingWindowIndex]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        indexOfTerm.clear();
+        indexOfTerm = null;
+        terms = null;
+        outPointers = null;
+        outTargets = null;
+        inPointers = null;
+        inSources = null;
+    }
+
+    /**
+     * @return count of edges
+     */
+    public int countEdges() {
+        return countEdges;
+    }
+
+    /**
+     * @return count of terms (vertices)
+     */
+    public int countTerms() {
+        return countTerms;
+    }
+
+    /**
+     * @return weight of each edge
+     */
+    public double getEdgeWeight() {
+        return edgeWeight;
+    }
+
+    /**
+     * @param term
+     * @return id of term or {@code null}
+     */
+    public Integer getId(String term) {
+        return indexOfTerm.get(term);
+    }
+
+    /**
+     * @return {@code Map<String, Integer>} (term : id), ids in order of first occurrence
+     */
+    public Map<String, Integer> getIndexOfTerm() {
+        return indexOfTerm;
+    }
+
+    /**
+     * @return {@code int[]} sources of in going edges, only read
+     */
+    int[] getInSources() {
+        return inSources;
+    }
+
+    /**
+     * @return {@code int[]} compressed row pointers of in going edges, only read
+     */
+    int[] getInPointers() {
+        return inPointers;
+    }
+
+    /**
+     * @return {@code int[]} compressed row pointers of out going edges, only read
+     */
+    int[] getOutPointers() {
+        return outPointers;
+    }
+
+    /**
+     * @return {@code int[]} targets of out going edges, only read
+     */
+    int[] getOutTargets() {
+        return outTargets;
+    }
+
+    /**
+     * @param id
+     * @return term of id
+     */
+    public String getTerm(int id) {
+        return terms[id];
+    }
+
+    /**
+     * @return {@code String[]} terms, index is id, only read
+     */
+    String[] getTerms() {
+        return terms;
+    }
+
+    /**
+     * @param id
+     * @return count of in going edges
+     */
+    public int inDegreeOf(int id) {
+        return inPointers[id + 1] - inPointers[id];
+    }
+
+    /**
+     * this method set the terms of all vertices, taken from the dictionary
+     *
+     * @param termDictionary
+     */
+    private void initializeTerms(TermDictionary termDictionary) {
+        countTerms = termIdIndex.size();
+        terms = new String[countTerms];
+        indexOfTerm = new HashMap<String, Integer>(countTerms * 2);
+        for (int id = 0; id < countTerms; id++) {
+            terms[id] = termDictionary.getTerm(termIdIndex.getId(id));
+            indexOfTerm.put(terms[id], id);
+        }
+    }
+
+    /**
+     * this method transform the edge table in compressed sparse rows (counting sort, ascending ids)
+     */
+    private void initializeAdjacency() {
+        outPointers = new int[countTerms + 1];
+        inPointers = new int[countTerms + 1];
+        outTargets = new int[countEdges];
+        inSources = new int[countEdges];
+        for (long key : edgeKeys) {
+            if (key != EMPTY) {
+                outPointers[(int)(key >>> 32) + 1]++;
+                inPointers[(int)key + 1]++;
+            }
+        }
+        for (int id = 0; id < countTerms; id++) {
+            outPointers[id + 1] += outPointers[id];
+            inPointers[id + 1] += inPointers[id];
+        }
+        int[] nextOut = Arrays.copyOf(outPointers, countTerms);
+        int[] nextIn = Arrays.copyOf(inPointers, countTerms);
+        for (long key : edgeKeys) {
+            if (key != EMPTY) {
+                int source = (int)(key >>> 32);
+                int target = (int)key;
+                outTargets[nextOut[source]++] = target;
+                inSources[nextIn[target]++] = source;
+            }
+        }
+        for (int id = 0; id < countTerms; id++) {
+            Arrays.sort(outTargets, outPointers[id], outPointers[id + 1]);
+            Arrays.sort(inSources, inPointers[id], inPointers[id + 1]);
+        }
+    }
+
+    /**
+     * @param id
+     * @return count of out going edges
+     */
+    public int outDegreeOf(int id) {
+        return outPointers[id + 1] - outPointers[id];
+    }
+
+}
@@ -0,0 +1,735 @@
+package de.citytwin.algorithm.keywords;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * this class is a persistent document frequency index of a corpus (term : count of documents containing the term, count of documents)
+ * <br>
+ * the index is a base file, a memory mapped open addressing table of terms, and an append only log of the documents added since
+ * the base file was written. adding a document appends one record to the log. after {@link DocumentFrequencyIndex#COMPACTION_SIZE}
+ * bytes (or half of the base file) the log is compacted into the next generation of the base file ({@code path.<generation>}), the
+ * pointer file ({@code path}, contains the current generation) is replaced by an atomic rename. a base file is never changed or
+ * replaced while mapped (not possible on windows), old generations are deleted as soon as possible
+ * <p>
+ * readers work on an immutable {@link Snapshot} (base file and counts of the log) and never lock. {@link #refresh()} reads only the
+ * records appended since the last call, an incomplete record (written meanwhile) is read by the next call. appends and compactions
+ * of different processes are serialized by a file lock, of one process by the instance. the log is not synced to disk on each
+ * append, a crash may lose the last documents, never the base file
+ * <p>
+ * each document is recorded once, identified by a key (e.g. hash of the content and file name). the keys of all recorded documents
+ * are stored in the base file and the log, a document with a known key is skipped
+ * <p>
+ * base file layout <br>
+ * header {@code magic (int), version (int), count of documents (long), count of terms (int), capacity (int), key offset (int), count
+ * of keys (int)} <br>
+ * capacity slots {@code hash (int), document frequency (int, 0 = empty), term offset (int), term length (int)} <br>
+ * terms as utf-16 chars <br>
+ * keys, each key {@code length (int), utf-16 chars}
+ * <p>
+ * log layout ({@code path.<generation>.log}), one record per document <br>
+ * {@code size of the record without this field (int), key length (int), key as utf-16 chars, count of terms (int)}, each term
+ * {@code length (int), utf-16 chars}
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class DocumentFrequencyIndex {
+
+    /**
+     * This inner class is an immutable snapshot of the index, the mapped base file and the counts of the log read so far
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class Snapshot {
+
+        // generation of the mapped file, 0 if no file exists
+        private final long generation;
+        private final ByteBuffer buffer;
+        private final long baseDocuments;
+        private final int capacity;
+        // document frequencies of the log, not changed after construction
+        private final Map<String, Integer> deltas;
+        // keys of the recorded documents (base file and log), not changed after construction
+        private final Set<String> keys;
+        private final long deltaDocuments;
+        // end of the last complete record read
+        private final long logPosition;
+        private final int countTerms;
+
+        /**
+         * constructor. snapshot of a base file without log
+         *
+         * @param generation
+         * @param buffer
+         */
+        public Snapshot(long generation, ByteBuffer buffer) {
+            this.generation = generation;
+            this.buffer = buffer;
+            this.baseDocuments = buffer.getLong(8);
+            this.capacity = buffer.getInt(20);
+            this.deltas = Collections.emptyMap();
+            this.keys = decodeKeys(buffer);
+            this.deltaDocuments = 0;
+            this.logPosition = 0;
+            this.countTerms = buffer.getInt(16);
+        }
+
+        /**
+         * constructor. snapshot of a snapshot and the following records of the log
+         *
+         * @param previous
+         * @param records complete records, read from position 0 to limit
+         * @param logPosition end of the records in the log
+         */
+        public Snapshot(Snapshot previous, ByteBuffer records, long logPosition) {
+            Map<String, Integer> tempDeltas = new HashMap<String, Integer>(previous.deltas);
+            Set<String> tempKeys = new HashSet<String>(previous.keys);
+            int tempCountTerms = previous.countTerms;
+            long tempDeltaDocuments = previous.deltaDocuments;
+            char[] chars = new char[64];
+            while (records.hasRemaining()) {
+                int end = records.getInt() + records.position();
+                int keyLength = records.getInt();
+                if (chars.length < keyLength) {
+                    chars = new char[keyLength];
+                }
+                for (int index = 0; index < keyLength; index++) {
+                    chars[index] = records.getChar();
+                }
+                // a known document is counted once
+                if (!tempKeys.add(new String(chars, 0, keyLength))) {
+                    records.position(end);
+                    continue;
+                }
+                int countRecordTerms = records.getInt();
+                for (int termIndex = 0; termIndex < countRecordTerms; termIndex++) {
+                    int length = records.getInt();
+                    if (chars.length < length) {
+                        chars = new char[length];
+                    }
+                    for (int index = 0; index < length; index++) {
+                        chars[index] = records.getChar();
+                    }
+                    String term = new String(chars, 0, length);
+                    if (tempDeltas.merge(term, 1, Integer::sum) == 1 && previous.getBaseDocumentFrequency(term) == 0) {
+                        tempCountTerms++;
+                    }
+                }
+                records.position(end);
+                tempDeltaDocuments++;
+            }
+            this.generation = previous.generation;
+            this.buffer = previous.buffer;
+            this.baseDocuments = previous.baseDocuments;
+            this.capacity = previous.capacity;
+            this.deltas = tempDeltas;
+            this.keys = tempKeys;
+            this.deltaDocuments = tempDeltaDocuments;
+            this.logPosition = logPosition;
+            this.countTerms = tempCountTerms;
+        }
+
+        /**
+         * @return count of documents of the base file and the log
+         */
+        public long countDocuments() {
+            return baseDocuments + deltaDocuments;
+        }
+
+        /**
+         * this method return the document frequency of a term in the base file, absolute reads only (thread safe)
+         *
+         * @param term
+         * @return {@code int} 0 if unknown
+         */
+        private int getBaseDocumentFrequency(String term) {
+            int hash = hash(term);
+            int mask = capacity - 1;
+            int slot = hash & mask;
+            while (true) {
+                int position = HEADER_SIZE + slot * SLOT_SIZE;
+                int documentFrequency = buffer.getInt(position + 4);
+                if (documentFrequency == 0) {
+                    return 0;
+                }
+                if (buffer.getInt(position) == hash && isTerm(term, buffer.getInt(position + 8), buffer.getInt(position + 12))) {
+                    return documentFrequency;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * this method return the document frequency of a term (base file and log)
+         *
+         * @param term
+         * @return {@code int} 0 if unknown
+         */
+        public int getDocumentFrequency(String term) {
+            Integer delta = deltas.get(term);
+            return getBaseDocumentFrequency(term) + ((delta == null) ? 0 : delta);
+        }
+
+        /**
+         * this method compare a term with a stored term
+         *
+         * @param term
+         * @param offset
+         * @param length
+         * @return {@code boolean}
+         */
+        private boolean isTerm(String term, int offset, int length) {
+            if (term.length() != length) {
+                return false;
+            }
+            for (int index = 0; index < length; index++) {
+                if (buffer.getChar(offset + index * 2) != term.charAt(index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * this method checks whether this snapshot contains more of the index than another
+         *
+         * @param other
+         * @return {@code boolean}
+         */
+        public boolean isNewer(Snapshot other) {
+            return generation > other.generation || (generation == other.generation && logPosition > other.logPosition);
+        }
+
+        /**
+         * this method read all entries of the base file and the log
+         *
+         * @return new reference of {@code Map<String, Integer>} (term : document frequency)
+         */
+        public Map<String, Integer> toMap() {
+            Map<String, Integer> results = new HashMap<String, Integer>(countTerms * 2);
+            char[] chars = new char[64];
+            for (int slot = 0; slot < capacity; slot++) {
+                int position = HEADER_SIZE + slot * SLOT_SIZE;
+                int documentFrequency = buffer.getInt(position + 4);
+                if (documentFrequency == 0) {
+                    continue;
+                }
+                int offset = buffer.getInt(position + 8);
+                int length = buffer.getInt(position + 12);
+                if (chars.length < length) {
+                    chars = new char[length];
+                }
+                for (int index = 0; index < length; index++) {
+                    chars[index] = buffer.getChar(offset + index * 2);
+                }
+                results.put(new String(chars, 0, length), documentFrequency);
+            }
+            for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+                results.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+            return results;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int MAGIC = 0x43544446;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+    // minimum size of the log before compaction
+    private static final long COMPACTION_SIZE = 1 << 20;
+    private static final Map<Path, DocumentFrequencyIndex> INSTANCES = new ConcurrentHashMap<Path, DocumentFrequencyIndex>();
+
+    /**
+     * this method reads the keys of the recorded documents of a base file, absolute reads only
+     *
+     * @param buffer base file
+     * @return new reference of {@code Set<String>}
+     */
+    private static Set<String> decodeKeys(ByteBuffer buffer) {
+        int offset = buffer.getInt(24);
+        int countKeys = buffer.getInt(28);
+        Set<String> results = new HashSet<String>(countKeys * 2);
+        char[] chars = new char[128];
+        for (int keyIndex = 0; keyIndex < countKeys; keyIndex++) {
+            int length = buffer.getInt(offset);
+            offset += 4;
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            for (int index = 0; index < length; index++) {
+                chars[index] = buffer.getChar(offset);
+                offset += 2;
+            }
+            results.add(new String(chars, 0, length));
+        }
+        return results;
+    }
+
+    /**
+     * this method creates the log record of a document
+     *
+     * @param documentKey
+     * @param terms distinct terms
+     * @return new reference of {@code ByteBuffer}, ready to write
+     */
+    private static ByteBuffer encode(String documentKey, Collection<String> terms) {
+        int size = 4 + documentKey.length() * 2 + 4;
+        for (String term : terms) {
+            size += 4 + term.length() * 2;
+        }
+        ByteBuffer result = ByteBuffer.allocate(4 + size);
+        result.putInt(size).putInt(documentKey.length());
+        for (int index = 0; index < documentKey.length(); index++) {
+            result.putChar(documentKey.charAt(index));
+        }
+        result.putInt(terms.size());
+        for (String term : terms) {
+            result.putInt(term.length());
+            for (int index = 0; index < term.length(); index++) {
+                result.putChar(term.charAt(index));
+            }
+        }
+        result.flip();
+        return result;
+    }
+
+    /**
+     * this method calculate the hash of a term (murmur3 finalizer of {@link String#hashCode()}), same on each platform
+     *
+     * @param term
+     * @return {@code int}
+     */
+    private static int hash(String term) {
+        int hash = term.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * this method return the shared index of a file, all extractors of a process share one instance per file
+     *
+     * @param path2IndexFile
+     * @return {@link DocumentFrequencyIndex}
+     */
+    public static DocumentFrequencyIndex open(String path2IndexFile) {
+        Path path = Paths.get(path2IndexFile).toAbsolutePath().normalize();
+        return INSTANCES.computeIfAbsent(path, DocumentFrequencyIndex::new);
+    }
+
+    private final Path path;
+    private final Path lockPath;
+    // replaced by newer snapshots only
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>();
+
+    /**
+     * constructor.
+     *
+     * @param path
+     */
+    private DocumentFrequencyIndex(Path path) {
+        this.path = path;
+        this.lockPath = Paths.get(path.toString() + ".lock");
+    }
+
+    /**
+     * this method add a document, each distinct term increments its document frequency. the document is appended to the log, the log
+     * is compacted into a new base file when it is large enough. a document with a recorded key is skipped
+     *
+     * @param documentKey identifies the document, e.g. hash of the content and file name
+     * @param terms of the document
+     * @return {@code true} if added, {@code false} if the document is already recorded
+     * @throws IOException
+     */
+    public boolean addDocument(String documentKey, Collection<String> terms) throws IOException {
+        if (getSnapshot().keys.contains(documentKey)) {
+            LOGGER.info(MessageFormat.format("document {0} already in document frequency index", documentKey));
+            return false;
+        }
+        ByteBuffer record = encode(documentKey, new HashSet<String>(terms));
+        Snapshot current = null;
+        synchronized (this) {
+            try (FileChannel lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock fileLock = lockChannel.lock();
+                try {
+                    // read the records of other processes, the snapshot ends after the last complete record
+                    current = refresh(readGeneration());
+                    if (current.keys.contains(documentKey)) {
+                        LOGGER.info(MessageFormat.format("document {0} already in document frequency index", documentKey));
+                        return false;
+                    }
+                    try (FileChannel channel = FileChannel.open(getLogPath(current.generation), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE)) {
+                        // the incomplete record of a crashed process is overwritten
+                        if (channel.size() > current.logPosition) {
+                            channel.truncate(current.logPosition);
+                        }
+                        long position = current.logPosition;
+                        while (record.hasRemaining()) {
+                            position += channel.write(record, position);
+                        }
+                    }
+                    record.rewind();
+                    current = update(new Snapshot(current, record, current.logPosition + record.limit()));
+                    if (current.logPosition >= Math.max(COMPACTION_SIZE, current.buffer.capacity() / 2)) {
+                        current = compact(current);
+                    }
+                } finally {
+                    fileLock.release();
+                }
+            }
+        }
+        LOGGER.info(MessageFormat.format("document added to document frequency index, {0} documents, {1} terms",
+                current.countDocuments(),
+                current.countTerms));
+        return true;
+    }
+
+    /**
+     * this method writes the base file and the log in the next generation, the log of the next generation is empty
+     *
+     * @param current snapshot of the whole log, file lock is held
+     * @return {@link Snapshot} of the new generation
+     * @throws IOException
+     */
+    private Snapshot compact(Snapshot current) throws IOException {
+        long generation = current.generation + 1;
+        write(current.toMap(), current.keys, current.countDocuments(), getPath(generation));
+        writeGeneration(generation);
+        Snapshot result = update(load(generation));
+        // readers of the current generation may still map it or read its log
+        deleteGenerations(current.generation - 1);
+        LOGGER.info(MessageFormat.format("document frequency index compacted, {0} documents, {1} terms",
+                result.countDocuments(),
+                result.countTerms));
+        return result;
+    }
+
+    /**
+     * this method checks whether a document is recorded, lock free
+     *
+     * @param documentKey
+     * @return {@code boolean}
+     * @throws IOException
+     */
+    public boolean containsDocument(String documentKey) throws IOException {
+        return getSnapshot().keys.contains(documentKey);
+    }
+
+    /**
+     * @return count of documents
+     * @throws IOException
+     */
+    public long countDocuments() throws IOException {
+        return getSnapshot().countDocuments();
+    }
+
+    /**
+     * @return count of terms
+     * @throws IOException
+     */
+    public int countTerms() throws IOException {
+        return getSnapshot().countTerms;
+    }
+
+    /**
+     * this method deletes old generations (base files and logs), files still in use (windows) are deleted by a following compaction
+     *
+     * @param lastGeneration inclusive
+     */
+    private void deleteGenerations(long lastGeneration) {
+        String prefix = path.getFileName().toString() + ".";
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(path.getParent(), prefix + "*")) {
+            for (Path generationPath : paths) {
+                String suffix = generationPath.getFileName().toString().substring(prefix.length());
+                if (!suffix.matches("\\d+(\\.log)?") || Long.parseLong(suffix.replace(".log", "")) > lastGeneration) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(generationPath);
+                } catch (IOException exception) {
+                    LOGGER.debug(MessageFormat.format("{0} still in use", generationPath));
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.debug(MessageFormat.format("old generations not deleted: {0}", exception.getMessage()));
+        }
+    }
+
+    /**
+     * this method return the count of documents containing a term, lock free
+     *
+     * @param term
+     * @return {@code int} 0 if unknown
+     * @throws IOException
+     */
+    public int getDocumentFrequency(String term) throws IOException {
+        return getSnapshot().getDocumentFrequency(term);
+    }
+
+    /**
+     * @param generation
+     * @return path of the log of a generation
+     */
+    private Path getLogPath(long generation) {
+        return Paths.get(path.toString() + "." + generation + ".log");
+    }
+
+    /**
+     * @param generation
+     * @return path of the base file of a generation
+     */
+    private Path getPath(long generation) {
+        return Paths.get(path.toString() + "." + generation);
+    }
+
+    /**
+     * this method return the current snapshot, without checking the file (one snapshot per calculation)
+     *
+     * @return {@link Snapshot}
+     * @throws IOException
+     */
+    private Snapshot getSnapshot() throws IOException {
+        Snapshot result = snapshot.get();
+        return (result != null) ? result : refresh(readGeneration());
+    }
+
+    /**
+     * this method map the base file of a generation
+     *
+     * @param generation
+     * @return new reference of {@link Snapshot}, empty on generation 0
+     * @throws IOException
+     */
+    private Snapshot load(long generation) throws IOException {
+        if (generation == 0) {
+            ByteBuffer empty = ByteBuffer.allocate(HEADER_SIZE + SLOT_SIZE);
+            empty.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, 0L).putInt(16, 0).putInt(20, 1);
+            empty.putInt(24, HEADER_SIZE + SLOT_SIZE).putInt(28, 0);
+            return new Snapshot(0, empty);
+        }
+        Path generationPath = getPath(generation);
+        try (FileChannel channel = FileChannel.open(generationPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("no document frequency index (version " + VERSION + "): " + generationPath);
+            }
+            return new Snapshot(generation, buffer);
+        }
+    }
+
+    /**
+     * this method return the current generation of the pointer file
+     *
+     * @return {@code long} 0 if no index exists
+     * @throws IOException
+     */
+    private long readGeneration() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return Long.parseLong(new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim());
+    }
+
+    /**
+     * this method reads the complete records of the log appended after a snapshot
+     *
+     * @param base
+     * @return new reference of {@link Snapshot} or base, if no record is appended
+     * @throws IOException
+     */
+    private Snapshot readLog(Snapshot base) throws IOException {
+        Path logPath = getLogPath(base.generation);
+        ByteBuffer records = null;
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            long size = channel.size() - base.logPosition;
+            if (size <= 0) {
+                return base;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("document frequency log exceeds 2 GB: " + logPath);
+            }
+            records = ByteBuffer.allocate((int)size);
+            while (records.hasRemaining()) {
+                if (channel.read(records, base.logPosition + records.position()) < 0) {
+                    break;
+                }
+            }
+            records.flip();
+        } catch (NoSuchFileException exception) {
+            // no document added since the base file was written
+            return base;
+        }
+        // an incomplete record is written meanwhile (or by a crashed process)
+        int end = 0;
+        while (records.limit() - end >= 12 && records.getInt(end) >= 8 && records.limit() - end - 4 >= records.getInt(end)) {
+            end += 4 + records.getInt(end);
+        }
+        if (end == 0) {
+            return base;
+        }
+        records.limit(end);
+        return new Snapshot(base, records, base.logPosition + end);
+    }
+
+    /**
+     * this method reads the documents added since the last call, the base file is mapped only if the generation changed (one read of
+     * the pointer file and of the new part of the log). lock free, readers are not blocked by writers. call once before a
+     * calculation to see updates of other processes
+     *
+     * @throws IOException
+     */
+    public void refresh() throws IOException {
+        refresh(readGeneration());
+    }
+
+    /**
+     * this method reads a generation and its log after the current snapshot
+     *
+     * @param generation
+     * @return {@link Snapshot} the newest snapshot
+     * @throws IOException
+     */
+    private Snapshot refresh(long generation) throws IOException {
+        while (true) {
+            Snapshot current = snapshot.get();
+            try {
+                Snapshot base = (current != null && current.generation == generation) ? current : load(generation);
+                return update(readLog(base));
+            } catch (NoSuchFileException exception) {
+                // compacted and deleted meanwhile, read the newer generation
+                long newerGeneration = readGeneration();
+                if (newerGeneration == generation) {
+                    throw exception;
+                }
+                generation = newerGeneration;
+            }
+        }
+    }
+
+    /**
+     * this method publish a snapshot, if it is newer than the current one
+     *
+     * @param next
+     * @return {@link Snapshot} the newest snapshot
+     */
+    private Snapshot update(Snapshot next) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current != null && !next.isNewer(current)) {
+                return current;
+            }
+            if (snapshot.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * this method write a new index file (not yet visible)
+     *
+     * @param documentFrequencies
+     * @param keys of the recorded documents
+     * @param countDocuments
+     * @param generationPath
+     * @throws IOException
+     */
+    private void write(Map<String, Integer> documentFrequencies, Set<String> keys, long countDocuments, Path generationPath)
+            throws IOException {
+        int countTerms = documentFrequencies.size();
+        // load factor <= 0.5
+        int capacity = 16;
+        while (capacity < countTerms * 2) {
+            capacity *= 2;
+        }
+        long countChars = 0;
+        for (String term : documentFrequencies.keySet()) {
+            countChars += term.length();
+        }
+        long keyOffset = HEADER_SIZE + (long)capacity * SLOT_SIZE + countChars * 2;
+        long size = keyOffset;
+        for (String key : keys) {
+            size += 4 + key.length() * 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("document frequency index exceeds 2 GB: " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int)size);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, countDocuments).putInt(16, countTerms).putInt(20, capacity);
+        buffer.putInt(24, (int)keyOffset).putInt(28, keys.size());
+        int mask = capacity - 1;
+        int offset = HEADER_SIZE + capacity * SLOT_SIZE;
+        for (Map.Entry<String, Integer> entry : documentFrequencies.entrySet()) {
+            String term = entry.getKey();
+            int hash = hash(term);
+            int slot = hash & mask;
+            while (buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE + 4) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            buffer.putInt(position, hash).putInt(position + 4, entry.getValue());
+            buffer.putInt(position + 8, offset).putInt(position + 12, term.length());
+            for (int index = 0; index < term.length(); index++) {
+                buffer.putChar(offset, term.charAt(index));
+                offset += 2;
+            }
+        }
+        for (String key : keys) {
+            buffer.putInt(offset, key.length());
+            offset += 4;
+            for (int index = 0; index < key.length(); index++) {
+                buffer.putChar(offset, key.charAt(index));
+                offset += 2;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(generationPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * this method replace the pointer file by an atomic rename, the generation becomes visible
+     *
+     * @param generation
+     * @throws IOException
+     */
+    private void writeGeneration(long generation) throws IOException {
+        Path tempPath = Paths.get(path.toString() + ".tmp");
+        Files.write(tempPath, Long.toString(generation).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
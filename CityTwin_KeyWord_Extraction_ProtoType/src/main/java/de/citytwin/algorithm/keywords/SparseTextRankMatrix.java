@@ -0,0 +1,378 @@
+package de.citytwin.algorithm.keywords;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * this class represent a textrank adjazenz matrix in compressed sparse row (csr) format <br>
+ * memory is proportional to the count of edges, not to the square of the count of terms
+ * <p>
+ * row_i (out going edges of term_i) is stored in <br>
+ * {@code columnIndices[rowPointers[i]] ... columnIndices[rowPointers[i + 1] - 1]} (index of target term) <br>
+ * {@code weights[rowPointers[i]] ... weights[rowPointers[i + 1] - 1]} (edge weight)
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class SparseTextRankMatrix implements AutoCloseable {
+
+    /**
+     * This inner class runs a block action on a range of blocks, splitted by fork join
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class BlockAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final IntConsumer action;
+        private final int fromBlock;
+        private final int toBlock;
+
+        /**
+         * constructor.
+         *
+         * @param action
+         * @param fromBlock inclusive
+         * @param toBlock exclusive
+         */
+        public BlockAction(IntConsumer action, int fromBlock, int toBlock) {
+            this.action = action;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock == 1) {
+                action.accept(fromBlock);
+                return;
+            }
+            int middle = (fromBlock + toBlock) >>> 1;
+            invokeAll(new BlockAction(action, fromBlock, middle), new BlockAction(action, middle, toBlock));
+        }
+    }
+
+    // rows of a block (partition for fork join and partial sums)
+    private static final int BLOCK_SIZE = 2048;
+
+    // term of each row
+    private String[] terms;
+    private int size;
+    // hold indexes of terms
+    private Map<String, Integer> indexOfTerm;
+    // size = count of terms + 1
+    private int[] rowPointers;
+    // size = count of edges
+    private int[] columnIndices;
+    // size = count of edges
+    private double[] weights;
+    // transposed matrix (in going edges), weights only initialized by push
+    private int[] columnPointers;
+    private int[] rowIndices;
+    private double[] transposedWeights;
+    // partial sums of each block, summed up in block order (same result for each parallelism)
+    private double[] partials;
+    private ForkJoinPool forkJoinPool = null;
+
+    /**
+     * constructor.
+     *
+     * @param graph
+     * @param withNormalize
+     */
+    public SparseTextRankMatrix(CooccurrenceGraph graph, @Nullable Boolean withNormalize) {
+        initialize(graph, (withNormalize != null) ? withNormalize : false);
+    }
+
+    @Override
+    public void close() throws Exception {
+        // shared with the graph
+        terms = null;
+        indexOfTerm = null;
+        rowPointers = null;
+        columnIndices = null;
+        weights = null;
+        columnPointers = null;
+        rowIndices = null;
+        transposedWeights = null;
+        partials = null;
+        forkJoinPool = null;
+    }
+
+    /**
+     * this method calculate the L1 distance of two vectors
+     *
+     * @param left
+     * @param right
+     * @return {@code double}
+     */
+    public double distance(final double[] left, final double[] right) {
+        forEachBlock(block -> {
+            double result = 0.0d;
+            for (int index = block * BLOCK_SIZE; index < Math.min((block + 1) * BLOCK_SIZE, left.length); index++) {
+                result += Math.abs(left[index] - right[index]);
+            }
+            partials[block] = result;
+        });
+        return sumPartials();
+    }
+
+    /**
+     * @return count of stored edges (non zero values)
+     */
+    public int countEdges() {
+        return columnIndices.length;
+    }
+
+    /**
+     * @return {@code Map<String, Integer>}
+     */
+    public Map<String, Integer> getIndexOfTerm() {
+        return indexOfTerm;
+    }
+
+    /**
+     * @param index
+     * @return term of row or column index
+     */
+    public String getTerm(int index) {
+        return terms[index];
+    }
+
+    /**
+     * this method return a single value of the matrix, only for formatted output
+     *
+     * @param row
+     * @param column
+     * @return {@code double} (0.0 if not linked)
+     */
+    public double getValue(int row, int column) {
+        int position = Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+        return (position < 0) ? 0.0d : weights[position];
+    }
+
+    /**
+     * this method runs an action for each block of rows, parallel if a {@link ForkJoinPool} is set
+     *
+     * @param action {@code (block) -> {}}
+     */
+    private void forEachBlock(IntConsumer action) {
+        if (forkJoinPool == null || partials.length < 2) {
+            for (int block = 0; block < partials.length; block++) {
+                action.accept(block);
+            }
+            return;
+        }
+        forkJoinPool.invoke(new BlockAction(action, 0, partials.length));
+    }
+
+    /**
+     * this method calculate a single textrank iteration in place (gauss seidel), updated scores are used immediately <br>
+     * {@code vector[i] = scale * ((1 - d) + d * (row_i * vector))}
+     *
+     * @param vector current scores, will be overwritten
+     * @param d damping factor
+     * @param scale 1.0 solves {@code x = (1 - d) + d * M * x}, {@code 1 / |(1 - d) + d * M * x|} the fixed point of power with
+     *            vector normalization
+     */
+    public void gaussSeidel(double[] vector, double d, double scale) {
+        for (int row = 0; row < size; row++) {
+            double value = 0.0d;
+            for (int position = rowPointers[row]; position < rowPointers[row + 1]; position++) {
+                value += weights[position] * vector[columnIndices[position]];
+            }
+            vector[row] = scale * ((1 - d) + d * (value));
+        }
+    }
+
+    /**
+     * this method initialize the weights of the transposed matrix (in going edges of each term), needed by
+     * {@link SparseTextRankMatrix#push(double[], double[], double, double)} <br>
+     * all edges of a row have the same weight
+     */
+    private void initializeTransposed() {
+        transposedWeights = new double[rowIndices.length];
+        for (int position = 0; position < rowIndices.length; position++) {
+            transposedWeights[position] = weights[rowPointers[rowIndices[position]]];
+        }
+    }
+
+    /**
+     * this method initialize the class fields, rows are the term ids of the graph, the structure is shared with the graph
+     *
+     * @param graph
+     * @param withNormalize
+     */
+    private void initialize(CooccurrenceGraph graph, boolean withNormalize) {
+        size = graph.countTerms();
+        terms = graph.getTerms();
+        indexOfTerm = graph.getIndexOfTerm();
+        rowPointers = graph.getOutPointers();
+        columnIndices = graph.getOutTargets();
+        columnPointers = graph.getInPointers();
+        rowIndices = graph.getInSources();
+        weights = new double[columnIndices.length];
+        partials = new double[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        for (int row = 0; row < size; row++) {
+            // sum of out going edge weights
+            double sum = graph.outDegreeOf(row) * graph.getEdgeWeight();
+            for (int position = rowPointers[row]; position < rowPointers[row + 1]; position++) {
+                weights[position] = (withNormalize) ? (1 / sum) : graph.getEdgeWeight();
+            }
+        }
+    }
+
+    /**
+     * this method calculate the length (L2 norm) of a vector
+     *
+     * @param vector
+     * @return {@code double}
+     */
+    public double length(final double[] vector) {
+        forEachBlock(block -> {
+            double result = 0.0d;
+            for (int index = block * BLOCK_SIZE; index < Math.min((block + 1) * BLOCK_SIZE, vector.length); index++) {
+                result += vector[index] * vector[index];
+            }
+            partials[block] = result;
+        });
+        return Math.sqrt(sumPartials());
+    }
+
+    /**
+     * this method calculate a single textrank iteration, no allocation, parallel by blocks of rows if a {@link ForkJoinPool} is set <br>
+     * {@code result[i] = (1 - d) + d * (row_i * vector)}
+     *
+     * @param vector current scores
+     * @param result new scores, have to be other reference than vector
+     * @param d damping factor
+     */
+    public void multiply(final double[] vector, double[] result, double d) {
+        forEachBlock(block -> multiply(vector, result, d, block * BLOCK_SIZE, Math.min((block + 1) * BLOCK_SIZE, size)));
+    }
+
+    /**
+     * this method calculate a single textrank iteration on a range of rows, no allocation
+     *
+     * @param vector current scores
+     * @param result new scores, have to be other reference than vector
+     * @param d damping factor
+     * @param fromRow inclusive
+     * @param toRow exclusive
+     */
+    public void multiply(final double[] vector, double[] result, double d, int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            double value = 0.0d;
+            for (int position = rowPointers[row]; position < rowPointers[row + 1]; position++) {
+                value += weights[position] * vector[columnIndices[position]];
+            }
+            // avoid circle dependency
+            result[row] = (1 - d) + d * (value);
+        }
+    }
+
+    /**
+     * this method normalize a vector (in place)
+     *
+     * @param vector
+     */
+    public void normVector(double[] vector) {
+        double factor = 1.0 / length(vector);
+        forEachBlock(block -> {
+            for (int index = block * BLOCK_SIZE; index < Math.min((block + 1) * BLOCK_SIZE, vector.length); index++) {
+                vector[index] = factor * vector[index];
+            }
+        });
+    }
+
+    /**
+     * this method runs one pass of residual push on the linear textrank system {@code x = (1 - d) + d * M * x} <br>
+     * each term with a residual greater than threshold moves its residual into its score and pushes {@code d * weight * residual} to
+     * all terms linked to it. start with {@code scores = 0} and {@code residuals = (1 - d)} or with the residuals of
+     * {@link SparseTextRankMatrix#scaledResiduals(double[], double[], double)} and {@code d * scale}. <br>
+     * converges only if {@code d * M} is a contraction (row normalized matrix)
+     *
+     * @param scores will be updated
+     * @param residuals will be updated
+     * @param d damping factor
+     * @param threshold minimum residual to push
+     * @return L1 norm of the remaining residuals
+     */
+    public double push(double[] scores, double[] residuals, double d, double threshold) {
+        if (transposedWeights == null) {
+            initializeTransposed();
+        }
+        for (int column = 0; column < size; column++) {
+            double residual = residuals[column];
+            if (Math.abs(residual) <= threshold) {
+                continue;
+            }
+            scores[column] += residual;
+            residuals[column] = 0.0d;
+            for (int position = columnPointers[column]; position < columnPointers[column + 1]; position++) {
+                residuals[rowIndices[position]] += d * transposedWeights[position] * residual;
+            }
+        }
+        double result = 0.0d;
+        for (double residual : residuals) {
+            result += Math.abs(residual);
+        }
+        return result;
+    }
+
+    /**
+     * this method calculate the residuals of the scaled linear textrank system {@code x = scale * ((1 - d) + d * M * x)} at the
+     * current scores <br>
+     * {@code residuals = scale * ((1 - d) + d * M * scores) - scores} with {@code scale = 1 / |(1 - d) + d * M * scores|}, the
+     * normalization of a power iteration. scores and residuals have to be other references
+     *
+     * @param scores current scores
+     * @param residuals will be overwritten
+     * @param d damping factor
+     * @return {@code double} scale
+     */
+    public double scaledResiduals(final double[] scores, double[] residuals, double d) {
+        multiply(scores, residuals, d);
+        double scale = 1.0 / length(residuals);
+        forEachBlock(block -> {
+            for (int index = block * BLOCK_SIZE; index < Math.min((block + 1) * BLOCK_SIZE, scores.length); index++) {
+                residuals[index] = scale * residuals[index] - scores[index];
+            }
+        });
+        return scale;
+    }
+
+    /**
+     * this method set a fork join pool, all vector operations run parallel by blocks of rows
+     *
+     * @param forkJoinPool {@code null} sequential
+     */
+    public void setForkJoinPool(@Nullable ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * @return count of terms (rows and columns)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * this method sum the partial sums in block order
+     *
+     * @return {@code double}
+     */
+    private double sumPartials() {
+        double result = 0.0d;
+        for (double partial : partials) {
+            result += partial;
+        }
+        return result;
+    }
+
+}
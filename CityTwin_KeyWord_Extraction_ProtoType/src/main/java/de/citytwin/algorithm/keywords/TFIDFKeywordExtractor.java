@@ -1,26 +1,29 @@
 package de.citytwin.algorithm.keywords;
 
 import de.citytwin.config.ApplicationConfiguration;
-import de.citytwin.keywords.KeywordExtractor;
+import de.citytwin.keywords.RankedKeywordExtractor;
+import de.citytwin.keywords.RankedKeywords;
+import de.citytwin.keywords.TopKSelector;
+import de.citytwin.text.AnnotatedCorpus;
+import de.citytwin.text.TermDictionary;
+import de.citytwin.text.TermIdIndex;
 import de.citytwin.text.TextProcessing;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.text.MessageFormat;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.tuple.Pair;
-import org.apache.tika.sax.BodyContentHandler;
-import org.javatuples.Quartet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,53 +33,190 @@ import org.slf4j.LoggerFactory;
  * @see <a href=https://en.wikipedia.org/wiki/Tf%E2%80%93idf> tf idf wiki</a>
  * @author Maik Siegmund, FH Erfurt
  */
-public class TFIDFKeywordExtractor implements KeywordExtractor, AutoCloseable {
+public class TFIDFKeywordExtractor implements RankedKeywordExtractor, AutoCloseable {
 
     /**
-     * inner class represent DocumentCount only use here. used as struct ... <br>
-     * {@code Map<String, Quartet<Integer, Double, String, Set<Integer>>>}
+     * inner class represent DocumentCount only use here. used as struct of arrays, index is the term index of
+     * {@link DocumentCount#termIdIndex} <br>
+     * {@link DocumentCount#counts} raw count of each term in <b>D</b>
      * <p>
-     * {@link DocumentCount#terms} distinct all terms of <b>D</b>
+     * {@link DocumentCount#documentFrequencies} count of sentences <b>d_i</b> containing the term
      * <p>
-     * {@link DocumentCount#sentences} whole text corpus <b>D</b> splited in sentences <b>d_i</b>
+     * {@link DocumentCount#lastSentences} index of the last sentence containing the term, {@link DocumentCount#countsInLastSentence}
+     * count of the term in it
      * <p>
-     * {@link DocumentCount#countWords} <b>|D|</b>
+     * {@link DocumentCount#firstSentences} index of the first sentence containing the term, {@link DocumentCount#tagIds} pos tag of
+     * the first occurrence, index of {@link DocumentCount#tags}
      * <p>
-     * {@link DocumentCount#isNormalized}
+     * {@link DocumentCount#scores} calculation (tf, normalized tf, tf idf), calculated in place
+     * <p>
+     * {@link DocumentCount#sentenceSizes} count of terms of each sentence <b>d_i</b>, {@link DocumentCount#countWords} <b>|D|</b>
+     * <p>
+     * counts of disjoint sentence ranges are merged by {@link DocumentCount#merge(DocumentCount)}
      */
     class DocumentCount {
 
-        public int countWords;
-        public boolean isNormalized;
-        public Map<Integer, List<String>> sentences;
-        // term, count, calculation, , postag, sentenceindex (intern use)
-        public Map<String, Quartet<Integer, Double, String, Set<Integer>>> terms;
+        public int countWords = 0;
+        public int countSentences = 0;
+        public int[] sentenceSizes;
+        public TermIdIndex termIdIndex = new TermIdIndex();
+        public int[] counts = new int[1024];
+        public int[] documentFrequencies = new int[1024];
+        public int[] firstSentences = new int[1024];
+        public int[] lastSentences = new int[1024];
+        public int[] countsInLastSentence = new int[1024];
+        public int[] tagIds = new int[1024];
+        public double[] scores;
+        public List<String> tags = new ArrayList<String>();
 
         /**
-         * constructor.
+         * this method add an occurrence of a term in a sentence, sentences are added in ascending order
+         *
+         * @param id term id
+         * @param sentenceIndex
+         * @param tag pos tag, only used on first occurrence
          */
-        public DocumentCount() {
-            terms = new HashMap<String, Quartet<Integer, Double, String, Set<Integer>>>();
-            sentences = new HashMap<Integer, List<String>>();
-            countWords = 0;
-            isNormalized = false;
+        public void add(int id, int sentenceIndex, String tag) {
+            int index = termIdIndex.add(id);
+            ensureCapacity(index);
+            if (counts[index] == 0) {
+                tagIds[index] = getTagId(tag);
+                firstSentences[index] = sentenceIndex;
+                lastSentences[index] = -1;
+            }
+            counts[index]++;
+            if (lastSentences[index] != sentenceIndex) {
+                lastSentences[index] = sentenceIndex;
+                countsInLastSentence[index] = 0;
+                documentFrequencies[index]++;
+            }
+            countsInLastSentence[index]++;
+            countWords++;
+        }
+
+        /**
+         * @return count of distinct terms
+         */
+        public int countTerms() {
+            return termIdIndex.size();
+        }
+
+        /**
+         * this method grow the columns
+         *
+         * @param index of a term
+         */
+        private void ensureCapacity(int index) {
+            if (index < counts.length) {
+                return;
+            }
+            int length = Math.max(counts.length * 2, index + 1);
+            counts = Arrays.copyOf(counts, length);
+            documentFrequencies = Arrays.copyOf(documentFrequencies, length);
+            firstSentences = Arrays.copyOf(firstSentences, length);
+            lastSentences = Arrays.copyOf(lastSentences, length);
+            countsInLastSentence = Arrays.copyOf(countsInLastSentence, length);
+            tagIds = Arrays.copyOf(tagIds, length);
+        }
+
+        /**
+         * @param tag
+         * @return id of a pos tag, unknown tags get the next id
+         */
+        private int getTagId(String tag) {
+            int result = tags.indexOf(tag);
+            if (result < 0) {
+                result = tags.size();
+                tags.add(tag);
+            }
+            return result;
         }
 
+        /**
+         * this method merge the counts of a disjoint sentence range (commutative, same counts in each order). counts are summed, the pos
+         * tag of the first occurrence and the count of the last sentence are kept. terms of the other range are appended, merge the
+         * following range into the previous one to keep the order of first occurrence
+         *
+         * @param other {@link DocumentCount} of a disjoint sentence range
+         * @return this
+         */
+        public DocumentCount merge(DocumentCount other) {
+            for (int otherIndex = 0; otherIndex < other.countTerms(); otherIndex++) {
+                int index = termIdIndex.add(other.termIdIndex.getId(otherIndex));
+                ensureCapacity(index);
+                if (counts[index] == 0 || other.firstSentences[otherIndex] < firstSentences[index]) {
+                    firstSentences[index] = other.firstSentences[otherIndex];
+                    tagIds[index] = getTagId(other.tags.get(other.tagIds[otherIndex]));
+                }
+                if (counts[index] == 0 || other.lastSentences[otherIndex] > lastSentences[index]) {
+                    lastSentences[index] = other.lastSentences[otherIndex];
+                    countsInLastSentence[index] = other.countsInLastSentence[otherIndex];
+                }
+                counts[index] += other.counts[otherIndex];
+                documentFrequencies[index] += other.documentFrequencies[otherIndex];
+            }
+            countWords += other.countWords;
+            return this;
+        }
+    }
+
+    /**
+     * This inner class calculate the raw count of a sentence range, splitted by fork join. partial counts are merged in sentence order
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private class RawCountTask extends RecursiveTask<DocumentCount> {
+
+        private static final long serialVersionUID = 1L;
+        private final AnnotatedCorpus annotatedCorpus;
+        private final boolean filterByStopWords;
+        private final boolean useStems;
+        private final int[] sentenceSizes;
+        private final int fromSentence;
+        private final int toSentence;
+        private final int partitionSize;
+
         /**
          * constructor.
          *
-         * @param documentCount
+         * @param annotatedCorpus
+         * @param filterByStopWords
+         * @param useStems
+         * @param sentenceSizes shared, each range writes its own sentences
+         * @param fromSentence inclusive
+         * @param toSentence exclusive
+         * @param partitionSize maximum count of sentences of a single task
          */
-        public DocumentCount(DocumentCount documentCount) {
-            terms = new HashMap<String, Quartet<Integer, Double, String, Set<Integer>>>(documentCount.terms);
-            sentences = new HashMap<Integer, List<String>>(documentCount.sentences);
-            countWords = documentCount.countWords;
-            isNormalized = documentCount.isNormalized;
+        public RawCountTask(AnnotatedCorpus annotatedCorpus, boolean filterByStopWords, boolean useStems, int[] sentenceSizes,
+                int fromSentence, int toSentence, int partitionSize) {
+            this.annotatedCorpus = annotatedCorpus;
+            this.filterByStopWords = filterByStopWords;
+            this.useStems = useStems;
+            this.sentenceSizes = sentenceSizes;
+            this.fromSentence = fromSentence;
+            this.toSentence = toSentence;
+            this.partitionSize = partitionSize;
+        }
 
+        @Override
+        protected DocumentCount compute() {
+            if (toSentence - fromSentence <= partitionSize) {
+                return getRawCount(annotatedCorpus, filterByStopWords, useStems, sentenceSizes, fromSentence, toSentence);
+            }
+            int middle = (fromSentence + toSentence) >>> 1;
+            RawCountTask left = new RawCountTask(annotatedCorpus, filterByStopWords, useStems, sentenceSizes, fromSentence, middle,
+                    partitionSize);
+            RawCountTask right = new RawCountTask(annotatedCorpus, filterByStopWords, useStems, sentenceSizes, middle, toSentence,
+                    partitionSize);
+            right.fork();
+            DocumentCount result = left.compute();
+            return result.merge(right.join());
         }
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // minimum count of sentences of a parallel counted range
+    private static final int MIN_PARTITION_SIZE = 256;
 
     /**
      * the method return default properties
@@ -88,6 +228,9 @@ public class TFIDFKeywordExtractor implements KeywordExtractor, AutoCloseable {
         properties.setProperty(ApplicationConfiguration.WITH_STOPWORDFILTER, "false");
         properties.setProperty(ApplicationConfiguration.WITH_STEMMING, "false");
         properties.setProperty(ApplicationConfiguration.NORMALIZATION_TYPE, "none");
+        properties.setProperty(ApplicationConfiguration.TFIDF_PARALLELISM, "1");
+        properties.setProperty(ApplicationConfiguration.PATH_2_DOCUMENT_FREQUENCY_INDEX_FILE, "..\\document_frequency.index");
+        properties.setProperty(ApplicationConfiguration.TOP_K_KEYWORDS, "500");
         return properties;
     }
 
@@ -97,6 +240,10 @@ public class TFIDFKeywordExtractor implements KeywordExtractor, AutoCloseable {
     Boolean withStopwordFilter = null;
     Boolean withStemming = null;
     String normalizationType = null;
+    private DocumentFrequencyIndex documentFrequencyIndex = null;
+    private Integer parallelism = null;
+    private ForkJoinPool forkJoinPool = null;
+    private Integer topK = null;
 
     /**
      * constructor
@@ -108,185 +255,117 @@ public class TFIDFKeywordExtractor implements KeywordExtractor, AutoCloseable {
     public TFIDFKeywordExtractor(Properties properties, TextProcessing textProcessing) throws IOException {
         if (validateProperties(properties)) {
             this.textProcessing = textProcessing;
+            this.forkJoinPool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
         }
     }
 
     /**
-     * This method calculate smooth inverse document frequency.
+     * This method calculate the inverse document frequency of each term over all recorded documents and multiply it with the term
+     * frequency, in place. the {@link DocumentFrequencyIndex} is only read, documents are recorded by
+     * {@link TFIDFKeywordExtractor#recordDocument(String, AnnotatedCorpus)} <br>
+     * equation <strong> tfidf(t,d,D) = tf(t,d) * idf(t,D) </strong>, idf(t,D) = log((1 + |D|) / (1 + |{d in D: t in d}|)) + 1
      *
      * @see <a href=https://en.wikipedia.org/wiki/Tf%E2%80%93idf> tf idf calculation on wikipedia</a>
-     * @param documentCount
-     * @return new reference of {@link DocumentCount}
+     * @param documentCount {@link DocumentCount} with term frequencies
+     * @param termDictionary
      * @throws IOException
      */
-    private DocumentCount calculateIDF(final DocumentCount documentCount) throws IOException {
-
-        double value = 0.0;
-        DocumentCount result = new DocumentCount();
-        result.sentences = documentCount.sentences;
-        result.countWords = documentCount.countWords;
-        result.isNormalized = documentCount.isNormalized;
-        Quartet<Integer, Double, String, Set<Integer>> quartet = null;
-
-        for (String term : documentCount.terms.keySet()) {
-            quartet = documentCount.terms.get(term);
-            value = Math.log10((double)documentCount.sentences.size() / quartet.getValue3().size());
-            quartet = quartet.setAt1(value);
-            result.terms.put(term, quartet);
-        }
-        LOGGER.info("calculate smoot inverse document frequency completed.");
-        return result;
+    private void calculateCorpusTFIDF(DocumentCount documentCount, TermDictionary termDictionary) throws IOException {
+
+        documentFrequencyIndex.refresh();
+        double countDocuments = documentFrequencyIndex.countDocuments();
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            String term = termDictionary.getTerm(documentCount.termIdIndex.getId(index));
+            double idf = Math.log10((1.0 + countDocuments) / (1.0 + documentFrequencyIndex.getDocumentFrequency(term))) + 1.0;
+            documentCount.scores[index] = documentCount.scores[index] * idf;
+        }
+        LOGGER.info(MessageFormat.format("caculation tf idf completed, {0} documents", countDocuments));
     }
 
     /**
-     * This method calculate term frequency of a text.
+     * This method calculate smooth inverse document frequency and multiply it with the (normalized) term frequency, in place. <br>
+     * equation <strong> fidf(t,d,D) = tf(t,d) * idf(t,D) </strong>, idf(t,D) = log(|D| / |{d in D: t in d}|)
      *
      * @see <a href=https://en.wikipedia.org/wiki/Tf%E2%80%93idf> tf idf calculation on wikipedia</a>
-     * @param bodyContentHandler {@link BodyContentHandler}
-     * @return new reference of {@link DocumentCount}
+     * @param documentCount {@link DocumentCount} with term frequencies
      */
-    private DocumentCount calculateTF(final DocumentCount documentCount) throws IOException {
+    private void calculateTFIDF(DocumentCount documentCount) {
 
-        DocumentCount result = new DocumentCount();
-        result.sentences = documentCount.sentences;
-        result.isNormalized = documentCount.isNormalized;
-        result.countWords = documentCount.countWords;
-
-        Map<String, Integer> countOfTermInSentence = new HashMap<String, Integer>();
-        Quartet<Integer, Double, String, Set<Integer>> quartet = null;
-        for (Integer index : documentCount.sentences.keySet()) {
-            List<String> terms = documentCount.sentences.get(index);
-            int countTermsInSentence = terms.size();
-            // count terms in sentences (d_i) of D
-            for (String term : terms) {
-                if (!countOfTermInSentence.containsKey(term)) {
-                    countOfTermInSentence.put(term, 1);
-                    continue;
-                }
-                countOfTermInSentence.put(term, countOfTermInSentence.get(term) + 1);
-            }
-            // calculate tf score
-            for (String term : terms) {
-                quartet = documentCount.terms.get(term);
-                quartet = quartet.setAt1((double)countOfTermInSentence.get(term) / (double)countTermsInSentence);
-                result.terms.put(term, quartet);
-            }
-            countOfTermInSentence.clear();
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            double idf = Math.log10((double)documentCount.countSentences / documentCount.documentFrequencies[index]);
+            documentCount.scores[index] = documentCount.scores[index] * idf;
         }
-        LOGGER.info("calculate term frequency completed.");
-        result.isNormalized = false;
-        return result;
+        LOGGER.info("caculation tf idf completed");
     }
 
     /**
-     * This method calculate tfidf. <br>
-     * equation <strong> fidf(t,d,D) = tf(t,d) * idf(t,D) </strong>
+     * This method calculate term frequency of a text. the term frequency of a term is taken from the last sentence containing the term
      *
      * @see <a href=https://en.wikipedia.org/wiki/Tf%E2%80%93idf> tf idf calculation on wikipedia</a>
-     * @param tf {@link DocumentCount}
-     * @param idf {@link DocumentCount}
-     * @return new reference of {@link DocumentCount}
+     * @param documentCount {@link DocumentCount}
      */
-    private DocumentCount calculateTFIDF(final DocumentCount tf, final DocumentCount idf) {
-        double value = 0.0;
-        DocumentCount result = new DocumentCount();
-        result.sentences = tf.sentences;
-        result.isNormalized = tf.isNormalized;
-        result.countWords = tf.countWords;
+    private void calculateTF(DocumentCount documentCount) {
 
-        Quartet<Integer, Double, String, Set<Integer>> quartetTf = null;
-        Quartet<Integer, Double, String, Set<Integer>> quartetIdf = null;
-
-        for (String term : tf.terms.keySet()) {
-            quartetTf = tf.terms.get(term);
-            quartetIdf = idf.terms.get(term);
-            value = quartetTf.getValue1() * quartetIdf.getValue1();
-            quartetTf = quartetTf.setAt1(value);
-            result.terms.put(term, quartetTf);
+        documentCount.scores = new double[documentCount.countTerms()];
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            documentCount.scores[index] = (double)documentCount.countsInLastSentence[index]
+                    / (double)documentCount.sentenceSizes[documentCount.lastSentences[index]];
         }
-        LOGGER.info("caculation tf idf completed");
-        return result;
+        LOGGER.info("calculate term frequency completed.");
     }
 
     @Override
     public void close() throws Exception {
-
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
     }
 
     /**
-     * This method normalized a term frequency. <br>
+     * This method normalized a term frequency, in place. <br>
      * equation <strong> k +( 1 - k) f(t,d) / (max(f(t,d))) </strong>
      *
      * @see <a href=https://en.wikipedia.org/wiki/Tf%E2%80%93idf> tf idf calculation on wikipedia</a>
      * @param documentCount
      * @param k
-     * @return new reference of {@link DocumentCount}
      * @throws IllegalArgumentException
      */
-    private DocumentCount doubleNormalizationTermFrequency(final DocumentCount documentCount, final double k) {
-        if (documentCount.isNormalized) {
-            throw new IllegalArgumentException("document already normalized!");
-        }
+    private void doubleNormalizationTermFrequency(DocumentCount documentCount, final double k) {
         if (k < 0.0 && k > 1.0) {
             throw new IllegalArgumentException("k only in range 0.1 - 1.0");
         }
-        double value = 0.0;
-        DocumentCount result = new DocumentCount();
-        result.sentences = documentCount.sentences;
-        result.countWords = documentCount.countWords;
-        Map<String, Quartet<Integer, Double, String, Set<Integer>>> sorted = sortbyValue(documentCount.terms, true);
-
-        Quartet<Integer, Double, String, Set<Integer>> max = sorted.entrySet().iterator().next().getValue();
-        Quartet<Integer, Double, String, Set<Integer>> quartet = null;
-
-        for (String term : documentCount.terms.keySet()) {
-
-            quartet = documentCount.terms.get(term);
-            value = k + (1.0 - k) * (quartet.getValue1().doubleValue() / max.getValue1().doubleValue());
-            quartet = quartet.setAt1(value);
-            result.terms.put(term, quartet);
+        double max = Double.NEGATIVE_INFINITY;
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            max = Math.max(max, documentCount.scores[index]);
+        }
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            documentCount.scores[index] = k + (1.0 - k) * (documentCount.scores[index] / max);
         }
-        result.isNormalized = true;
         LOGGER.info("double normalization completed.");
-        return result;
     }
 
     @Override
     public Map<String, Double> getKeywords(List<List<String>> textcorpus) throws Exception {
+        return getKeywords(new AnnotatedCorpus(textcorpus, textProcessing));
+    }
 
-        HashMap<String, Double> extractedKeywords = new HashMap<String, Double>();
-        DocumentCount tfidf = new DocumentCount();
-        DocumentCount rawCount = prepareText(textcorpus, withStopwordFilter);
-        rawCount = (withStemming) ? getstemmedRawCount(rawCount) : getRawCount(rawCount);
-
-        DocumentCount tf = null;
-        tf = calculateTF(rawCount);
-        switch(normalizationType.toLowerCase()) {
-            case "double":
-                tf = doubleNormalizationTermFrequency(tf, k);
-                break;
-            case "log":
-                tf = logNormalizationTermFrequency(tf);
-                break;
-            case "none":
-            default:
-                break;
-        }
-        DocumentCount idf = calculateIDF(tf);
-        tfidf = calculateTFIDF(tf, idf);
-
-        List<String> temp = textProcessing.getPosTags();
-
-        for (String posTag : temp) {
-            for (String term : tfidf.terms.keySet()) {
-                String posTagOfTerm = tfidf.terms.get(term).getValue2();
-                if (posTagOfTerm.equals(posTag)) {
-                    extractedKeywords.put(term, tfidf.terms.get(term).getValue1());
-                }
+    @Override
+    public Map<String, Double> getKeywords(AnnotatedCorpus annotatedCorpus) throws Exception {
+
+        DocumentCount documentCount = getScoredCount(annotatedCorpus);
+        boolean[] isPosTags = getPosTagFilter(documentCount);
+        TermDictionary termDictionary = annotatedCorpus.getTermDictionary();
+        List<Map.Entry<String, Double>> extractedKeywords = new ArrayList<Map.Entry<String, Double>>();
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            if (isPosTags[documentCount.tagIds[index]]) {
+                extractedKeywords.add(new AbstractMap.SimpleImmutableEntry<String, Double>(
+                        termDictionary.getTerm(documentCount.termIdIndex.getId(index)),
+                        documentCount.scores[index]));
             }
         }
 
-        Map<String, Double> sortedMap = extractedKeywords.entrySet()
+        Map<String, Double> sortedMap = extractedKeywords
                 .stream()
                 .sorted(Comparator.comparingDouble(v -> -v.getValue()))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (left, right) -> {
@@ -298,153 +377,195 @@ public class TFIDFKeywordExtractor implements KeywordExtractor, AutoCloseable {
     }
 
     /**
-     * This method calculate the raw count and set the pos tag of each term. <br>
-     * {@link opennlp.tools.stemmer.snowball.SnowballStemmer}
+     * this method flags each pos tag of a document count, each pos tag is checked once
      *
-     * @param bodyContentHandler {@link BodyContentHandler}
-     * @return new reference of {@link DocumentCount}
+     * @param documentCount
+     * @return new reference of {@code boolean[]}, index is tag id, {@code true} if keywords of the pos tag are kept
      */
-    private DocumentCount getRawCount(DocumentCount documentCount) throws IOException {
+    private boolean[] getPosTagFilter(DocumentCount documentCount) {
+        boolean[] results = new boolean[documentCount.tags.size()];
+        for (int tagId = 0; tagId < results.length; tagId++) {
+            results[tagId] = textProcessing.isPosTag(documentCount.tags.get(tagId));
+        }
+        return results;
+    }
 
-        int sentenceIndex = 0;
-        DocumentCount result = new DocumentCount();
-        Quartet<Integer, Double, String, Set<Integer>> quartet = null;
-
-        for (Integer index : documentCount.sentences.keySet()) {
-            List<Pair<String, String>> terms = textProcessing.getPOSTags(documentCount.sentences.get(index));
-            for (Pair<String, String> term : terms) {
-                result.countWords++;
-                quartet = Quartet.with(1, 0.0, term.getRight(), new HashSet<Integer>());
-                if (!result.terms.containsKey(term.getLeft())) {
-                    result.terms.put(term.getLeft(), quartet);
-                    quartet.getValue3().add(sentenceIndex);
-                    continue;
-                }
-                quartet = result.terms.get(term.getLeft());
-                quartet = quartet.setAt0(quartet.getValue0() + 1);
-                quartet.getValue3().add(sentenceIndex);
-                result.terms.put(term.getLeft(), quartet);
+    @Override
+    public RankedKeywords getRankedKeywords(AnnotatedCorpus annotatedCorpus) throws Exception {
+        return getRankedKeywords(annotatedCorpus, topK);
+    }
+
+    @Override
+    public RankedKeywords getRankedKeywords(AnnotatedCorpus annotatedCorpus, int k) throws Exception {
+
+        DocumentCount documentCount = getScoredCount(annotatedCorpus);
+        boolean[] isPosTags = getPosTagFilter(documentCount);
+        TermDictionary termDictionary = annotatedCorpus.getTermDictionary();
+        TopKSelector topKSelector = new TopKSelector(k);
+        int termId = 0;
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            if (isPosTags[documentCount.tagIds[index]]) {
+                termId = documentCount.termIdIndex.getId(index);
+                topKSelector.offer(termId, termDictionary.getTerm(termId), documentCount.scores[index]);
             }
-            sentenceIndex++;
+        }
+        RankedKeywords results = topKSelector.toRankedKeywords();
+        LOGGER.info(MessageFormat.format("keywords selected {0} of {1}", results.size(), documentCount.countTerms()));
+        return results;
+    }
+
+    /**
+     * this method count the terms of an annotated text corpus and calculate the tf idf score of each term
+     *
+     * @param annotatedCorpus {@link AnnotatedCorpus}
+     * @return new reference of {@link DocumentCount}
+     * @throws IOException
+     */
+    private DocumentCount getScoredCount(AnnotatedCorpus annotatedCorpus) throws IOException {
 
+        DocumentCount documentCount = getRawCount(annotatedCorpus, withStopwordFilter, withStemming);
+        calculateTF(documentCount);
+        switch(normalizationType.toLowerCase()) {
+            case "double":
+                doubleNormalizationTermFrequency(documentCount, k);
+                break;
+            case "log":
+                logNormalizationTermFrequency(documentCount);
+                break;
+            case "corpus":
+            case "none":
+            default:
+                break;
+        }
+        if (documentFrequencyIndex != null) {
+            calculateCorpusTFIDF(documentCount, annotatedCorpus.getTermDictionary());
+        } else {
+            calculateTFIDF(documentCount);
+        }
+        return documentCount;
+
+    }
+
+    /**
+     * This method calculate the raw count, the document frequency and set the pos tag of each term in a single pass. <br>
+     * pos tags are taken from the annotated (unfiltered) sentence, the pos tag of the first occurrence is kept. terms are counted by
+     * term id ({@link TermDictionary}) in arrays. with parallelism greater 1 sentence ranges are counted in parallel and merged, the
+     * counts (and scores) are identical
+     *
+     * @param annotatedCorpus {@link AnnotatedCorpus}
+     * @param filterByStopWords
+     * @param useStems {@link opennlp.tools.stemmer.snowball.SnowballStemmer}
+     * @return new reference of {@link DocumentCount}
+     */
+    private DocumentCount getRawCount(final AnnotatedCorpus annotatedCorpus, boolean filterByStopWords, boolean useStems) {
+
+        int countSentences = annotatedCorpus.countSentences();
+        int[] sentenceSizes = new int[countSentences];
+        DocumentCount result = null;
+        if (forkJoinPool == null || countSentences <= MIN_PARTITION_SIZE) {
+            result = getRawCount(annotatedCorpus, filterByStopWords, useStems, sentenceSizes, 0, countSentences);
+        } else {
+            int partitionSize = Math.max(MIN_PARTITION_SIZE, countSentences / (parallelism * 4) + 1);
+            result = forkJoinPool.invoke(
+                    new RawCountTask(annotatedCorpus, filterByStopWords, useStems, sentenceSizes, 0, countSentences, partitionSize));
         }
-        result.sentences = documentCount.sentences;
-        result.isNormalized = documentCount.isNormalized;
+        result.countSentences = countSentences;
+        result.sentenceSizes = sentenceSizes;
         LOGGER.info(MessageFormat.format(
                 "terms overall:  {0} \n" +
                         "sentences       {1} \n" +
                         "terms distinct  {2} ",
-                result.terms.size(),
-                result.sentences.size(),
+                result.countTerms(),
+                result.countSentences,
                 result.countWords));
 
         return result;
     }
 
     /**
-     * This method stemm all terms in {@link DocumentCount#sentences}.
+     * This method calculate the raw count of a sentence range
      *
-     * @param documentCount
-     * @return new reference of {@link DocumentCount}
+     * @param annotatedCorpus {@link AnnotatedCorpus}
+     * @param filterByStopWords
+     * @param useStems
+     * @param sentenceSizes count of terms of each sentence, set for the range
+     * @param fromSentence inclusive
+     * @param toSentence exclusive
+     * @return new reference of {@link DocumentCount}, without sentence sizes
      */
-    private DocumentCount getstemmedRawCount(final DocumentCount documentCount) throws IOException {
+    private DocumentCount getRawCount(final AnnotatedCorpus annotatedCorpus, boolean filterByStopWords, boolean useStems,
+            int[] sentenceSizes, int fromSentence, int toSentence) {
 
         DocumentCount result = new DocumentCount();
-        List<String> tempStemmedTerms = null;
-
-        for (Integer index : documentCount.sentences.keySet()) {
-            List<String> terms = documentCount.sentences.get(index);
-            Map<String, String> stemmedTerms = textProcessing.stemm(terms);
-            tempStemmedTerms = new ArrayList<String>();
-            for (String term : terms) {
-                tempStemmedTerms.add(stemmedTerms.get(term));
+        for (int sentenceIndex = fromSentence; sentenceIndex < toSentence; sentenceIndex++) {
+            int[] ids = (useStems) ? annotatedCorpus.getStemIds(sentenceIndex) : annotatedCorpus.getTermIds(sentenceIndex);
+            for (int termIndex = 0; termIndex < ids.length; termIndex++) {
+                if (filterByStopWords && annotatedCorpus.isStopword(sentenceIndex, termIndex)) {
+                    continue;
+                }
+                result.add(ids[termIndex], sentenceIndex, annotatedCorpus.getPosTag(sentenceIndex, termIndex));
+                sentenceSizes[sentenceIndex]++;
             }
-            result.sentences.put(index, tempStemmedTerms);
         }
-
-        result.isNormalized = documentCount.isNormalized;
-        result.countWords = documentCount.countWords;
-        result.terms = result.terms;
-
-        return getRawCount(result);
+        return result;
     }
 
     /**
-     * This method normalized a term frequency.<br>
+     * This method normalized a term frequency, in place.<br>
      * equation = log(1+f(t,d))
      *
      * @see <a href=https://en.wikipedia.org/wiki/Tf%E2%80%93idf> tf idf calculation on wikipedia</a>
      * @param documentCount {@link DocumentCount}
-     * @return new reference of {@link DocumentCount}
-     * @throws IllegalArgumentException
      */
-    private DocumentCount logNormalizationTermFrequency(final DocumentCount documentCount) {
-        if (documentCount.isNormalized) {
-            throw new IllegalArgumentException("document already normalized!");
-        }
-        DocumentCount result = new DocumentCount();
-        result.sentences = documentCount.sentences;
-        result.countWords = documentCount.countWords;
+    private void logNormalizationTermFrequency(DocumentCount documentCount) {
 
-        Quartet<Integer, Double, String, Set<Integer>> quartet = null;
-
-        for (String term : documentCount.terms.keySet()) {
-            quartet = documentCount.terms.get(term);
-            quartet = quartet.setAt1(Math.log10(1.0 + quartet.getValue1().doubleValue()));
-            result.terms.put(term, quartet);
+        for (int index = 0; index < documentCount.countTerms(); index++) {
+            documentCount.scores[index] = Math.log10(1.0 + documentCount.scores[index]);
         }
-        result.isNormalized = true;
         LOGGER.info("log normalization completed.");
-        return result;
     }
 
     /**
-     * This method prepare text corpus to tf idf calculation
+     * this method records a document in the {@link DocumentFrequencyIndex} (normalization corpus), each distinct term (stopword filter
+     * and stemming like the scoring) increments its document frequency. a document is recorded once per key, scoring does not change
+     * the index. without the index nothing is recorded
      *
-     * @param textCorpus
-     * @param filterByStopWords
-     * @return
+     * @param documentKey identifies the document, e.g. {@link de.citytwin.analyser.DocumentKeywordAnalyser#getDocumentKey}
+     * @param annotatedCorpus {@link AnnotatedCorpus} of the document
+     * @return {@code true} if recorded, {@code false} if already recorded or without index
+     * @throws IOException
      */
-    private DocumentCount prepareText(final List<List<String>> textCorpus, Boolean filterByStopWords) {
-
-        DocumentCount result = new DocumentCount();
-        int count = 0;
-        int sentenceIndex = 0;
-        for (List<String> senctence : textCorpus) {
-            List<String> terms = filterByStopWords ? textProcessing.filterByStopWords(senctence) : senctence;
-            result.sentences.put(sentenceIndex++, terms);
-            count += terms.size();
-        }
-        result.countWords = count;
-        result.isNormalized = false;
-        return result;
+    public boolean recordDocument(String documentKey, AnnotatedCorpus annotatedCorpus) throws IOException {
+        if (documentFrequencyIndex == null || documentFrequencyIndex.containsDocument(documentKey)) {
+            return false;
+        }
+        TermIdIndex termIdIndex = new TermIdIndex();
+        for (int sentenceIndex = 0; sentenceIndex < annotatedCorpus.countSentences(); sentenceIndex++) {
+            int[] ids = (withStemming) ? annotatedCorpus.getStemIds(sentenceIndex) : annotatedCorpus.getTermIds(sentenceIndex);
+            for (int termIndex = 0; termIndex < ids.length; termIndex++) {
+                if (withStopwordFilter && annotatedCorpus.isStopword(sentenceIndex, termIndex)) {
+                    continue;
+                }
+                termIdIndex.add(ids[termIndex]);
+            }
+        }
+        TermDictionary termDictionary = annotatedCorpus.getTermDictionary();
+        List<String> terms = new ArrayList<String>(termIdIndex.size());
+        for (int index = 0; index < termIdIndex.size(); index++) {
+            terms.add(termDictionary.getTerm(termIdIndex.getId(index)));
+        }
+        return documentFrequencyIndex.addDocument(documentKey, terms);
     }
 
     /**
-     * This method sort a map by {@link Quartet#getValue1()}
-     * <p>
-     * term, count, calculation, postag, sentence indices
-     * <p>
-     * Quartet {@code Map<String, Quartet<Integer, Double, String, Set<Integer>>>}
-     * <p>
+     * this method checks whether a document is recorded in the {@link DocumentFrequencyIndex}
      *
-     * @param map {@code Map<String, Quartet<Integer, Double, String, Set<Integer>>>}
-     * @param isDescending {@code true} or {@code false}
-     * @return new reference of {@code Map<String, Quartet<Integer, Double, String, Set<Integer>>>}
+     * @param documentKey
+     * @return {@code boolean} {@code false} without index
+     * @throws IOException
      */
-    private Map<String, Quartet<Integer, Double, String, Set<Integer>>> sortbyValue(
-            final Map<String, Quartet<Integer, Double, String, Set<Integer>>> map, boolean isDescending) {
-
-        double negation = (isDescending) ? -1.0 : 1.0;
-
-        Map<String, Quartet<Integer, Double, String, Set<Integer>>> sortedMap = map.entrySet()
-                .stream()
-                .sorted(Comparator.comparingDouble(value -> negation * value.getValue().getValue1().doubleValue()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (left, right) -> {
-                    throw new AssertionError();
-                }, LinkedHashMap::new));
-        return sortedMap;
-
+    public boolean isRecorded(String documentKey) throws IOException {
+        return documentFrequencyIndex != null && documentFrequencyIndex.containsDocument(documentKey);
     }
 
     /**
@@ -471,6 +592,22 @@ public class TFIDFKeywordExtractor implements KeywordExtractor, AutoCloseable {
         if (normalizationType == null) {
             throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.NORMALIZATION_TYPE");
         }
+        // optional, property files without it count sequential
+        parallelism = Integer.parseInt(properties.getProperty(ApplicationConfiguration.TFIDF_PARALLELISM, "1"));
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TFIDF_PARALLELISM have to be 1 or greater");
+        }
+        topK = Integer.parseInt(properties.getProperty(ApplicationConfiguration.TOP_K_KEYWORDS, "500"));
+        if (topK < 1) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TOP_K_KEYWORDS have to be 1 or greater");
+        }
+        if (normalizationType.equalsIgnoreCase("corpus")) {
+            property = properties.getProperty(ApplicationConfiguration.PATH_2_DOCUMENT_FREQUENCY_INDEX_FILE);
+            if (property == null) {
+                throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.PATH_2_DOCUMENT_FREQUENCY_INDEX_FILE");
+            }
+            documentFrequencyIndex = DocumentFrequencyIndex.open(property);
+        }
         return true;
     }
 }
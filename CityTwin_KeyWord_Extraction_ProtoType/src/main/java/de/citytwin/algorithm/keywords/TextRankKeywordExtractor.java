@@ -1,33 +1,33 @@
 package de.citytwin.algorithm.keywords;
 
 import de.citytwin.config.ApplicationConfiguration;
-import de.citytwin.keywords.KeywordExtractor;
+import de.citytwin.keywords.RankedKeywordExtractor;
+import de.citytwin.keywords.RankedKeywords;
+import de.citytwin.keywords.TopKSelector;
+import de.citytwin.text.AnnotatedCorpus;
+import de.citytwin.text.TermDictionary;
 import de.citytwin.text.TextProcessing;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Formatter;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
-import org.apache.commons.lang3.tuple.Pair;
-import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleDirectedWeightedGraph;
-import org.jgrapht.traverse.DepthFirstIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +37,7 @@ import org.slf4j.LoggerFactory;
  * @see <a href=https://web.eecs.umich.edu/~mihalcea/papers/mihalcea.emnlp04.pdf> textRank Paper</a>
  * @author maik siegmund, FH Erfurt
  */
-public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable {
+public class TextRankKeywordExtractor implements RankedKeywordExtractor, AutoCloseable {
 
     /**
      * This inner class represent textrank matrix contains a graph and this adjazenz matrix
@@ -46,7 +46,7 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
      */
     public class TextRankMatrix implements AutoCloseable {
 
-        private transient Graph<String, DefaultWeightedEdge> graph;
+        private transient CooccurrenceGraph graph;
         // hold indexes of terms (in Map<K,V> add sequence does not correspond like stack or list)
         private Map<String, Integer> indexOfTerm;
         // simple adjazenz matrix with out term information
@@ -72,7 +72,7 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
          * @param graph
          * @param withNormalize
          */
-        public TextRankMatrix(Graph<String, DefaultWeightedEdge> graph, @Nullable Boolean withNormalize) {
+        public TextRankMatrix(CooccurrenceGraph graph, @Nullable Boolean withNormalize) {
             super();
             this.graph = graph;
             this.withNormalize = (withNormalize != null) ? withNormalize : false;
@@ -116,45 +116,39 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
          * {@link TextRankMatrix#indexOfTerm} mapping rowVector[] to term
          */
         private void initialize() {
-            int size = graph.vertexSet().size();
-            int index = 0;
+            int size = graph.countTerms();
             double initializeValue = 0.0d;
+            int index = 0;
             String term = "";
             matrix = new Double[size][size];
-            Iterator<String> iterator = new DepthFirstIterator<>(graph);
-            Set<DefaultWeightedEdge> edges = null;
+            int[] outPointers = graph.getOutPointers();
+            int[] outTargets = graph.getOutTargets();
 
             values = new HashMap<String, Double[]>(size);
             indexOfTerm = new HashMap<String, Integer>(size);
 
             // fill with default 0
-            while (iterator.hasNext()) {
-                term = iterator.next();
+            for (int id = 0; id < size; id++) {
                 Double[] row = new Double[size];
                 for (int i = 0; i < row.length; i++) {
                     row[i] = initializeValue;
                 }
-                values.put(term, row);
+                values.put(graph.getTerm(id), row);
             }
             // set index
             for (String key : values.keySet()) {
                 indexOfTerm.put(key, index++);
             }
 
-            index = 0;
             // calculate out going edges
-            iterator = new DepthFirstIterator<>(graph);
-            while (iterator.hasNext()) {
-                term = iterator.next();
-                edges = graph.outgoingEdgesOf(term);
+            for (int id = 0; id < size; id++) {
+                term = graph.getTerm(id);
                 Double[] tempArray = values.get(term);
-                for (DefaultWeightedEdge edge : edges) {
-                    int tempIndex = indexOfTerm.get(graph.getEdgeTarget(edge));
-                    tempArray[tempIndex] = (withNormalize) ? (1 / sumEdgeWeights(edges)) : graph.getEdgeWeight(edge);
-
+                for (int position = outPointers[id]; position < outPointers[id + 1]; position++) {
+                    int tempIndex = indexOfTerm.get(graph.getTerm(outTargets[position]));
+                    tempArray[tempIndex] = (withNormalize) ? (1 / sumEdgeWeights(id)) : graph.getEdgeWeight();
                 }
             }
-            index = 0;
             // set simple adjazenz matrix
             for (String key : values.keySet()) {
                 matrix[indexOfTerm.get(key)] = values.get(key);
@@ -199,23 +193,24 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
         }
 
         /**
-         * this method sum edge weights (DEFAULT_EDGE_WEIGHT is 1.0d)
+         * this method sum out going edge weights (DEFAULT_EDGE_WEIGHT is 1.0d)
          *
-         * @param edges
+         * @param id
          * @return {@code Double}
          */
-        private Double sumEdgeWeights(Set<DefaultWeightedEdge> edges) {
-            Double result = 0.0d;
-            for (DefaultWeightedEdge defaultWeightedEdge : edges) {
-                result += graph.getEdgeWeight(defaultWeightedEdge);
-            }
-            return result;
+        private Double sumEdgeWeights(int id) {
+            return graph.outDegreeOf(id) * graph.getEdgeWeight();
         }
 
     }
 
     public final static String IN = "in";
     public final static String OUT = "out";
+    public final static String SPARSE = "sparse";
+    public final static String DENSE = "dense";
+    public final static String POWER = "power";
+    public final static String GAUSS_SEIDEL = "gauss-seidel";
+    public final static String PUSH = "push";
 
     private static transient final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     private static final double DEFAULT_EDGE_WEIGHT = 1.0d;
@@ -232,16 +227,31 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
         properties.setProperty(ApplicationConfiguration.WORD_WINDOW_SIZE, "5");
         properties.setProperty(ApplicationConfiguration.ITERATION, "10");
         properties.setProperty(ApplicationConfiguration.WITH_VECTOR_NORMALIZATION, "true");
+        properties.setProperty(ApplicationConfiguration.TEXTRANK_ENGINE, TextRankKeywordExtractor.SPARSE);
+        properties.setProperty(ApplicationConfiguration.TEXTRANK_SOLVER, TextRankKeywordExtractor.POWER);
+        properties.setProperty(ApplicationConfiguration.TEXTRANK_TOLERANCE, "0.0");
+        properties.setProperty(ApplicationConfiguration.TEXTRANK_PARALLELISM, "1");
+        properties.setProperty(ApplicationConfiguration.TOP_K_KEYWORDS, "500");
         return properties;
     }
 
-    private Graph<String, DefaultWeightedEdge> graph = null;
+    private CooccurrenceGraph graph = null;
     private TextRankMatrix textRankMatrix = null;
+    private SparseTextRankMatrix sparseTextRankMatrix = null;
     private TextProcessing textProcessing = null;
     private Integer minTermCount = null;
     private Integer wordWindowSize = null;
     private Integer iteration = null;
     private Boolean withVectorNormalization = null;
+    private String engine = null;
+    private String solver = null;
+    private Double tolerance = null;
+    private Integer parallelism = null;
+    private ForkJoinPool forkJoinPool = null;
+    private Integer topK = null;
+    // result of the last score calculation
+    private int usedIterations = 0;
+    private double residual = 0.0d;
 
     /**
      * constructor.
@@ -254,6 +264,7 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
 
         if (validateProperties(properties)) {
             this.textProcessing = textProcessing;
+            this.forkJoinPool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
         }
 
     }
@@ -261,8 +272,9 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
     /**
      * this method build a graph by textrank algorithm terms are Vertices
      *
-     * @param textCorpus {@code List<List<String>> senetences} <br>
+     * @param textCorpus {@code List<int[]> senetences} term ids <br>
      *            ({[term_0], [term_1], [term_2], [term_3]}, {[term_0], [term_1], [term_2], [term_3], [term_N]},{ ... })
+     * @param termDictionary {@link TermDictionary} of the term ids
      * @param wordWindowsSize <br>
      *            example <br>
      *            wordwindowsSize = 4 and sentence_I ([term_0], [term_1], [term_2], [term_3], [term_4], [term_5], [term_N]) <br>
@@ -270,50 +282,21 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
      *            next iteration take [term_1], [term_2], [term_3], [term_4] of sentence_I <br>
      *            last iteration take [term_N-3], [term_N-2], [term_N-1], [term_N] of sentence_I <br>
      *            take in first iteration [term_1], [term_2], [term_3], [term_4]
-     * @return new reference of {@code Graph<String, DefaultEdge>}
+     * @return new reference of {@link CooccurrenceGraph}
      */
-    private Graph<String, DefaultWeightedEdge> buildGraph(List<List<String>> textCorpus, int wordWindowsSize) {
-        Graph<String, DefaultWeightedEdge> result = new SimpleDirectedWeightedGraph<>(DefaultWeightedEdge.class);
-        String[] wordwindow = new String[wordWindowsSize]; // holds vertices
-        String vertex = "";
-        int slidingWordIndex = 0;
-
-        for (List<String> sentence : textCorpus) {
-            for (int wordIndex = 0 + slidingWordIndex; wordIndex <= (sentence.size() - wordWindowsSize); ++wordIndex) {
-
-                // assign wordWindow and add vertices
-                for (int windowIndex = 0; windowIndex < wordWindowsSize; ++windowIndex) {
-                    wordwindow[windowIndex] = sentence.get(wordIndex + windowIndex);
-                    vertex = sentence.get(wordIndex + windowIndex);
-                    result.addVertex(vertex);
-                }
-                // create word pairs and link theme (add edge)
-                for (int windowIndex = 0; windowIndex < wordWindowsSize; ++windowIndex) {
-                    for (int slidingWindowIndex = windowIndex + 1; slidingWindowIndex < wordWindowsSize; ++slidingWindowIndex) {
-                        // avoid graph loops, sometimes heading and sentence start with same term and will be combine,
-                        if (!wordwindow[windowIndex].equals(wordwindow[slidingWindowIndex])) {
-                            DefaultWeightedEdge edge = result.addEdge(wordwindow[windowIndex], wordwindow[slidingWindowIndex]);
-                            if (edge != null) {
-                                result.setEdgeWeight(edge, DEFAULT_EDGE_WEIGHT);
-                            }
-                        }
-                    }
-                }
-                slidingWordIndex++;
-            }
-            slidingWordIndex = 0;
-        }
-        LOGGER.info(MessageFormat.format("graph completed contains {0} nodes.", result.vertexSet().size()));
+    private CooccurrenceGraph buildGraph(List<int[]> textCorpus, TermDictionary termDictionary, int wordWindowsSize) {
+        CooccurrenceGraph result = new CooccurrenceGraph(textCorpus, termDictionary, wordWindowsSize, DEFAULT_EDGE_WEIGHT);
+        LOGGER.info(MessageFormat.format("graph completed contains {0} nodes.", result.countTerms()));
         return result;
     }
 
     /**
-     * this method calculate textrank score
+     * this method calculate textrank score on the dense matrix {@link TextRankMatrix}
      *
      * @param d
      * @return new reference of {@code Map<String, Double>} (term : score)
      */
-    private Map<String, Double> calculateScore(Double d, Integer iteration, Boolean withVectorNormalization) {
+    private Map<String, Double> calculateDenseScore(Double d, Integer iteration, Boolean withVectorNormalization) {
         this.textRankMatrix = new TextRankMatrix(graph, withVectorNormalization);
         Map<String, Double> results = new HashMap<String, Double>(textRankMatrix.getValues().size());
         Double[] columnVector = new Double[textRankMatrix.getValues().size()];
@@ -347,17 +330,119 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
         return results;
     }
 
+    /**
+     * this method calculate textrank score by the configured engine
+     *
+     * @param d
+     * @param iteration
+     * @param withVectorNormalization
+     * @return new reference of {@code Map<String, Double>} (term : score)
+     */
+    private Map<String, Double> calculateScore(Double d, Integer iteration, Boolean withVectorNormalization) {
+        return (engine.equals(TextRankKeywordExtractor.DENSE)) ? calculateDenseScore(d, iteration, withVectorNormalization)
+                : calculateSparseScore(graph, d, iteration, withVectorNormalization);
+    }
+
+    /**
+     * this method calculate textrank score on the sparse matrix {@link SparseTextRankMatrix}, iterations without allocation <br>
+     * stops after {@code iteration} or when the L1 residual is less than {@link TextRankKeywordExtractor#tolerance}
+     * <p>
+     * power: every iteration based on the scores of the last iteration, vector normalization on each iteration <br>
+     * gauss-seidel: updated scores are used immediately (in place), needs less iterations <br>
+     * push: moves residuals along in going edges, only terms with a remaining residual are updated
+     * <p>
+     * power converges to {@code x = c * ((1 - d) + d * M * x)} with {@code c = 1 / |(1 - d) + d * M * x|}. gauss-seidel and push reach
+     * the same fixed point, each iteration solves the linear system scaled by the {@code c} of the current scores and normalize the
+     * scores. gauss-seidel and push need vector normalization, without it the linear system diverges on the not row normalized matrix
+     *
+     * @param graph
+     * @param d
+     * @param iteration
+     * @param withVectorNormalization
+     * @return new reference of {@code Map<String, Double>} (term : score)
+     */
+    Map<String, Double> calculateSparseScore(CooccurrenceGraph graph, double d, int iteration, boolean withVectorNormalization) {
+        this.sparseTextRankMatrix = new SparseTextRankMatrix(graph, withVectorNormalization);
+        sparseTextRankMatrix.setForkJoinPool(forkJoinPool);
+        int size = sparseTextRankMatrix.size();
+        Map<String, Double> results = new HashMap<String, Double>(size);
+        double[] columnVector = new double[size];
+        double[] tempVector = new double[size];
+        double[] swap = null;
+        // c of the fixed point, estimated by gauss-seidel and push
+        double scale = 1.0d;
+        Arrays.fill(columnVector, 1.0d);
+        residual = Double.MAX_VALUE;
+        usedIterations = 0;
+
+        while (usedIterations < iteration && residual >= tolerance) {
+            switch(solver) {
+                case TextRankKeywordExtractor.GAUSS_SEIDEL:
+                    System.arraycopy(columnVector, 0, tempVector, 0, size);
+                    sparseTextRankMatrix.gaussSeidel(columnVector, d, scale);
+                    // length of the sweep is scale / c of the last scores
+                    scale /= sparseTextRankMatrix.length(columnVector);
+                    sparseTextRankMatrix.normVector(columnVector);
+                    residual = sparseTextRankMatrix.distance(columnVector, tempVector);
+                    break;
+                case TextRankKeywordExtractor.PUSH:
+                    scale = sparseTextRankMatrix.scaledResiduals(columnVector, tempVector, d);
+                    residual = sparseTextRankMatrix.push(columnVector, tempVector, scale * d, tolerance / Math.max(size, 1))
+                            / sparseTextRankMatrix.length(columnVector);
+                    sparseTextRankMatrix.normVector(columnVector);
+                    break;
+                case TextRankKeywordExtractor.POWER:
+                default:
+                    sparseTextRankMatrix.multiply(columnVector, tempVector, d);
+                    // avoid number overflow
+                    if (withVectorNormalization) {
+                        sparseTextRankMatrix.normVector(tempVector);
+                    }
+                    residual = sparseTextRankMatrix.distance(columnVector, tempVector);
+                    swap = columnVector;
+                    columnVector = tempVector;
+                    tempVector = swap;
+                    break;
+            }
+            usedIterations++;
+            LOGGER.info(MessageFormat.format("iteration {0} of {1}, residual {2}.", usedIterations, iteration, residual));
+        }
+        for (int index = 0; index < size; index++) {
+            results.put(sparseTextRankMatrix.getTerm(index), columnVector[index]);
+        }
+        LOGGER.info(MessageFormat.format("score calculation completed, {0} terms, {1} edges, {2} iterations, residual {3}.", size,
+                sparseTextRankMatrix.countEdges(), usedIterations, residual));
+        return results;
+    }
+
     @Override
     public void close() throws Exception {
-        graph = null;
-        textRankMatrix.close();
+        if (graph != null) {
+            graph.close();
+            graph = null;
+        }
+        if (textRankMatrix != null) {
+            textRankMatrix.close();
+        }
+        if (sparseTextRankMatrix != null) {
+            sparseTextRankMatrix.close();
+        }
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
     }
 
     @Override
     public Map<String, Double> getKeywords(List<List<String>> textcorpus) throws Exception {
+        return getKeywords(new AnnotatedCorpus(textcorpus, textProcessing));
+    }
+
+    @Override
+    public Map<String, Double> getKeywords(AnnotatedCorpus annotatedCorpus) throws Exception {
 
-        List<List<String>> preparedTextCorpus = prepareText(textcorpus, minTermCount);
-        graph = buildGraph(preparedTextCorpus, wordWindowSize);
+        List<int[]> preparedTextCorpus = prepareText(annotatedCorpus, minTermCount);
+        graph = buildGraph(preparedTextCorpus, annotatedCorpus.getTermDictionary(), wordWindowSize);
         Map<String, Double> scores = calculateScore(D, iteration, withVectorNormalization);
 
         Map<String, Double> sortedMap = scores.entrySet()
@@ -370,6 +455,46 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
         return sortedMap;
     }
 
+    @Override
+    public RankedKeywords getRankedKeywords(AnnotatedCorpus annotatedCorpus) throws Exception {
+        return getRankedKeywords(annotatedCorpus, topK);
+    }
+
+    @Override
+    public RankedKeywords getRankedKeywords(AnnotatedCorpus annotatedCorpus, int k) throws Exception {
+
+        List<int[]> preparedTextCorpus = prepareText(annotatedCorpus, minTermCount);
+        graph = buildGraph(preparedTextCorpus, annotatedCorpus.getTermDictionary(), wordWindowSize);
+        Map<String, Double> scores = calculateScore(D, iteration, withVectorNormalization);
+
+        TermDictionary termDictionary = annotatedCorpus.getTermDictionary();
+        TopKSelector topKSelector = new TopKSelector(k);
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            topKSelector.offer(termDictionary.findId(score.getKey()), score.getKey(), score.getValue());
+        }
+        RankedKeywords results = topKSelector.toRankedKeywords();
+        LOGGER.info(MessageFormat.format("keywords selected {0} of {1}", results.size(), scores.size()));
+        return results;
+    }
+
+    /**
+     * this method return the residual (L1) of the last score calculation (only engine sparse)
+     *
+     * @return {@code double}
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * this method return the count of iterations used by the last score calculation (only engine sparse)
+     *
+     * @return {@code int}
+     */
+    public int getUsedIterations() {
+        return usedIterations;
+    }
+
     /**
      * this method get in- and out-bounds terms of each term in graphF <br>
      * example maxLinks = 3; <br>
@@ -384,25 +509,31 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
         Map<String, Map<String, List<String>>> result = new HashMap<String, Map<String, List<String>>>();
         List<String> inbounds = null;
         List<String> outbounds = null;
+        int[] inPointers = graph.getInPointers();
+        int[] inSources = graph.getInSources();
+        int[] outPointers = graph.getOutPointers();
+        int[] outTargets = graph.getOutTargets();
         for (Map.Entry<String, Double> entry : keywords.entrySet()) {
             // seeking vertices
-            Set<DefaultWeightedEdge> outEdges = graph.outgoingEdgesOf(entry.getKey());
-            Set<DefaultWeightedEdge> inEdges = graph.incomingEdgesOf(entry.getKey());
+            Integer id = graph.getId(entry.getKey());
+            if (id == null) {
+                continue;
+            }
             int count = 0;
             inbounds = new ArrayList<String>();
-            for (DefaultWeightedEdge defaultWeightedEdge : inEdges) {
+            for (int position = inPointers[id]; position < inPointers[id + 1]; position++) {
                 if (count++ > maxLinks) {
                     break;
                 }
-                inbounds.add(graph.getEdgeSource(defaultWeightedEdge));
+                inbounds.add(graph.getTerm(inSources[position]));
             }
             count = 0;
             outbounds = new ArrayList<String>();
-            for (DefaultWeightedEdge defaultWeightedEdge : outEdges) {
+            for (int position = outPointers[id]; position < outPointers[id + 1]; position++) {
                 if (count++ > maxLinks) {
                     break;
                 }
-                outbounds.add(graph.getEdgeTarget(defaultWeightedEdge));
+                outbounds.add(graph.getTerm(outTargets[position]));
 
             }
             Map<String, List<String>> links = new HashMap<String, List<String>>();
@@ -469,19 +600,45 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
 
         StringBuilder stringBuilder = new StringBuilder();
         Formatter formatter = new Formatter(stringBuilder, Locale.GERMAN);
-        Iterator<String> iterator = new DepthFirstIterator<>(graph);
+        int[] inPointers = graph.getInPointers();
+        int[] inSources = graph.getInSources();
+        int[] outPointers = graph.getOutPointers();
+        int[] outTargets = graph.getOutTargets();
 
-        while (iterator.hasNext()) {
-            String term = iterator.next();
+        for (int id = 0; id < graph.countTerms(); id++) {
+            String term = graph.getTerm(id);
             formatter.format("node: %1$15s \n", term);
-            formatter.format("  in: %1s", graph.incomingEdgesOf(term));
-            formatter.format(" out: %1s", graph.outgoingEdgesOf(term));
+            formatter.format("  in: %1s", edgesToString(inSources, inPointers[id], inPointers[id + 1], id, true));
+            formatter.format(" out: %1s", edgesToString(outTargets, outPointers[id], outPointers[id + 1], id, false));
         }
         formatter.close();
         return stringBuilder.toString();
 
     }
 
+    /**
+     * this method format edges like {@code [(source : target), (source : target)]}
+     *
+     * @param linked ids of linked terms
+     * @param from inclusive
+     * @param to exclusive
+     * @param id current term
+     * @param isInbound
+     * @return {@code String}
+     */
+    private String edgesToString(int[] linked, int from, int to, int id, boolean isInbound) {
+        StringBuilder stringBuilder = new StringBuilder("[");
+        for (int position = from; position < to; position++) {
+            if (position > from) {
+                stringBuilder.append(", ");
+            }
+            String source = graph.getTerm((isInbound) ? linked[position] : id);
+            String target = graph.getTerm((isInbound) ? id : linked[position]);
+            stringBuilder.append("(").append(source).append(" : ").append(target).append(")");
+        }
+        return stringBuilder.append("]").toString();
+    }
+
     /**
      * this method checks whether a term is member of both sentences
      *
@@ -502,6 +659,9 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
      */
     public String matrixToString() {
 
+        if (sparseTextRankMatrix != null) {
+            return sparseMatrixToString();
+        }
         if (textRankMatrix == null) {
             return "";
         }
@@ -533,25 +693,67 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
         return stringBuilder.toString();
     }
 
+    /**
+     * this method, return the sparse matrix as a formatted string, same layout as {@link TextRankKeywordExtractor#matrixToString()}
+     *
+     * @return matrix
+     */
+    private String sparseMatrixToString() {
+
+        int length = 13;
+        int size = sparseTextRankMatrix.size();
+        if (size > 15) {
+            return "matrix to large!";
+        }
+        StringBuilder stringBuilder = new StringBuilder();
+        Formatter field = new Formatter(stringBuilder, Locale.GERMAN);
+        field.format(" %1$13s |", "");
+        String temp = "";
+        // heading caption
+        for (int column = 0; column < size; column++) {
+            temp = sparseTextRankMatrix.getTerm(column);
+            temp = (temp.length() > length) ? temp.substring(0, length) : temp;
+            field.format(" %1$13s |", temp);
+        }
+        stringBuilder.append("\n");
+        // rows
+        for (int row = 0; row < size; row++) {
+            temp = sparseTextRankMatrix.getTerm(row);
+            temp = (temp.length() > length) ? temp.substring(0, length) : temp;
+            field.format(" %1$13s |", temp);
+            for (int column = 0; column < size; column++) {
+                field.format(" %1$.11f |", sparseTextRankMatrix.getValue(row, column));
+            }
+            stringBuilder.append("\n");
+        }
+        field.close();
+        return stringBuilder.toString();
+    }
+
     /**
      * this method filter text corpus by pos-tags and remove stopwords
      *
-     * @param sentences
+     * @param annotatedCorpus
      * @param minTermCount
-     * @return
+     * @return new reference of {@code List<int[]>} term ids of each filtered sentence
      */
-    private List<List<String>> prepareText(final List<List<String>> sentences, int minTermCount) {
+    private List<int[]> prepareText(final AnnotatedCorpus annotatedCorpus, int minTermCount) {
 
-        List<List<String>> results = new ArrayList<List<String>>();
-        List<String> filteredSentences = null;
+        List<int[]> results = new ArrayList<int[]>();
 
-        for (List<String> sentence : sentences) {
+        for (int sentenceIndex = 0; sentenceIndex < annotatedCorpus.countSentences(); sentenceIndex++) {
 
-            List<Pair<String, String>> posTagged = textProcessing.getPOSTags(sentence);
-            filteredSentences = textProcessing.filterByPosTags(posTagged);
-            filteredSentences = textProcessing.filterByStopWords(filteredSentences);
-            if (filteredSentences.size() >= minTermCount) {
-                results.add(filteredSentences);
+            int[] termIds = annotatedCorpus.getTermIds(sentenceIndex);
+            int[] filteredSentence = new int[termIds.length];
+            int countFilteredTerms = 0;
+            for (int termIndex = 0; termIndex < termIds.length; termIndex++) {
+                if (textProcessing.isPosTag(annotatedCorpus.getPosTag(sentenceIndex, termIndex))
+                        && !annotatedCorpus.isStopword(sentenceIndex, termIndex)) {
+                    filteredSentence[countFilteredTerms++] = termIds[termIndex];
+                }
+            }
+            if (countFilteredTerms >= minTermCount) {
+                results.add(Arrays.copyOf(filteredSentence, countFilteredTerms));
             }
 
         }
@@ -593,6 +795,41 @@ public class TextRankKeywordExtractor implements KeywordExtractor, AutoCloseable
             throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.WITH_VECTOR_NORMALIZATION");
         }
         withVectorNormalization = Boolean.parseBoolean(property);
+
+        // properties of the sparse engine are optional, property files without them keep working
+        engine = properties.getProperty(ApplicationConfiguration.TEXTRANK_ENGINE, TextRankKeywordExtractor.SPARSE).trim().toLowerCase();
+        if (!engine.equals(TextRankKeywordExtractor.SPARSE) && !engine.equals(TextRankKeywordExtractor.DENSE)) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TEXTRANK_ENGINE only sparse or dense");
+        }
+
+        solver = properties.getProperty(ApplicationConfiguration.TEXTRANK_SOLVER, TextRankKeywordExtractor.POWER).trim().toLowerCase();
+        if (!solver.equals(TextRankKeywordExtractor.POWER) && !solver.equals(TextRankKeywordExtractor.GAUSS_SEIDEL)
+                && !solver.equals(TextRankKeywordExtractor.PUSH)) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TEXTRANK_SOLVER only power, gauss-seidel or push");
+        }
+        if (engine.equals(TextRankKeywordExtractor.DENSE) && !solver.equals(TextRankKeywordExtractor.POWER)) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TEXTRANK_SOLVER gauss-seidel and push only for engine sparse");
+        }
+        // gauss-seidel and push solve the fixed point of the normalized power iteration
+        if (!solver.equals(TextRankKeywordExtractor.POWER) && !withVectorNormalization) {
+            throw new IllegalArgumentException(
+                    "ApplicationConfiguration.TEXTRANK_SOLVER gauss-seidel and push require ApplicationConfiguration.WITH_VECTOR_NORMALIZATION");
+        }
+
+        tolerance = Double.parseDouble(properties.getProperty(ApplicationConfiguration.TEXTRANK_TOLERANCE, "0.0"));
+
+        parallelism = Integer.parseInt(properties.getProperty(ApplicationConfiguration.TEXTRANK_PARALLELISM, "1"));
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TEXTRANK_PARALLELISM have to be 1 or greater");
+        }
+        // gauss-seidel and push update in place, only power runs parallel
+        if (parallelism > 1 && (engine.equals(TextRankKeywordExtractor.DENSE) || !solver.equals(TextRankKeywordExtractor.POWER))) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TEXTRANK_PARALLELISM greater 1 only for engine sparse and solver power");
+        }
+        topK = Integer.parseInt(properties.getProperty(ApplicationConfiguration.TOP_K_KEYWORDS, "500"));
+        if (topK < 1) {
+            throw new IllegalArgumentException("ApplicationConfiguration.TOP_K_KEYWORDS have to be 1 or greater");
+        }
         return true;
     }
 }
@@ -0,0 +1,1024 @@
+package de.citytwin.algorithm.word2vec;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * this class is an approximate nearest neighbour index of word vectors (hierarchical navigable small world graph, cosine similarity on
+ * unit vectors) <br>
+ * the index is built once of a word2vec model and stored next to the indexed model or vector store file ({@code file + ".hnsw"}), on
+ * startup the file is memory mapped. a query visits about {@code ef} nodes instead of all words, a greater {@code ef} gives a better recall
+ * <br>
+ * vectors and neighbour lists are mapped in chunks (no limit of 2 GB), words are found by a hash table of the file like
+ * {@link VectorStore} (no heap copy of the words)
+ * <p>
+ * file layout (little endian) <br>
+ * header {@code magic (int), version (int), count of nodes (int), dimension (int), m (int), ef construction (int), max level (int),
+ * entry point (int), count of upper lists (int), table size (int), model length (long), model last modified (long), offsets of
+ * vectors, layer 0, upper rows, upper layers, table, word offsets and chars (7 x long)} <br>
+ * unit vectors {@code count of nodes x dimension (float)} <br>
+ * layer 0 {@code count of nodes x (count, 2 * m neighbours) (int)} <br>
+ * upper rows {@code count of nodes (int, first upper list of a node, -1 = level 0 only)}, upper layers
+ * {@code count of upper lists x (count, m neighbours) (int)}, one list for each level 1 ... level of a node <br>
+ * table {@code table size (int, -1 = empty)} <br>
+ * word offsets {@code count of nodes + 1 (int)}, words as utf-16 chars
+ * <p>
+ * thread safe (read only)
+ *
+ * @see <a href=https://arxiv.org/abs/1603.09320>Malkov, Yashunin: Efficient and robust approximate nearest neighbor search using
+ *      Hierarchical Navigable Small World graphs</a>
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class HnswIndex {
+
+    /**
+     * This inner class is a min heap of nodes on primitive arrays (key of a node e.g. similarity or negative similarity)
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class NodeHeap {
+
+        private int[] nodes;
+        private float[] keys;
+        private int size = 0;
+
+        /**
+         * constructor.
+         *
+         * @param capacity initial capacity
+         */
+        public NodeHeap(int capacity) {
+            nodes = new int[Math.max(capacity, 2)];
+            keys = new float[nodes.length];
+        }
+
+        /**
+         * this method copies the heap
+         *
+         * @return new reference of {@link NodeHeap}
+         */
+        public NodeHeap copy() {
+            NodeHeap result = new NodeHeap(0);
+            result.nodes = Arrays.copyOf(nodes, nodes.length);
+            result.keys = Arrays.copyOf(keys, keys.length);
+            result.size = size;
+            return result;
+        }
+
+        /**
+         * @return key of the root
+         */
+        public float peekKey() {
+            return keys[0];
+        }
+
+        /**
+         * @return node of the root
+         */
+        public int peekNode() {
+            return nodes[0];
+        }
+
+        /**
+         * this method removes the root
+         *
+         * @return node of the root
+         */
+        public int pop() {
+            int result = nodes[0];
+            size--;
+            nodes[0] = nodes[size];
+            keys[0] = keys[size];
+            int index = 0;
+            int child = 0;
+            while ((child = 2 * index + 1) < size) {
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[index] <= keys[child]) {
+                    break;
+                }
+                swap(index, child);
+                index = child;
+            }
+            return result;
+        }
+
+        /**
+         * this method adds a node
+         *
+         * @param node
+         * @param key
+         */
+        public void push(int node, float key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            nodes[size] = node;
+            keys[size] = key;
+            int index = size++;
+            int parent = 0;
+            while (index > 0 && keys[parent = (index - 1) / 2] > keys[index]) {
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        /**
+         * @return count of nodes
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * this method swaps two entries
+         *
+         * @param left
+         * @param right
+         */
+        private void swap(int left, int right) {
+            int tempNode = nodes[left];
+            float tempKey = keys[left];
+            nodes[left] = nodes[right];
+            keys[left] = keys[right];
+            nodes[right] = tempNode;
+            keys[right] = tempKey;
+        }
+    }
+
+    /**
+     * This inner class provides the search on the layers of a graph, the storage of vectors and neighbours is defined by the subclass
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private abstract static class Graph {
+
+        protected int countNodes = 0;
+        protected int dimension = 0;
+        protected int m = 0;
+        protected int maxLevel = -1;
+        protected int entryPoint = -1;
+
+        /**
+         * @param node
+         * @param level
+         * @return count of neighbours of a node on a level
+         */
+        protected abstract int countNeighbours(int node, int level);
+
+        /**
+         * @param query unit vector
+         * @param node
+         * @return cosine similarity of the query and the node
+         */
+        protected abstract float dot(float[] query, int node);
+
+        /**
+         * @param node
+         * @param level
+         * @param index
+         * @return neighbour of a node on a level
+         */
+        protected abstract int getNeighbour(int node, int level, int index);
+
+        /**
+         * @return visited marks of the current thread, size >= count of nodes
+         */
+        protected abstract int[] getVisits();
+
+        /**
+         * @return next visit mark of the current thread (marks of older searches are ignored)
+         */
+        protected abstract int nextVisit();
+
+        /**
+         * this method moves greedy to the most similar node on a level (ef = 1)
+         *
+         * @param query
+         * @param node start node
+         * @param level
+         * @return most similar node found
+         */
+        protected int searchGreedy(float[] query, int node, int level) {
+            float similarity = dot(query, node);
+            boolean isChanged = true;
+            while (isChanged) {
+                isChanged = false;
+                int count = countNeighbours(node, level);
+                for (int index = 0; index < count; index++) {
+                    int neighbour = getNeighbour(node, level, index);
+                    float temp = dot(query, neighbour);
+                    if (temp > similarity) {
+                        similarity = temp;
+                        node = neighbour;
+                        isChanged = true;
+                    }
+                }
+            }
+            return node;
+        }
+
+        /**
+         * this method search the ef most similar nodes on a level
+         *
+         * @param query
+         * @param entries start nodes, heap of similarities
+         * @param ef
+         * @param level
+         * @return new reference of {@link NodeHeap} (min heap of similarities, root is the least similar node)
+         */
+        protected NodeHeap searchLayer(float[] query, NodeHeap entries, int ef, int level) {
+            int[] visits = getVisits();
+            int visit = nextVisit();
+            // candidates by negative similarity, root is the most similar node
+            NodeHeap candidates = new NodeHeap(ef * 2);
+            NodeHeap results = new NodeHeap(ef + 1);
+            for (int index = 0; index < entries.size; index++) {
+                int node = entries.nodes[index];
+                visits[node] = visit;
+                candidates.push(node, -entries.keys[index]);
+                results.push(node, entries.keys[index]);
+            }
+            while (results.size() > ef) {
+                results.pop();
+            }
+            while (candidates.size() > 0) {
+                float similarity = -candidates.peekKey();
+                if (results.size() >= ef && similarity < results.peekKey()) {
+                    break;
+                }
+                int node = candidates.pop();
+                int count = countNeighbours(node, level);
+                for (int index = 0; index < count; index++) {
+                    int neighbour = getNeighbour(node, level, index);
+                    if (visits[neighbour] == visit) {
+                        continue;
+                    }
+                    visits[neighbour] = visit;
+                    float temp = dot(query, neighbour);
+                    if (results.size() < ef || temp > results.peekKey()) {
+                        candidates.push(neighbour, -temp);
+                        results.push(neighbour, temp);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+            return results;
+        }
+
+        /**
+         * this method search the most similar nodes of a query
+         *
+         * @param query unit vector
+         * @param count
+         * @param ef size of the dynamic candidate list (>= count)
+         * @return new reference of {@link NodeHeap} (min heap of similarities)
+         */
+        protected NodeHeap search(float[] query, int count, int ef) {
+            NodeHeap results = new NodeHeap(1);
+            if (entryPoint < 0) {
+                return results;
+            }
+            int node = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                node = searchGreedy(query, node, level);
+            }
+            results.push(node, dot(query, node));
+            results = searchLayer(query, results, Math.max(ef, count), 0);
+            while (results.size() > count) {
+                results.pop();
+            }
+            return results;
+        }
+    }
+
+    /**
+     * This inner class builds a graph in memory (insertion by the neighbour selection heuristic) and writes it
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class GraphBuilder extends Graph {
+
+        private final float[][] vectors;
+        private final int efConstruction;
+        private final double levelFactor;
+        private final Random random = new Random(42);
+        private final int[] levels;
+        // per node (count, neighbours)
+        private final int[][] layer0;
+        // per node and level - 1 (count, neighbours)
+        private final int[][][] uppers;
+        private final int[] visits;
+        private int visit = 0;
+
+        /**
+         * constructor.
+         *
+         * @param vectors unit vectors
+         * @param m
+         * @param efConstruction
+         */
+        public GraphBuilder(float[][] vectors, int m, int efConstruction) {
+            this.vectors = vectors;
+            this.m = m;
+            this.efConstruction = efConstruction;
+            this.levelFactor = 1.0d / Math.log(m);
+            this.countNodes = vectors.length;
+            this.dimension = (vectors.length > 0) ? vectors[0].length : 0;
+            this.levels = new int[countNodes];
+            this.layer0 = new int[countNodes][];
+            this.uppers = new int[countNodes][][];
+            this.visits = new int[countNodes];
+        }
+
+        /**
+         * this method inserts a node
+         *
+         * @param node
+         */
+        public void add(int node) {
+            int level = (int)(-Math.log(1.0d - random.nextDouble()) * levelFactor);
+            levels[node] = level;
+            layer0[node] = new int[2 * m + 1];
+            uppers[node] = new int[level][];
+            for (int index = 0; index < level; index++) {
+                uppers[node][index] = new int[m + 1];
+            }
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+            float[] query = vectors[node];
+            int current = entryPoint;
+            for (int tempLevel = maxLevel; tempLevel > level; tempLevel--) {
+                current = searchGreedy(query, current, tempLevel);
+            }
+            NodeHeap entries = new NodeHeap(1);
+            entries.push(current, dot(query, current));
+            for (int tempLevel = Math.min(level, maxLevel); tempLevel >= 0; tempLevel--) {
+                NodeHeap results = searchLayer(query, entries, efConstruction, tempLevel);
+                int[] neighbours = selectNeighbours(node, results, m);
+                int[] list = getList(node, tempLevel);
+                list[0] = neighbours.length;
+                System.arraycopy(neighbours, 0, list, 1, neighbours.length);
+                for (int neighbour : neighbours) {
+                    connect(neighbour, node, tempLevel);
+                }
+                entries = results;
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        }
+
+        /**
+         * this method adds a link of a node, the list is shrinked by the heuristic on overflow
+         *
+         * @param node
+         * @param neighbour
+         * @param level
+         */
+        private void connect(int node, int neighbour, int level) {
+            int[] list = getList(node, level);
+            int maxCount = list.length - 1;
+            if (list[0] < maxCount) {
+                list[++list[0]] = neighbour;
+                return;
+            }
+            NodeHeap candidates = new NodeHeap(maxCount + 1);
+            for (int index = 1; index <= list[0]; index++) {
+                candidates.push(list[index], dot(vectors[node], list[index]));
+            }
+            candidates.push(neighbour, dot(vectors[node], neighbour));
+            int[] neighbours = selectNeighbours(node, candidates, maxCount);
+            list[0] = neighbours.length;
+            System.arraycopy(neighbours, 0, list, 1, neighbours.length);
+        }
+
+        @Override
+        protected int countNeighbours(int node, int level) {
+            return getList(node, level)[0];
+        }
+
+        @Override
+        protected float dot(float[] query, int node) {
+            float[] vector = vectors[node];
+            float result = 0.0f;
+            for (int index = 0; index < vector.length; index++) {
+                result += query[index] * vector[index];
+            }
+            return result;
+        }
+
+        /**
+         * @param node
+         * @param level
+         * @return neighbour list of a node (count, neighbours)
+         */
+        private int[] getList(int node, int level) {
+            return (level == 0) ? layer0[node] : uppers[node][level - 1];
+        }
+
+        @Override
+        protected int getNeighbour(int node, int level, int index) {
+            return getList(node, level)[index + 1];
+        }
+
+        @Override
+        protected int[] getVisits() {
+            return visits;
+        }
+
+        @Override
+        protected int nextVisit() {
+            return ++visit;
+        }
+
+        /**
+         * this method select neighbours by the heuristic: a candidate is kept, if it is more similar to the node than to all kept
+         * candidates (spread directions), free places are filled by the most similar pruned candidates
+         *
+         * @param node
+         * @param candidates min heap of similarities to the node, kept
+         * @param count maximum count of neighbours
+         * @return new reference of {@code int[]}
+         */
+        private int[] selectNeighbours(int node, NodeHeap candidates, int count) {
+            // most similar first
+            candidates = candidates.copy();
+            int size = candidates.size();
+            int[] sorted = new int[size];
+            float[] similarities = new float[size];
+            for (int index = size - 1; index >= 0; index--) {
+                similarities[index] = candidates.peekKey();
+                sorted[index] = candidates.pop();
+            }
+            int[] results = new int[Math.min(count, size)];
+            boolean[] isKept = new boolean[size];
+            int countResults = 0;
+            for (int index = 0; index < size && countResults < results.length; index++) {
+                if (sorted[index] == node) {
+                    isKept[index] = true;
+                    continue;
+                }
+                boolean isDiverse = true;
+                for (int kept = 0; kept < countResults && isDiverse; kept++) {
+                    isDiverse = dot(vectors[sorted[index]], results[kept]) < similarities[index];
+                }
+                if (isDiverse) {
+                    results[countResults++] = sorted[index];
+                    isKept[index] = true;
+                }
+            }
+            for (int index = 0; index < size && countResults < results.length; index++) {
+                if (!isKept[index]) {
+                    results[countResults++] = sorted[index];
+                }
+            }
+            return (countResults == results.length) ? results : Arrays.copyOf(results, countResults);
+        }
+
+        /**
+         * this method write the graph, the vectors and the words (temp file and atomic move), sections are written through a small
+         * buffer, so the size of the file is not limited by a single buffer
+         *
+         * @param words
+         * @param modelLength
+         * @param modelLastModified
+         * @param path
+         * @throws IOException
+         */
+        public void write(List<String> words, long modelLength, long modelLastModified, Path path) throws IOException {
+            int countUpperLists = 0;
+            long countChars = 0;
+            for (int node = 0; node < countNodes; node++) {
+                countUpperLists += levels[node];
+                countChars += words.get(node).length();
+            }
+            int tableSize = Integer.highestOneBit(Math.max(countNodes, 1) * 2 - 1) << 1;
+            if (countChars > Integer.MAX_VALUE || 4L * tableSize > Integer.MAX_VALUE) {
+                throw new IOException("too many words: " + countNodes);
+            }
+            long vectorsOffset = HEADER_SIZE;
+            long layer0Offset = vectorsOffset + 4L * countNodes * dimension;
+            long upperRowsOffset = layer0Offset + 4L * countNodes * (2 * m + 1);
+            long uppersOffset = upperRowsOffset + 4L * countNodes;
+            long tableOffset = uppersOffset + 4L * countUpperLists * (m + 1);
+            long wordOffsetsOffset = tableOffset + 4L * tableSize;
+            long charsOffset = wordOffsetsOffset + 4L * (countNodes + 1);
+
+            int[] table = new int[tableSize];
+            Arrays.fill(table, EMPTY);
+            for (int node = 0; node < countNodes; node++) {
+                int slot = VectorStore.slot(words.get(node), tableSize - 1);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & (tableSize - 1);
+                }
+                table[slot] = node;
+            }
+            Path tempPath = Paths.get(path.toString() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(countNodes).putInt(dimension).putInt(m).putInt(efConstruction);
+                buffer.putInt(maxLevel).putInt(entryPoint).putInt(countUpperLists).putInt(tableSize).putLong(modelLength)
+                        .putLong(modelLastModified);
+                buffer.putLong(vectorsOffset).putLong(layer0Offset).putLong(upperRowsOffset).putLong(uppersOffset).putLong(tableOffset)
+                        .putLong(wordOffsetsOffset).putLong(charsOffset);
+                for (float[] vector : vectors) {
+                    for (float value : vector) {
+                        putFloat(channel, buffer, value);
+                    }
+                }
+                for (int[] list : layer0) {
+                    for (int value : list) {
+                        putInt(channel, buffer, value);
+                    }
+                }
+                int row = 0;
+                for (int node = 0; node < countNodes; node++) {
+                    putInt(channel, buffer, (levels[node] > 0) ? row : EMPTY);
+                    row += levels[node];
+                }
+                for (int[][] lists : uppers) {
+                    for (int[] list : lists) {
+                        for (int value : list) {
+                            putInt(channel, buffer, value);
+                        }
+                    }
+                }
+                for (int value : table) {
+                    putInt(channel, buffer, value);
+                }
+                int offset = 0;
+                for (String word : words) {
+                    putInt(channel, buffer, offset);
+                    offset += word.length();
+                }
+                putInt(channel, buffer, offset);
+                for (String word : words) {
+                    for (int index = 0; index < word.length(); index++) {
+                        if (buffer.remaining() < 2) {
+                            flush(channel, buffer);
+                        }
+                        buffer.putChar(word.charAt(index));
+                    }
+                }
+                flush(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * This inner class maps a section of rows of the same size in chunks of at most {@link HnswIndex#CHUNK_SIZE} bytes, a row is never
+     * split over two chunks (absolute reads only)
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class MappedRows {
+
+        private final ByteBuffer[] chunks;
+        private final int rowBytes;
+        private final int rowsPerChunk;
+
+        /**
+         * constructor.
+         *
+         * @param channel index file
+         * @param position first byte of the section
+         * @param countRows
+         * @param rowBytes bytes of a row
+         * @throws IOException
+         */
+        public MappedRows(FileChannel channel, long position, int countRows, int rowBytes) throws IOException {
+            this.rowBytes = rowBytes;
+            this.rowsPerChunk = Math.max(1, CHUNK_SIZE / Math.max(rowBytes, 1));
+            chunks = new ByteBuffer[(countRows + rowsPerChunk - 1) / rowsPerChunk];
+            for (int index = 0; index < chunks.length; index++) {
+                long rows = Math.min(rowsPerChunk, countRows - (long)index * rowsPerChunk);
+                chunks[index] = map(channel, position + (long)index * rowsPerChunk * rowBytes, rows * rowBytes);
+            }
+        }
+
+        /**
+         * @param row
+         * @return chunk of a row
+         */
+        public ByteBuffer getChunk(int row) {
+            return chunks[row / rowsPerChunk];
+        }
+
+        /**
+         * @param row
+         * @param index of the int in the row
+         * @return int of a row
+         */
+        public int getInt(int row, int index) {
+            return chunks[row / rowsPerChunk].getInt((row % rowsPerChunk) * rowBytes + 4 * index);
+        }
+
+        /**
+         * @param row
+         * @return first byte of a row in its chunk
+         */
+        public int getOffset(int row) {
+            return (row % rowsPerChunk) * rowBytes;
+        }
+    }
+
+    /**
+     * This inner class reads a graph of a memory mapped index file (absolute reads only), vectors and neighbour lists are mapped in
+     * chunks
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class MappedGraph extends Graph {
+
+        private final MappedRows vectors;
+        private final MappedRows layer0;
+        private final ByteBuffer upperRows;
+        private final MappedRows uppers;
+        private final ThreadLocal<int[]> visits;
+        private final ThreadLocal<int[]> visitCounters = ThreadLocal.withInitial(() -> new int[1]);
+
+        /**
+         * constructor.
+         *
+         * @param channel index file
+         * @param header mapped header, checked
+         * @throws IOException
+         */
+        public MappedGraph(FileChannel channel, ByteBuffer header) throws IOException {
+            countNodes = header.getInt(8);
+            dimension = header.getInt(12);
+            m = header.getInt(16);
+            maxLevel = header.getInt(24);
+            entryPoint = header.getInt(28);
+            vectors = new MappedRows(channel, header.getLong(56), countNodes, 4 * dimension);
+            layer0 = new MappedRows(channel, header.getLong(64), countNodes, 4 * (2 * m + 1));
+            upperRows = map(channel, header.getLong(72), 4L * countNodes);
+            uppers = new MappedRows(channel, header.getLong(80), header.getInt(32), 4 * (m + 1));
+            final int size = countNodes;
+            visits = ThreadLocal.withInitial(() -> new int[size]);
+        }
+
+        @Override
+        protected int countNeighbours(int node, int level) {
+            return (level == 0) ? layer0.getInt(node, 0) : uppers.getInt(upperRows.getInt(4 * node) + level - 1, 0);
+        }
+
+        @Override
+        protected float dot(float[] query, int node) {
+            ByteBuffer chunk = vectors.getChunk(node);
+            int offset = vectors.getOffset(node);
+            float result = 0.0f;
+            for (int index = 0; index < dimension; index++) {
+                result += query[index] * chunk.getFloat(offset + 4 * index);
+            }
+            return result;
+        }
+
+        @Override
+        protected int getNeighbour(int node, int level, int index) {
+            return (level == 0) ? layer0.getInt(node, index + 1) : uppers.getInt(upperRows.getInt(4 * node) + level - 1, index + 1);
+        }
+
+        /**
+         * this method copies the vector of a node
+         *
+         * @param node
+         * @return new reference of {@code float[]}
+         */
+        public float[] getVector(int node) {
+            ByteBuffer chunk = vectors.getChunk(node);
+            int offset = vectors.getOffset(node);
+            float[] result = new float[dimension];
+            for (int index = 0; index < dimension; index++) {
+                result[index] = chunk.getFloat(offset + 4 * index);
+            }
+            return result;
+        }
+
+        @Override
+        protected int[] getVisits() {
+            return visits.get();
+        }
+
+        @Override
+        protected int nextVisit() {
+            int[] counter = visitCounters.get();
+            if (++counter[0] == Integer.MAX_VALUE) {
+                Arrays.fill(visits.get(), 0);
+                counter[0] = 1;
+            }
+            return counter[0];
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int MAGIC = 0x43544857;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 112;
+    // maximum bytes of a single mapping of vectors or neighbour lists
+    private static final int CHUNK_SIZE = 1 << 30;
+    private static final int EMPTY = -1;
+
+    /**
+     * this method builds an index and writes it
+     *
+     * @param words
+     * @param vectors vectors of the words (normalized while building)
+     * @param m maximum count of neighbours of a node on a level (2 * m on level 0)
+     * @param efConstruction size of the dynamic candidate list while building
+     * @param modelLength length of the model file, to detect a changed model
+     * @param modelLastModified last modified of the model file, to detect a changed model
+     * @param path2IndexFile
+     * @throws IOException
+     */
+    public static void build(List<String> words, float[][] vectors, int m, int efConstruction, long modelLength, long modelLastModified,
+            String path2IndexFile) throws IOException {
+        long start = System.currentTimeMillis();
+        for (float[] vector : vectors) {
+            normalize(vector);
+        }
+        GraphBuilder graphBuilder = new GraphBuilder(vectors, m, efConstruction);
+        for (int node = 0; node < vectors.length; node++) {
+            graphBuilder.add(node);
+            if ((node + 1) % 100000 == 0) {
+                LOGGER.info(MessageFormat.format("hnsw index {0} of {1} nodes", node + 1, vectors.length));
+            }
+        }
+        graphBuilder.write(words, modelLength, modelLastModified, Paths.get(path2IndexFile));
+        LOGGER.info(MessageFormat.format("hnsw index completed: {0} nodes, {1} ms", vectors.length, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * this method writes the content of a buffer and clears it
+     *
+     * @param channel
+     * @param buffer
+     * @throws IOException
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * this method check whether an index file exists and belongs to the model and the parameters
+     *
+     * @param path2IndexFile
+     * @param m
+     * @param efConstruction
+     * @param modelLength
+     * @param modelLastModified
+     * @return {@code true} if the index can be opened
+     * @throws IOException
+     */
+    public static boolean isCurrent(String path2IndexFile, int m, int efConstruction, long modelLength, long modelLastModified)
+            throws IOException {
+        Path path = Paths.get(path2IndexFile);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read header
+            }
+        }
+        return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getInt(16) == m
+                && header.getInt(20) == efConstruction && header.getLong(40) == modelLength && header.getLong(48) == modelLastModified;
+    }
+
+    /**
+     * this method maps a part of a file
+     *
+     * @param channel
+     * @param position
+     * @param size less than 2 GB
+     * @return {@link ByteBuffer} little endian
+     * @throws IOException
+     */
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("section of hnsw index exceeds 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * this method normalize a vector (l2), a zero vector is kept
+     *
+     * @param vector
+     */
+    private static void normalize(float[] vector) {
+        double norm = 0.0d;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0.0d) {
+            return;
+        }
+        for (int index = 0; index < vector.length; index++) {
+            vector[index] = (float)(vector[index] / norm);
+        }
+    }
+
+    /**
+     * this method maps an index file
+     *
+     * @param path2IndexFile
+     * @return new reference of {@link HnswIndex}
+     * @throws IOException
+     */
+    public static HnswIndex open(String path2IndexFile) throws IOException {
+        return new HnswIndex(Paths.get(path2IndexFile));
+    }
+
+    /**
+     * this method puts a float into a buffer, a full buffer is written before
+     *
+     * @param channel
+     * @param buffer
+     * @param value
+     * @throws IOException
+     */
+    private static void putFloat(FileChannel channel, ByteBuffer buffer, float value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        buffer.putFloat(value);
+    }
+
+    /**
+     * this method puts an int into a buffer, a full buffer is written before
+     *
+     * @param channel
+     * @param buffer
+     * @param value
+     * @throws IOException
+     */
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private final MappedGraph graph;
+    private final ByteBuffer table;
+    private final ByteBuffer wordOffsets;
+    private final ByteBuffer chars;
+    private final int tableMask;
+
+    /**
+     * constructor.
+     *
+     * @param path index file
+     * @throws IOException
+     */
+    private HnswIndex(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size()))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.capacity() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("no hnsw index (version " + VERSION + "): " + path);
+            }
+            graph = new MappedGraph(channel, header);
+            int tableSize = header.getInt(36);
+            tableMask = tableSize - 1;
+            table = map(channel, header.getLong(88), 4L * tableSize);
+            wordOffsets = map(channel, header.getLong(96), 4L * (graph.countNodes + 1));
+            chars = map(channel, header.getLong(104), channel.size() - header.getLong(104));
+        }
+    }
+
+    /**
+     * @return count of words
+     */
+    public int countWords() {
+        return graph.countNodes;
+    }
+
+    /**
+     * this method return the word of a node
+     *
+     * @param node
+     * @return new reference of {@code String}
+     */
+    private String getWord(int node) {
+        int offset = wordOffsets.getInt(4 * node);
+        int length = wordOffsets.getInt(4 * (node + 1)) - offset;
+        char[] temps = new char[length];
+        for (int index = 0; index < length; index++) {
+            temps[index] = chars.getChar(2 * (offset + index));
+        }
+        return new String(temps);
+    }
+
+    /**
+     * this method return the node of a word by the hash table of the file
+     *
+     * @param word
+     * @return node or -1 if unknown
+     */
+    private int indexOf(String word) {
+        int slot = VectorStore.slot(word, tableMask);
+        int node = 0;
+        while ((node = table.getInt(4 * slot)) != EMPTY) {
+            if (isWord(node, word)) {
+                return node;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * this method compares the word of a node with a word, no allocation
+     *
+     * @param node
+     * @param word
+     * @return {@code true} if same chars
+     */
+    private boolean isWord(int node, String word) {
+        int offset = wordOffsets.getInt(4 * node);
+        if (wordOffsets.getInt(4 * (node + 1)) - offset != word.length()) {
+            return false;
+        }
+        for (int index = 0; index < word.length(); index++) {
+            if (chars.getChar(2 * (offset + index)) != word.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * this method return the nearest words of a query
+     *
+     * @param query unit vector
+     * @param count
+     * @param ef size of the dynamic candidate list (recall), at least count
+     * @return new reference of {@code List<String>}, most similar first
+     */
+    public List<String> nearest(float[] query, int count, int ef) {
+        NodeHeap results = graph.search(query, count, ef);
+        String[] temps = new String[results.size()];
+        for (int index = temps.length - 1; index >= 0; index--) {
+            temps[index] = getWord(results.pop());
+        }
+        return new ArrayList<String>(Arrays.asList(temps));
+    }
+
+    /**
+     * this method return the nearest words of a word, like {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(String, int)}
+     * the word itself is not part of the result
+     *
+     * @param word
+     * @param count
+     * @param ef size of the dynamic candidate list (recall)
+     * @return new reference of {@code List<String>}, most similar first, empty if the word is unknown
+     */
+    public List<String> wordsNearest(String word, int count, int ef) {
+        int node = indexOf(word);
+        if (node == EMPTY) {
+            return new ArrayList<String>();
+        }
+        List<String> results = nearest(graph.getVector(node), count + 1, ef);
+        if (!results.remove(word) && results.size() > count) {
+            results.remove(results.size() - 1);
+        }
+        return results;
+    }
+
+}
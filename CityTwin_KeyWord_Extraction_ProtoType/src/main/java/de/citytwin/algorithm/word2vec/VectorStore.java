@@ -0,0 +1,672 @@
+package de.citytwin.algorithm.word2vec;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * this class is a read only store of word vectors, memory mapped on open (no parsing, no heap copy of the vectors). all processes
+ * opening the same file share the pages of the file system cache <br>
+ * vectors are stored as unit vectors (float32, float16 or int8 with a scale per vector), so a cosine similarity is a dot product.
+ * words are found by a hash table of the file
+ * <p>
+ * file layout (little endian) <br>
+ * header {@code magic (int), version (int), count of words (int), dimension (int), quantization (int), table size (int), reserved
+ * (2 x int), offsets of vectors, scales, table, word offsets and chars (5 x long), length and last modified of the source model file
+ * (2 x long)} <br>
+ * vectors {@code count of words x dimension (float32, float16 or int8)} <br>
+ * scales {@code count of words (float)} <br>
+ * table {@code table size (int, -1 = empty)} <br>
+ * word offsets {@code count of words + 1 (int)}, words as utf-16 chars
+ * <p>
+ * thread safe (read only)
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class VectorStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int MAGIC = 0x43545653;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 88;
+    // maximum bytes of a single mapping of vectors
+    private static final int CHUNK_SIZE = 1 << 30;
+    private static final int EMPTY = -1;
+    /** 4 bytes per value */
+    public static final int FLOAT32 = 0;
+    /** 2 bytes per value (ieee 754 half precision) */
+    public static final int FLOAT16 = 1;
+    /** 1 byte per value, value = byte * scale of the vector */
+    public static final int INT8 = 2;
+    // float of each half precision bit pattern
+    private static float[] halfs = null;
+
+    /**
+     * this method return the bytes of a value
+     *
+     * @param quantization
+     * @return {@code int}
+     */
+    private static int bytesOf(int quantization) {
+        return (quantization == FLOAT32) ? 4 : (quantization == FLOAT16) ? 2 : 1;
+    }
+
+    /**
+     * this method converts a float to half precision (round to nearest even)
+     *
+     * @param value
+     * @return bit pattern
+     */
+    private static short floatToHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xff) - 127 + 15;
+        int mantissa = bits & 0x7fffff;
+        if (exponent >= 31) {
+            // overflow (no nan in unit vectors)
+            return (short)(sign | 0x7c00);
+        }
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return (short)sign;
+            }
+            // subnormal
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >>> shift;
+            int rest = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (rest > halfway || (rest == halfway && (half & 1) == 1)) {
+                half++;
+            }
+            return (short)(sign | half);
+        }
+        int half = (exponent << 10) | (mantissa >>> 13);
+        int rest = mantissa & 0x1fff;
+        if (rest > 0x1000 || (rest == 0x1000 && (half & 1) == 1)) {
+            // carry into the exponent is correct rounding
+            half++;
+        }
+        return (short)(sign | half);
+    }
+
+    /**
+     * this method return the floats of all half precision bit patterns, calculated once
+     *
+     * @return {@code float[]} of size 65536
+     */
+    private static synchronized float[] getHalfs() {
+        if (halfs == null) {
+            float[] temps = new float[1 << 16];
+            for (int bits = 0; bits < temps.length; bits++) {
+                int sign = (bits & 0x8000) << 16;
+                int exponent = (bits >>> 10) & 0x1f;
+                int mantissa = bits & 0x3ff;
+                if (exponent == 0) {
+                    // zero or subnormal
+                    temps[bits] = ((sign != 0) ? -1.0f : 1.0f) * mantissa * (float)Math.pow(2, -24);
+                } else if (exponent == 31) {
+                    temps[bits] = Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+                } else {
+                    temps[bits] = Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+                }
+            }
+            halfs = temps;
+        }
+        return halfs;
+    }
+
+    /**
+     * this method calculate a slot of the table (murmur3 finalizer of {@link String#hashCode()}), also used by {@link HnswIndex}
+     *
+     * @param word
+     * @param mask
+     * @return {@code int}
+     */
+    static int slot(String word, int mask) {
+        int hash = word.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash & mask;
+    }
+
+    /**
+     * this method check whether a store file exists and was converted of the current model file
+     *
+     * @param path2VectorStoreFile
+     * @param modelLength
+     * @param modelLastModified
+     * @return {@code true} if the store can be used instead of the model
+     * @throws IOException
+     */
+    public static boolean isCurrent(String path2VectorStoreFile, long modelLength, long modelLastModified) throws IOException {
+        Path path = Paths.get(path2VectorStoreFile);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read header
+            }
+        }
+        return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getLong(72) == modelLength
+                && header.getLong(80) == modelLastModified;
+    }
+
+    /**
+     * this method maps a store file
+     *
+     * @param path2VectorStoreFile
+     * @return new reference of {@link VectorStore}
+     * @throws IOException
+     */
+    public static VectorStore open(String path2VectorStoreFile) throws IOException {
+        return new VectorStore(Paths.get(path2VectorStoreFile));
+    }
+
+    /**
+     * this method return a quantization of its name
+     *
+     * @param name float32, float16 or int8
+     * @return {@link VectorStore#FLOAT32}, {@link VectorStore#FLOAT16} or {@link VectorStore#INT8}
+     * @throws IllegalArgumentException
+     */
+    public static int quantizationOf(String name) throws IllegalArgumentException {
+        switch (name) {
+            case "float32":
+                return FLOAT32;
+            case "float16":
+                return FLOAT16;
+            case "int8":
+                return INT8;
+            default:
+                throw new IllegalArgumentException("unknown quantization: " + name);
+        }
+    }
+
+    /**
+     * this method writes a store file (temp file and atomic move)
+     *
+     * @param words
+     * @param vectors vector of a word index (any length, normalized while writing)
+     * @param dimension
+     * @param quantization {@link VectorStore#FLOAT32}, {@link VectorStore#FLOAT16} or {@link VectorStore#INT8}
+     * @param modelLength length of the source model file, see {@link VectorStore#isCurrent(String, long, long)}
+     * @param modelLastModified last modified of the source model file
+     * @param path2VectorStoreFile
+     * @throws IOException
+     */
+    public static void write(List<String> words, IntFunction<float[]> vectors, int dimension, int quantization, long modelLength,
+            long modelLastModified, String path2VectorStoreFile) throws IOException {
+        long start = System.currentTimeMillis();
+        int countWords = words.size();
+        int tableSize = Integer.highestOneBit(Math.max(countWords, 1) * 2 - 1) << 1;
+        long countChars = 0;
+        for (String word : words) {
+            countChars += word.length();
+        }
+        if (countChars > Integer.MAX_VALUE || 4L * tableSize > Integer.MAX_VALUE) {
+            throw new IOException("too many words: " + countWords);
+        }
+        long vectorsOffset = HEADER_SIZE;
+        long scalesOffset = vectorsOffset + (long)countWords * dimension * bytesOf(quantization);
+        long tableOffset = scalesOffset + 4L * countWords;
+        long wordOffsetsOffset = tableOffset + 4L * tableSize;
+        long charsOffset = wordOffsetsOffset + 4L * (countWords + 1);
+
+        float[] scales = new float[countWords];
+        int[] table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        Path path = Paths.get(path2VectorStoreFile);
+        Path tempPath = Paths.get(path2VectorStoreFile + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(countWords).putInt(dimension).putInt(quantization).putInt(tableSize);
+            buffer.putInt(0).putInt(0);
+            buffer.putLong(vectorsOffset).putLong(scalesOffset).putLong(tableOffset).putLong(wordOffsetsOffset)
+                    .putLong(charsOffset);
+            buffer.putLong(modelLength).putLong(modelLastModified);
+            for (int index = 0; index < countWords; index++) {
+                float[] vector = vectors.apply(index);
+                double norm = 0.0d;
+                float maxAbs = 0.0f;
+                for (int temp = 0; temp < dimension; temp++) {
+                    norm += vector[temp] * vector[temp];
+                }
+                norm = Math.sqrt(norm);
+                for (int temp = 0; temp < dimension; temp++) {
+                    maxAbs = Math.max(maxAbs, Math.abs((norm > 0.0d) ? (float)(vector[temp] / norm) : 0.0f));
+                }
+                scales[index] = (quantization == INT8) ? maxAbs / 127.0f : 1.0f;
+                for (int temp = 0; temp < dimension; temp++) {
+                    float value = (norm > 0.0d) ? (float)(vector[temp] / norm) : 0.0f;
+                    if (buffer.remaining() < 4) {
+                        flush(channel, buffer);
+                    }
+                    if (quantization == FLOAT32) {
+                        buffer.putFloat(value);
+                    } else if (quantization == FLOAT16) {
+                        buffer.putShort(floatToHalf(value));
+                    } else {
+                        buffer.put((byte)((maxAbs > 0.0f) ? Math.round(value / scales[index]) : 0));
+                    }
+                }
+                String word = words.get(index);
+                int slot = slot(word, tableSize - 1);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & (tableSize - 1);
+                }
+                table[slot] = index;
+            }
+            for (float value : scales) {
+                if (buffer.remaining() < 4) {
+                    flush(channel, buffer);
+                }
+                buffer.putFloat(value);
+            }
+            int offset = 0;
+            for (int index = 0; index <= countWords + tableSize; index++) {
+                if (buffer.remaining() < 4) {
+                    flush(channel, buffer);
+                }
+                if (index < tableSize) {
+                    buffer.putInt(table[index]);
+                } else {
+                    buffer.putInt(offset);
+                    offset += (index - tableSize < countWords) ? words.get(index - tableSize).length() : 0;
+                }
+            }
+            for (String word : words) {
+                for (int index = 0; index < word.length(); index++) {
+                    if (buffer.remaining() < 2) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putChar(word.charAt(index));
+                }
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info(MessageFormat.format("vector store completed: {0}, {1} words, {2} ms", path2VectorStoreFile, countWords,
+                System.currentTimeMillis() - start));
+    }
+
+    /**
+     * this method writes the content of a buffer and clears it
+     *
+     * @param channel
+     * @param buffer
+     * @throws IOException
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private final int countWords;
+    private final int dimension;
+    private final int quantization;
+    private final int rowBytes;
+    private final int rowsPerChunk;
+    private final ByteBuffer[] chunks;
+    private final ByteBuffer scales;
+    private final ByteBuffer table;
+    private final ByteBuffer wordOffsets;
+    private final ByteBuffer chars;
+    private final int tableMask;
+    private final float[] halfTable;
+
+    /**
+     * constructor.
+     *
+     * @param path
+     * @throws IOException
+     */
+    private VectorStore(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size()))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.capacity() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("no vector store (version " + VERSION + "): " + path);
+            }
+            countWords = header.getInt(8);
+            dimension = header.getInt(12);
+            quantization = header.getInt(16);
+            int tableSize = header.getInt(20);
+            tableMask = tableSize - 1;
+            rowBytes = dimension * bytesOf(quantization);
+            rowsPerChunk = Math.max(1, CHUNK_SIZE / Math.max(rowBytes, 1));
+            long vectorsOffset = header.getLong(32);
+            chunks = new ByteBuffer[(countWords + rowsPerChunk - 1) / rowsPerChunk];
+            for (int index = 0; index < chunks.length; index++) {
+                long rows = Math.min(rowsPerChunk, countWords - (long)index * rowsPerChunk);
+                chunks[index] = map(channel, vectorsOffset + (long)index * rowsPerChunk * rowBytes, rows * rowBytes);
+            }
+            scales = map(channel, header.getLong(40), 4L * countWords);
+            table = map(channel, header.getLong(48), 4L * tableSize);
+            wordOffsets = map(channel, header.getLong(56), 4L * (countWords + 1));
+            chars = map(channel, header.getLong(64), channel.size() - header.getLong(64));
+        }
+        halfTable = (quantization == FLOAT16) ? getHalfs() : null;
+    }
+
+    /**
+     * this method maps a part of a file
+     *
+     * @param channel
+     * @param position
+     * @param size less than 2 GB
+     * @return {@link ByteBuffer} little endian
+     * @throws IOException
+     */
+    private ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("section of vector store exceeds 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return count of words
+     */
+    public int countWords() {
+        return countWords;
+    }
+
+    /**
+     * this method calculate the dot product of a query and the unit vector of a word
+     *
+     * @param query
+     * @param index of the word
+     * @return {@code float}
+     */
+    private float dot(float[] query, int index) {
+        ByteBuffer chunk = chunks[index / rowsPerChunk];
+        int offset = (index % rowsPerChunk) * rowBytes;
+        float result = 0.0f;
+        if (quantization == FLOAT32) {
+            for (int temp = 0; temp < dimension; temp++) {
+                result += query[temp] * chunk.getFloat(offset + 4 * temp);
+            }
+            return result;
+        }
+        if (quantization == FLOAT16) {
+            for (int temp = 0; temp < dimension; temp++) {
+                result += query[temp] * halfTable[chunk.getShort(offset + 2 * temp) & 0xffff];
+            }
+            return result;
+        }
+        for (int temp = 0; temp < dimension; temp++) {
+            result += query[temp] * chunk.get(offset + temp);
+        }
+        return result * scales.getFloat(4 * index);
+    }
+
+    /**
+     * @return dimension of the vectors
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * this method return the unit vector of a word (dequantized)
+     *
+     * @param index of the word
+     * @return new reference of {@code float[]}
+     */
+    public float[] getUnitVector(int index) {
+        ByteBuffer chunk = chunks[index / rowsPerChunk];
+        int offset = (index % rowsPerChunk) * rowBytes;
+        float[] result = new float[dimension];
+        float scale = scales.getFloat(4 * index);
+        for (int temp = 0; temp < dimension; temp++) {
+            result[temp] = (quantization == FLOAT32) ? chunk.getFloat(offset + 4 * temp)
+                    : (quantization == FLOAT16) ? halfTable[chunk.getShort(offset + 2 * temp) & 0xffff] : chunk.get(offset + temp) * scale;
+        }
+        return result;
+    }
+
+    /**
+     * this method return a word
+     *
+     * @param index of the word
+     * @return new reference of {@code String}
+     */
+    public String getWord(int index) {
+        int offset = wordOffsets.getInt(4 * index);
+        int length = wordOffsets.getInt(4 * (index + 1)) - offset;
+        char[] temps = new char[length];
+        for (int temp = 0; temp < length; temp++) {
+            temps[temp] = chars.getChar(2 * (offset + temp));
+        }
+        return new String(temps);
+    }
+
+    /**
+     * @param word
+     * @return {@code true} if the store contains the word
+     */
+    public boolean hasWord(String word) {
+        return indexOf(word) != EMPTY;
+    }
+
+    /**
+     * this method return the index of a word
+     *
+     * @param word
+     * @return index or -1 if unknown
+     */
+    public int indexOf(String word) {
+        if (word == null) {
+            return EMPTY;
+        }
+        int slot = slot(word, tableMask);
+        int index = 0;
+        while ((index = table.getInt(4 * slot)) != EMPTY) {
+            if (isWord(index, word)) {
+                return index;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * this method compares a stored word with a word, no allocation
+     *
+     * @param index
+     * @param word
+     * @return {@code true} if same chars
+     */
+    private boolean isWord(int index, String word) {
+        int offset = wordOffsets.getInt(4 * index);
+        if (wordOffsets.getInt(4 * (index + 1)) - offset != word.length()) {
+            return false;
+        }
+        for (int temp = 0; temp < word.length(); temp++) {
+            if (chars.getChar(2 * (offset + temp)) != word.charAt(temp)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * this method return the most similar words of a query (compares all words)
+     *
+     * @param query unit vector
+     * @param count
+     * @param excludes indexes of words not part of the result
+     * @return new reference of {@code List<String>}, most similar first
+     */
+    public List<String> nearest(float[] query, int count, Set<Integer> excludes) {
+        // min heap of the best similarities, root is the least similar
+        int[] indexes = new int[Math.max(count, 1)];
+        float[] similarities = new float[indexes.length];
+        int size = 0;
+        for (int index = 0; index < countWords && count > 0; index++) {
+            float similarity = dot(query, index);
+            if (size == count && similarity <= similarities[0] || excludes.contains(index)) {
+                continue;
+            }
+            int position = 0;
+            if (size < count) {
+                position = size++;
+                while (position > 0 && similarities[(position - 1) / 2] > similarity) {
+                    indexes[position] = indexes[(position - 1) / 2];
+                    similarities[position] = similarities[(position - 1) / 2];
+                    position = (position - 1) / 2;
+                }
+            } else {
+                int child = 0;
+                while ((child = 2 * position + 1) < size) {
+                    if (child + 1 < size && similarities[child + 1] < similarities[child]) {
+                        child++;
+                    }
+                    if (similarity <= similarities[child]) {
+                        break;
+                    }
+                    indexes[position] = indexes[child];
+                    similarities[position] = similarities[child];
+                    position = child;
+                }
+            }
+            indexes[position] = index;
+            similarities[position] = similarity;
+        }
+        // heap sort, most similar first
+        String[] temps = new String[size];
+        for (int last = size - 1; last >= 0; last--) {
+            temps[last] = getWord(indexes[0]);
+            int index = indexes[last];
+            float similarity = similarities[last];
+            int position = 0;
+            int child = 0;
+            while ((child = 2 * position + 1) < last) {
+                if (child + 1 < last && similarities[child + 1] < similarities[child]) {
+                    child++;
+                }
+                if (similarity <= similarities[child]) {
+                    break;
+                }
+                indexes[position] = indexes[child];
+                similarities[position] = similarities[child];
+                position = child;
+            }
+            indexes[position] = index;
+            similarities[position] = similarity;
+        }
+        List<String> results = new ArrayList<String>(size);
+        for (String temp : temps) {
+            results.add(temp);
+        }
+        return results;
+    }
+
+    /**
+     * this method return the cosine similarity of two words, like {@link org.deeplearning4j.models.word2vec.Word2Vec#similarity(String,
+     * String)}
+     *
+     * @param left
+     * @param right
+     * @return {@code double}, {@link Double#NaN} if a word is unknown
+     */
+    public double similarity(String left, String right) {
+        int leftIndex = indexOf(left);
+        int rightIndex = indexOf(right);
+        if (leftIndex == EMPTY || rightIndex == EMPTY) {
+            return Double.NaN;
+        }
+        if (left.equals(right)) {
+            return 1.0d;
+        }
+        return dot(getUnitVector(leftIndex), rightIndex);
+    }
+
+    /**
+     * this method return the nearest words of the mean of the plus unit vectors and the negative minus unit vectors, like
+     * {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(Collection, Collection, int)} <br>
+     * example: king - queen + woman = man
+     *
+     * @param plus
+     * @param minus
+     * @param count
+     * @return new reference of {@code List<String>}, most similar first, the passed words are not part of the result
+     */
+    public List<String> wordsNearest(Collection<String> plus, Collection<String> minus, int count) {
+        float[] query = new float[dimension];
+        Set<Integer> excludes = new HashSet<Integer>();
+        for (Collection<String> words : Arrays.asList(plus, minus)) {
+            float sign = (words == plus) ? 1.0f : -1.0f;
+            for (String word : words) {
+                int index = indexOf(word);
+                if (index == EMPTY) {
+                    continue;
+                }
+                excludes.add(index);
+                float[] vector = getUnitVector(index);
+                for (int temp = 0; temp < dimension; temp++) {
+                    query[temp] += sign * vector[temp];
+                }
+            }
+        }
+        if (excludes.isEmpty()) {
+            return new ArrayList<String>();
+        }
+        double norm = 0.0d;
+        for (float value : query) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        for (int temp = 0; temp < dimension && norm > 0.0d; temp++) {
+            query[temp] = (float)(query[temp] / norm);
+        }
+        return nearest(query, count, excludes);
+    }
+
+    /**
+     * this method return the nearest words of a word, like {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(String, int)}
+     *
+     * @param word
+     * @param count
+     * @return new reference of {@code List<String>}, most similar first, empty if the word is unknown
+     */
+    public List<String> wordsNearest(String word, int count) {
+        int index = indexOf(word);
+        if (index == EMPTY) {
+            return new ArrayList<String>();
+        }
+        Set<Integer> excludes = new HashSet<Integer>();
+        excludes.add(index);
+        return nearest(getUnitVector(index), count, excludes);
+    }
+
+}
@@ -0,0 +1,145 @@
+package de.citytwin.algorithm.word2vec;
+
+import de.citytwin.catalog.Catalog;
+import de.citytwin.catalog.HasName;
+import de.citytwin.text.AnnotatedCorpus;
+import de.citytwin.text.TextProcessing;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * this class selects the words of a model needed for keyword filtering and writes their vectors as a pruned vector store <br>
+ * selected are all names of the catalogs and the terms of analysed documents (pos tag filter like the keyword extractors) that occur
+ * at least {@code minCorpusCount} times and at least {@code minFrequency} times in the training corpus of the model
+ * <p>
+ * the pruned store is opened by {@code path.2.vector.store.file}, {@link Word2Vec#getLookupReport()} shows how many lookups fall
+ * outside of the subset. not thread safe
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class VocabularySubset {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final Word2Vec word2vec;
+    private final long minFrequency;
+    private final int minCorpusCount;
+    private final Set<String> catalogNames = new HashSet<String>();
+    private final Map<String, Integer> corpusCounts = new HashMap<String, Integer>();
+
+    /**
+     * constructor.
+     *
+     * @param word2vec loaded model
+     * @param minFrequency minimum frequency of a term in the training corpus ({@link Word2Vec#getWordFrequency(String)}, 0 or 1 = off)
+     * @param minCorpusCount minimum count of a term in the added corpora
+     */
+    public VocabularySubset(Word2Vec word2vec, long minFrequency, int minCorpusCount) {
+        this.word2vec = word2vec;
+        this.minFrequency = minFrequency;
+        this.minCorpusCount = minCorpusCount;
+    }
+
+    /**
+     * this method adds all names of a catalog, names are part of the subset regardless of their frequency
+     *
+     * @param catalog
+     */
+    public void addCatalog(Catalog<? extends HasName> catalog) {
+        catalogNames.addAll(catalog.getNames());
+    }
+
+    /**
+     * this method counts the terms of a corpus, only terms with a pos tag of {@link TextProcessing#isPosTag(String)}
+     *
+     * @param annotatedCorpus
+     * @param textProcessing
+     */
+    public void addCorpus(AnnotatedCorpus annotatedCorpus, TextProcessing textProcessing) {
+        for (int sentenceIndex = 0; sentenceIndex < annotatedCorpus.countSentences(); sentenceIndex++) {
+            int countTerms = annotatedCorpus.getSentence(sentenceIndex).size();
+            for (int termIndex = 0; termIndex < countTerms; termIndex++) {
+                if (textProcessing.isPosTag(annotatedCorpus.getPosTag(sentenceIndex, termIndex))) {
+                    corpusCounts.merge(annotatedCorpus.getTerm(sentenceIndex, termIndex), 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * this method return the words of the subset, known by the model
+     *
+     * @return new reference of {@code List<String>} in order of the vocabulary of the model
+     * @throws IOException
+     */
+    public List<String> getWords() throws IOException {
+        List<String> words = word2vec.getWords();
+        Set<String> selections = new HashSet<String>();
+        int countRareTerms = 0;
+        int countUnknownTerms = 0;
+        for (Map.Entry<String, Integer> entry : corpusCounts.entrySet()) {
+            if (entry.getValue() < minCorpusCount) {
+                continue;
+            }
+            if (!word2vec.hasWord(entry.getKey())) {
+                countUnknownTerms++;
+            } else if (minFrequency > 1 && word2vec.getWordFrequency(entry.getKey()) < minFrequency) {
+                countRareTerms++;
+            } else {
+                selections.add(entry.getKey());
+            }
+        }
+        int countCorpusTerms = selections.size();
+        int countUnknownNames = 0;
+        for (String name : catalogNames) {
+            if (word2vec.hasWord(name)) {
+                selections.add(name);
+            } else {
+                countUnknownNames++;
+            }
+        }
+        List<String> results = new ArrayList<String>(selections.size());
+        for (String word : words) {
+            if (selections.contains(word)) {
+                results.add(word);
+            }
+        }
+        LOGGER.info(MessageFormat.format(
+                "vocabulary subset: {0} of {1} words ({2,number,#.##} %) \n" +
+                        "catalog names:    {3} ({4} unknown) \n" +
+                        "corpus terms:     {5} of {6} ({7} unknown, {8} rare)",
+                results.size(),
+                words.size(),
+                (words.isEmpty()) ? 0.0d : 100.0d * results.size() / words.size(),
+                catalogNames.size(),
+                countUnknownNames,
+                countCorpusTerms,
+                corpusCounts.size(),
+                countUnknownTerms,
+                countRareTerms));
+        return results;
+    }
+
+    /**
+     * this method writes the vectors of the subset as vector store
+     *
+     * @param destination
+     * @param quantization {@link VectorStore#FLOAT32}, {@link VectorStore#FLOAT16} or {@link VectorStore#INT8}
+     * @throws IOException
+     */
+    public void save(String destination, int quantization) throws IOException {
+        word2vec.saveVectorStore(destination, quantization, getWords());
+    }
+
+}
@@ -9,16 +9,23 @@ import de.citytwin.text.TokenizerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +39,10 @@ public class Word2Vec implements AutoCloseable {
     /** current version information */
     /** logger */
     private static final transient Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // source of versions, unique over all models
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    // maximum count of different missing words of the lookup report
+    private static final int MAX_MISSING_WORDS = 10000;
 
     /**
      * this method return default properties
@@ -42,6 +53,13 @@ public class Word2Vec implements AutoCloseable {
 
         Properties properties = new Properties();
         properties.setProperty(ApplicationConfiguration.PATH_2_WORD_2_VEC_FILE, "..\\word2vec.bin");
+        properties.setProperty(ApplicationConfiguration.NEAREST_ENGINE, "exact");
+        properties.setProperty(ApplicationConfiguration.HNSW_M, "16");
+        properties.setProperty(ApplicationConfiguration.HNSW_EF_CONSTRUCTION, "200");
+        properties.setProperty(ApplicationConfiguration.HNSW_EF_SEARCH, "100");
+        properties.setProperty(ApplicationConfiguration.HNSW_BUILD, "false");
+        properties.setProperty(ApplicationConfiguration.PATH_2_VECTOR_STORE_FILE, "");
+        properties.setProperty(ApplicationConfiguration.VECTOR_STORE_QUANTIZATION, "float32");
         return properties;
 
     }
@@ -67,6 +85,22 @@ public class Word2Vec implements AutoCloseable {
 
     private org.deeplearning4j.models.word2vec.Word2Vec word2vec = null;
     private String path2Word2VecFile = null;
+    private String nearestEngine = null;
+    private Integer hnswM = null;
+    private Integer hnswEfConstruction = null;
+    private Integer hnswEfSearch = null;
+    private Boolean hnswBuild = null;
+    // null on exact engine or after training
+    private HnswIndex hnswIndex = null;
+    private String path2VectorStoreFile = null;
+    private Integer vectorStoreQuantization = null;
+    // vectors served without dl4j model, null if no store is configured or after training
+    private VectorStore vectorStore = null;
+    private volatile long version = VERSIONS.incrementAndGet();
+    // lookups of words, e.g. to check a vocabulary subset
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder missingLookups = new LongAdder();
+    private final Map<String, LongAdder> missingWords = new ConcurrentHashMap<String, LongAdder>();
 
     /**
      * Konstruktor.
@@ -77,8 +111,25 @@ public class Word2Vec implements AutoCloseable {
     public Word2Vec(Properties properties) throws IOException {
         if (validateProperties(properties)) {
             File file = new File(path2Word2VecFile);
-            if (file.exists()) {
+            File storeFile = (path2VectorStoreFile.isEmpty()) ? null : new File(path2VectorStoreFile);
+            if (storeFile != null && file.exists() && !VectorStore.isCurrent(path2VectorStoreFile, file.length(), file.lastModified())) {
+                // converted once, following starts map the store until the model file changes
+                if (storeFile.exists()) {
+                    LOGGER.info(MessageFormat.format("vector store outdated, converted again: {0}", path2VectorStoreFile));
+                }
                 word2vec = WordVectorSerializer.readWord2VecModel(path2Word2VecFile);
+                saveVectorStore(path2VectorStoreFile, vectorStoreQuantization);
+                word2vec = null;
+            }
+            if (storeFile != null && storeFile.exists()) {
+                vectorStore = VectorStore.open(path2VectorStoreFile);
+                file = storeFile;
+                LOGGER.info(MessageFormat.format("vector store opened: {0}, {1} words", path2VectorStoreFile, vectorStore.countWords()));
+            } else if (file.exists()) {
+                word2vec = WordVectorSerializer.readWord2VecModel(path2Word2VecFile);
+            }
+            if ("hnsw".equals(nearestEngine) && (word2vec != null || vectorStore != null)) {
+                hnswIndex = openIndex(file);
             }
         }
 
@@ -99,10 +150,180 @@ public class Word2Vec implements AutoCloseable {
 
     }
 
+    /**
+     * this method counts a lookup of a word
+     *
+     * @param word
+     * @return {@code true} if the model contains the word
+     */
+    private boolean countLookup(String word) {
+        boolean isKnown = hasWord(word);
+        lookups.increment();
+        if (!isKnown && word != null) {
+            missingLookups.increment();
+            if (missingWords.size() < MAX_MISSING_WORDS || missingWords.containsKey(word)) {
+                missingWords.computeIfAbsent(word, key -> new LongAdder()).increment();
+            }
+        }
+        return isKnown;
+    }
+
     @Override
     public void close() throws Exception {
         word2vec = null;
+        hnswIndex = null;
+        vectorStore = null;
+
+    }
+
+    /**
+     * this method stacks the unit vectors (l2 normalized) of words as rows of a matrix, the row of an unknown word is zero <br>
+     * the product of two rows is the cosine similarity of the words
+     *
+     * @param words at least one word
+     * @return new reference of {@link INDArray} (count of words x layer size)
+     * @throws IOException
+     */
+    public INDArray getUnitVectors(List<String> words) throws IOException {
+        if (word2vec == null && vectorStore == null) {
+            throw new IOException("no model set");
+        }
+        float[][] rows = new float[words.size()][(word2vec != null) ? word2vec.getLayerSize() : vectorStore.getDimension()];
+        int index = 0;
+        for (String word : words) {
+            countLookup(word);
+            if (word2vec == null) {
+                int wordIndex = vectorStore.indexOf(word);
+                if (wordIndex >= 0) {
+                    rows[index] = vectorStore.getUnitVector(wordIndex);
+                }
+            } else if (word2vec.hasWord(word)) {
+                float[] vector = word2vec.getWordVectorMatrix(word).toFloatVector();
+                double norm = 0.0d;
+                for (float value : vector) {
+                    norm += value * value;
+                }
+                norm = Math.sqrt(norm);
+                for (int dimension = 0; dimension < vector.length && norm > 0.0d; dimension++) {
+                    rows[index][dimension] = (float)(vector[dimension] / norm);
+                }
+            }
+            index++;
+        }
+        return Nd4j.create(rows);
+    }
+
+    /**
+     * this method return a report of all lookups of words (similarity, nearest words, unit vectors) and how many words are not part of
+     * the model, e.g. outside of a vocabulary subset
+     *
+     * @return {@code String} like {@code lookups: 1200, missing: 30 (2.5 %), most missing: [Gründach=12, ...]}
+     */
+    public String getLookupReport() {
+        long countLookups = lookups.sum();
+        long countMissings = missingLookups.sum();
+        List<String> mostMissings = missingWords.entrySet()
+                .stream()
+                .sorted((left, right) -> Long.compare(right.getValue().sum(), left.getValue().sum()))
+                .limit(10)
+                .map(entry -> entry.getKey() + "=" + entry.getValue().sum())
+                .collect(Collectors.toList());
+        return MessageFormat.format("lookups: {0}, missing: {1} ({2,number,#.##} %), most missing: {3}",
+                countLookups,
+                countMissings,
+                (countLookups == 0) ? 0.0d : 100.0d * countMissings / countLookups,
+                mostMissings);
+    }
+
+    /**
+     * this method return the frequency of a word in the training corpus, only of a dl4j model
+     *
+     * @param word
+     * @return {@code long}, 0 if unknown
+     * @throws IOException
+     */
+    public long getWordFrequency(String word) throws IOException {
+        if (word2vec != null) {
+            return (word2vec.hasWord(word)) ? word2vec.getVocab().wordFrequency(word) : 0L;
+        }
+        throw new IOException((vectorStore != null) ? "no word frequencies in a vector store" : "no model set");
+    }
+
+    /**
+     * this method return all words of the model
+     *
+     * @return new reference of {@code List<String>} in order of the vocabulary (index)
+     * @throws IOException
+     */
+    public List<String> getWords() throws IOException {
+        if (word2vec == null && vectorStore == null) {
+            throw new IOException("no model set");
+        }
+        int countWords = (word2vec != null) ? word2vec.getVocab().numWords() : vectorStore.countWords();
+        List<String> words = new ArrayList<String>(countWords);
+        for (int index = 0; index < countWords; index++) {
+            words.add((word2vec != null) ? word2vec.getVocab().wordAtIndex(index) : vectorStore.getWord(index));
+        }
+        return words;
+    }
+
+    /**
+     * this method return the version of the model, unique over all models and changed on each training <br>
+     * results calculated of the vectors (e.g. cached similarities) are valid as long as the version is the same
+     *
+     * @return {@code long}
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * this method check whether the model contains a word (dl4j model or vector store)
+     *
+     * @param word
+     * @return {@code true} if known
+     */
+    public boolean hasWord(String word) {
+        if (word2vec != null) {
+            return word2vec.hasWord(word);
+        }
+        return vectorStore != null && vectorStore.hasWord(word);
+    }
 
+    /**
+     * this method opens the hnsw index of a model, the index is stored next to the indexed file ({@code file + ".hnsw"}). a missing index
+     * or one of another model file is built only if {@code ApplicationConfiguration.HNSW_BUILD} is set (synchronous, logged)
+     *
+     * @param file model file or vector store file
+     * @return new reference of {@link HnswIndex} or {@code null} if the index is not built or can not be built (exact search)
+     */
+    private HnswIndex openIndex(File file) {
+        String path2IndexFile = file.getPath() + ".hnsw";
+        try {
+            if (!HnswIndex.isCurrent(path2IndexFile, hnswM, hnswEfConstruction, file.length(), file.lastModified())) {
+                if (!hnswBuild) {
+                    LOGGER.info(MessageFormat.format("hnsw index {0} missing or outdated, exact search (build it by hnsw.build=true)",
+                            path2IndexFile));
+                    return null;
+                }
+                long start = System.currentTimeMillis();
+                List<String> words = getWords();
+                LOGGER.info(MessageFormat.format("hnsw index build started: {0}, {1} words", path2IndexFile, words.size()));
+                float[][] vectors = new float[words.size()][];
+                for (int index = 0; index < vectors.length; index++) {
+                    vectors[index] = (word2vec != null) ? word2vec.getWordVectorMatrix(words.get(index)).toFloatVector()
+                            : vectorStore.getUnitVector(index);
+                }
+                HnswIndex.build(words, vectors, hnswM, hnswEfConstruction, file.length(), file.lastModified(), path2IndexFile);
+                LOGGER.info(MessageFormat.format("hnsw index build completed in {0} ms", System.currentTimeMillis() - start));
+            }
+            HnswIndex result = HnswIndex.open(path2IndexFile);
+            LOGGER.info(MessageFormat.format("hnsw index opened: {0}, {1} words", path2IndexFile, result.countWords()));
+            return result;
+        } catch (IOException exception) {
+            LOGGER.error(MessageFormat.format("hnsw index not available, exact search: {0}", exception.getMessage()), exception);
+            return null;
+        }
     }
 
     /**
@@ -120,7 +341,45 @@ public class Word2Vec implements AutoCloseable {
     }
 
     /**
-     * this method is wrapper for {@link org.deeplearning4j.models.word2vec.Word2Vec#similarity(String, String)}
+     * this method converts the loaded model to a vector store, see {@link VectorStore}
+     *
+     * @param destination
+     * @param quantization {@link VectorStore#FLOAT32}, {@link VectorStore#FLOAT16} or {@link VectorStore#INT8}
+     * @throws IOException
+     */
+    public void saveVectorStore(String destination, int quantization) throws IOException {
+        saveVectorStore(destination, quantization, getWords());
+    }
+
+    /**
+     * this method writes the vectors of some words of the loaded model (dl4j model or vector store) to a vector store, e.g. a
+     * vocabulary subset {@link VocabularySubset}
+     *
+     * @param destination
+     * @param quantization {@link VectorStore#FLOAT32}, {@link VectorStore#FLOAT16} or {@link VectorStore#INT8}
+     * @param words unknown words are skipped
+     * @throws IOException
+     */
+    public void saveVectorStore(String destination, int quantization, List<String> words) throws IOException {
+        if (word2vec == null && vectorStore == null) {
+            throw new IOException("no model set");
+        }
+        List<String> knownWords = words.stream().filter(this::hasWord).collect(Collectors.toList());
+        int dimension = (word2vec != null) ? word2vec.getLayerSize() : vectorStore.getDimension();
+        File file = new File(path2Word2VecFile);
+        VectorStore.write(knownWords,
+                index -> (word2vec != null) ? word2vec.getWordVectorMatrix(knownWords.get(index)).toFloatVector()
+                        : vectorStore.getUnitVector(vectorStore.indexOf(knownWords.get(index))),
+                dimension,
+                quantization,
+                file.length(),
+                file.lastModified(),
+                destination);
+    }
+
+    /**
+     * this method is wrapper for {@link org.deeplearning4j.models.word2vec.Word2Vec#similarity(String, String)}, served by the vector
+     * store if opened
      *
      * @param left
      * @param right
@@ -128,9 +387,14 @@ public class Word2Vec implements AutoCloseable {
      * @throws IOException
      */
     public double similarity(String left, String right) throws IOException {
+        countLookup(left);
+        countLookup(right);
         if (word2vec != null) {
             return word2vec.similarity(left, right);
         }
+        if (vectorStore != null) {
+            return vectorStore.similarity(left, right);
+        }
         throw new IOException("no model set");
     }
 
@@ -157,9 +421,35 @@ public class Word2Vec implements AutoCloseable {
      * @param textProcessing
      */
     public void trainModel(List<String> sentences, @Nonnull Map<String, Integer> paramters, TextProcessing textProcessing) {
-        SentenceIterator sentenceIterator = new SentenceIterator(sentences);
+        trainModel(new SentenceIterator(sentences), paramters, textProcessing);
+    }
+
+    /**
+     * this method train a model of given sentences, e.g. streamed by {@link de.citytwin.text.WikiSentenceIterator} <br>
+     * the iterator is reset for the vocabulary and each epoch
+     *
+     * @param sentenceIterator
+     * @param paramters
+     * @param textProcessing
+     */
+    public void trainModel(org.deeplearning4j.text.sentenceiterator.SentenceIterator sentenceIterator,
+            @Nonnull Map<String, Integer> paramters, TextProcessing textProcessing) {
         TokenizerFactory tokenizerFactory = new TokenizerFactory(textProcessing);
         tokenizerFactory.setTokenPreProcessor(new TokenPreProcess());
+        trainModel(sentenceIterator, tokenizerFactory, paramters, textProcessing.getStopwords());
+    }
+
+    /**
+     * this method train a model of given sentences and tokenizer, e.g. replayed by {@link de.citytwin.text.TokenizedCorpus} (no nlp)
+     *
+     * @param sentenceIterator
+     * @param tokenizerFactory
+     * @param paramters
+     * @param stopwords
+     */
+    public void trainModel(org.deeplearning4j.text.sentenceiterator.SentenceIterator sentenceIterator,
+            org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory tokenizerFactory,
+            @Nonnull Map<String, Integer> paramters, List<String> stopwords) {
 
         int batchSize = (paramters.get("batchSize") != null) ? paramters.get("batchSize").intValue() : 100;
         int epochs = (paramters.get("epochs") != null) ? paramters.get("epochs").intValue() : 1;
@@ -177,7 +467,7 @@ public class Word2Vec implements AutoCloseable {
                     .minWordFrequency(minWordFrequency)
                     .iterations(iteration)
                     .layerSize(layerSize)
-                    .stopWords(textProcessing.getStopwords())
+                    .stopWords(stopwords)
                     .seed(seed)
                     .windowSize(windowSize)
                     .workers(workers)
@@ -188,7 +478,12 @@ public class Word2Vec implements AutoCloseable {
             word2vec.setTokenizerFactory(tokenizerFactory);
             word2vec.setSentenceIterator(sentenceIterator);
         }
+        // trained model replaces the vectors of the store
+        vectorStore = null;
         word2vec.fit();
+        // index belongs to the loaded model
+        hnswIndex = null;
+        version = VERSIONS.incrementAndGet();
         LOGGER.info("model trained");
 
     }
@@ -205,12 +500,38 @@ public class Word2Vec implements AutoCloseable {
         if (path2Word2VecFile == null || path2Word2VecFile.trim().length() == 0) {
             throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.PATH_2_WORD_2_VEC_FILE");
         }
+        nearestEngine = properties.getProperty(ApplicationConfiguration.NEAREST_ENGINE, "exact");
+        if (!"hnsw".equals(nearestEngine) && !"exact".equals(nearestEngine)) {
+            throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.NEAREST_ENGINE (hnsw | exact)");
+        }
+        hnswM = Integer.parseInt(properties.getProperty(ApplicationConfiguration.HNSW_M, "16"));
+        if (hnswM < 2) {
+            throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.HNSW_M (>= 2)");
+        }
+        hnswEfConstruction = Integer.parseInt(properties.getProperty(ApplicationConfiguration.HNSW_EF_CONSTRUCTION, "200"));
+        if (hnswEfConstruction < 1) {
+            throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.HNSW_EF_CONSTRUCTION (>= 1)");
+        }
+        hnswEfSearch = Integer.parseInt(properties.getProperty(ApplicationConfiguration.HNSW_EF_SEARCH, "100"));
+        if (hnswEfSearch < 1) {
+            throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.HNSW_EF_SEARCH (>= 1)");
+        }
+        hnswBuild = Boolean.parseBoolean(properties.getProperty(ApplicationConfiguration.HNSW_BUILD, "false"));
+        path2VectorStoreFile = properties.getProperty(ApplicationConfiguration.PATH_2_VECTOR_STORE_FILE, "").trim();
+        try {
+            vectorStoreQuantization = VectorStore.quantizationOf(properties.getProperty(ApplicationConfiguration.VECTOR_STORE_QUANTIZATION,
+                    "float32"));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException(
+                    "set property --> " + "ApplicationConfiguration.VECTOR_STORE_QUANTIZATION (float32 | float16 | int8)");
+        }
         return true;
 
     }
 
     /**
-     * this method is wrapper for {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(Collection, Collection, int)} <br>
+     * this method is wrapper for {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(Collection, Collection, int)}, served by
+     * the vector store if opened <br>
      * example: king - queen + woman = man
      *
      * @param plus {@code = Arrays.asList("king", "woman")}
@@ -220,14 +541,20 @@ public class Word2Vec implements AutoCloseable {
      * @throws IOException
      */
     public List<String> wordNearest(Collection<String> plus, Collection<String> minus, int count) throws IOException {
+        plus.forEach(this::countLookup);
+        minus.forEach(this::countLookup);
         if (word2vec != null) {
             return new ArrayList<String>(word2vec.wordsNearest(plus, minus, count));
         }
+        if (vectorStore != null) {
+            return vectorStore.wordsNearest(plus, minus, count);
+        }
         throw new IOException("no model set");
     }
 
     /**
-     * this method is wrapper for {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(String, int)}
+     * this method return the nearest words of a word, by the hnsw index (approximate, recall by {@code hnsw.ef.search}) if available
+     * otherwise like {@link Word2Vec#wordsNearestExact(String, int)}
      *
      * @param word
      * @param count
@@ -235,9 +562,30 @@ public class Word2Vec implements AutoCloseable {
      * @throws IOException
      */
     public List<String> wordsNearest(String word, int count) throws IOException {
+        if (hnswIndex != null) {
+            countLookup(word);
+            return hnswIndex.wordsNearest(word, count, hnswEfSearch);
+        }
+        return wordsNearestExact(word, count);
+    }
+
+    /**
+     * this method is wrapper for {@link org.deeplearning4j.models.word2vec.Word2Vec#wordsNearest(String, int)}, compares all words of
+     * the dl4j model or the vector store (e.g. to verify the recall of the hnsw index)
+     *
+     * @param word
+     * @param count
+     * @return
+     * @throws IOException
+     */
+    public List<String> wordsNearestExact(String word, int count) throws IOException {
+        countLookup(word);
         if (word2vec != null) {
             return new ArrayList<String>(word2vec.wordsNearest(word, count));
         }
+        if (vectorStore != null) {
+            return vectorStore.wordsNearest(word, count);
+        }
         throw new IOException("no model set or trained");
 
     }
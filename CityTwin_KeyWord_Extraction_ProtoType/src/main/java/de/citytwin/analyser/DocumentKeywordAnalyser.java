@@ -1,25 +1,37 @@
 package de.citytwin.analyser;
 
+import de.citytwin.algorithm.keywords.TFIDFKeywordExtractor;
 import de.citytwin.algorithm.word2vec.Word2Vec;
+import de.citytwin.cache.LruCache;
 import de.citytwin.catalog.Catalog;
 import de.citytwin.catalog.HasName;
 import de.citytwin.config.ApplicationConfiguration;
 import de.citytwin.converter.DocumentConverter;
 import de.citytwin.keywords.KeywordExtractor;
+import de.citytwin.keywords.RankedKeywordExtractor;
+import de.citytwin.text.AnnotatedCorpus;
+import de.citytwin.text.TokenArena;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.tika.sax.BodyContentHandler;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,23 +42,146 @@ import org.slf4j.LoggerFactory;
  */
 public class DocumentKeywordAnalyser implements Keywords, AutoCloseable {
 
+    /**
+     * This inner class holds the names of a catalog and their unit vectors (one row per name, in order of {@link Catalog#getNames()})
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class CatalogMatrix {
+
+        private final String[] names;
+        // transposed, layer size x count of names
+        private final INDArray unitVectors;
+        // versions of catalog and model, matrix is calculated again if one changed
+        private final long catalogVersion;
+        private final long word2vecVersion;
+
+        /**
+         * constructor.
+         *
+         * @param names
+         * @param unitVectors {@link Word2Vec#getUnitVectors(List)}, {@code null} if no names
+         * @param catalogVersion {@link Catalog#getVersion()}
+         * @param word2vecVersion {@link Word2Vec#getVersion()}
+         */
+        public CatalogMatrix(String[] names, INDArray unitVectors, long catalogVersion, long word2vecVersion) {
+            this.names = names;
+            this.unitVectors = (unitVectors == null) ? null : unitVectors.transpose();
+            this.catalogVersion = catalogVersion;
+            this.word2vecVersion = word2vecVersion;
+        }
+    }
+
+    /**
+     * This inner class is the key of a cached match: keyword, versions of catalog and model and similarity threshold
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static final class MatchKey {
+
+        private final String keyword;
+        private final long catalogVersion;
+        private final long word2vecVersion;
+        private final double similarity;
+        private final int hash;
+
+        /**
+         * constructor.
+         *
+         * @param keyword
+         * @param catalogVersion {@link Catalog#getVersion()}
+         * @param word2vecVersion {@link Word2Vec#getVersion()}
+         * @param similarity threshold
+         */
+        public MatchKey(String keyword, long catalogVersion, long word2vecVersion, double similarity) {
+            this.keyword = keyword;
+            this.catalogVersion = catalogVersion;
+            this.word2vecVersion = word2vecVersion;
+            this.similarity = similarity;
+            this.hash = 31 * (31 * (31 * keyword.hashCode() + Long.hashCode(catalogVersion)) + Long.hashCode(word2vecVersion))
+                    + Double.hashCode(similarity);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof MatchKey)) {
+                return false;
+            }
+            MatchKey other = (MatchKey)object;
+            return catalogVersion == other.catalogVersion && word2vecVersion == other.word2vecVersion
+                    && Double.compare(similarity, other.similarity) == 0 && keyword.equals(other.keyword);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     /** Klassenspezifischer, aktueller Logger (Server: org.apache.log4j.Logger; Client: java.util.logging.Logger) */
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // float error of a similarity by matrix product, only candidates are compared by word2vec
+    private static final double SIMILARITY_TOLERANCE = 1.0e-4d;
 
     public static Properties getDefaultProperties() {
         Properties properties = new Properties();
         properties.setProperty(ApplicationConfiguration.SIMILARITY, "66");
         properties.setProperty(ApplicationConfiguration.MAX_NEAREST, "10");
         properties.setProperty(ApplicationConfiguration.EVERY_SINGLE_SENTENCE, "false");
+        properties.setProperty(ApplicationConfiguration.SIMILARITY_BATCH_SIZE, "256");
+        properties.setProperty(ApplicationConfiguration.MATCH_CACHE_SIZE, "100000");
         return properties;
     }
 
+    /**
+     * this method calculate a key of a document by its content (sha-256) and its file name, the stream is read to the end and reset to
+     * the current position
+     *
+     * @param byteArrayInputStream
+     * @param fileName
+     * @return {@code String} hex encoded
+     * @throws IOException
+     */
+    public static String getDocumentKey(final ByteArrayInputStream byteArrayInputStream, final String fileName) throws IOException {
+        MessageDigest messageDigest = null;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException("sha-256 not available", exception);
+        }
+        byte[] buffer = new byte[8192];
+        int length = 0;
+        byteArrayInputStream.mark(Integer.MAX_VALUE);
+        while ((length = byteArrayInputStream.read(buffer)) > 0) {
+            messageDigest.update(buffer, 0, length);
+        }
+        byteArrayInputStream.reset();
+        StringBuilder stringBuilder = new StringBuilder(64 + fileName.length() + 1);
+        for (byte value : messageDigest.digest()) {
+            stringBuilder.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+        }
+        return stringBuilder.append(':').append(fileName).toString();
+    }
+
     private DocumentConverter documentConverter = null;
     private Word2Vec word2vec = null;
     private Double similarity = null;
     private Integer maxNearest = null;
     private Boolean everySingleSentence = null;
+    private Integer similarityBatchSize = null;
+    // matching catalog names of a keyword, shared by all documents of this analyser, null if disabled
+    private LruCache<MatchKey, String[]> matchCache = null;
+    // unit vectors of each catalog, calculated once per catalog, weak keys are removed on each access (synchronized)
+    private Map<Catalog<? extends HasName>, CatalogMatrix> catalogMatrices = Collections
+            .synchronizedMap(new WeakHashMap<Catalog<? extends HasName>, CatalogMatrix>());
     private Map<String, List<String>> keyWordTextPassages;
+    // annotated corpus of the last document, shared by all keyword extractors, keyed by content and file name
+    private String documentKey = null;
+    private BodyContentHandler bodyContentHandler = null;
+    private AnnotatedCorpus annotatedCorpus = null;
 
     /**
      * constructor.
@@ -65,28 +200,34 @@ public class DocumentKeywordAnalyser implements Keywords, AutoCloseable {
 
     @Override
     public void close() throws Exception {
+        if (word2vec != null) {
+            LOGGER.info(MessageFormat.format("word2vec {0}", word2vec.getLookupReport()));
+        }
         documentConverter = null;
         word2vec = null;
+        documentKey = null;
+        bodyContentHandler = null;
+        annotatedCorpus = null;
+        catalogMatrices.clear();
+        if (matchCache != null) {
+            LOGGER.info(MessageFormat.format("match cache: {0}", matchCache));
+            matchCache.clear();
+            matchCache = null;
+        }
     }
 
     @Override
     public Map<String, Double> filterKeywords(Map<String, Double> keywords, Catalog<? extends HasName> catalog) throws IOException {
 
         Map<String, Double> filteredKeywords = new HashMap<String, Double>();
-        double currentSimilarity = 0.0f;
-        int count = 1;
+        Map<String, String[]> matches = getMatches(keywords.keySet(), catalog);
         for (String keyword : keywords.keySet()) {
-            for (String name : catalog.getNames()) {
-                currentSimilarity = word2vec.similarity(keyword, name);
-                if (currentSimilarity > similarity) {
-                    filteredKeywords.put(name, keywords.get(keyword));
-                }
+            for (String name : matches.get(keyword)) {
+                filteredKeywords.put(name, keywords.get(keyword));
             }
             if (catalog.contains(keyword)) {
                 filteredKeywords.put(keyword, keywords.get(keyword));
             }
-            LOGGER.info(MessageFormat.format("keyword {0} | {1} of {2}", keyword, count++, keywords.size()));
-
         }
 
         LOGGER.info(MessageFormat.format(
@@ -103,18 +244,199 @@ public class DocumentKeywordAnalyser implements Keywords, AutoCloseable {
 
     }
 
+    /**
+     * this method return the catalog names more similar than the similarity for each keyword, cached matches are reused (same keyword,
+     * catalog version, model version and similarity), the others are calculated by
+     * {@link DocumentKeywordAnalyser#getMatchesBatched(List, Catalog)} or {@link DocumentKeywordAnalyser#getMatchesPairwise(List, Catalog)}
+     *
+     * @param keywords
+     * @param catalog
+     * @return new reference of {@code Map<String, String[]>}, names in order of {@link Catalog#getNames()}
+     * @throws IOException
+     */
+    private Map<String, String[]> getMatches(Collection<String> keywords, Catalog<? extends HasName> catalog) throws IOException {
+
+        Map<String, String[]> matches = new HashMap<String, String[]>(keywords.size() * 2);
+        List<String> missings = new ArrayList<String>();
+        long catalogVersion = catalog.getVersion();
+        long word2vecVersion = word2vec.getVersion();
+        for (String keyword : keywords) {
+            String[] names = (matchCache != null) ? matchCache.get(new MatchKey(keyword, catalogVersion, word2vecVersion, similarity))
+                    : null;
+            if (names == null) {
+                missings.add(keyword);
+            } else {
+                matches.put(keyword, names);
+            }
+        }
+        if (missings.isEmpty()) {
+            return matches;
+        }
+        Map<String, String[]> calculated = (similarityBatchSize > 0) ? getMatchesBatched(missings, catalog)
+                : getMatchesPairwise(missings, catalog);
+        for (Map.Entry<String, String[]> entry : calculated.entrySet()) {
+            if (matchCache != null) {
+                matchCache.put(new MatchKey(entry.getKey(), catalogVersion, word2vecVersion, similarity), entry.getValue());
+            }
+            matches.put(entry.getKey(), entry.getValue());
+        }
+        LOGGER.info(MessageFormat.format("matches cached: {0}, calculated: {1}", keywords.size() - missings.size(), missings.size()));
+        return matches;
+
+    }
+
+    /**
+     * this method return the matching catalog names of keywords, {@link DocumentKeywordAnalyser#similarityBatchSize} keywords are
+     * compared with all catalog names by one matrix product of unit vectors. a pair above the similarity (less a tolerance) is a
+     * candidate and compared by {@link Word2Vec#similarity(String, String)}, so the result is the same as
+     * {@link DocumentKeywordAnalyser#getMatchesPairwise(List, Catalog)}
+     *
+     * @param terms
+     * @param catalog
+     * @return new reference of {@code Map<String, String[]>}
+     * @throws IOException
+     */
+    private Map<String, String[]> getMatchesBatched(List<String> terms, Catalog<? extends HasName> catalog) throws IOException {
+
+        Map<String, String[]> matches = new HashMap<String, String[]>(terms.size() * 2);
+        CatalogMatrix catalogMatrix = getCatalogMatrix(catalog);
+        String[] names = catalogMatrix.names;
+        List<String> temps = new ArrayList<String>();
+        double candidateSimilarity = similarity - SIMILARITY_TOLERANCE;
+        float[] similarities = null;
+        int countCandidates = 0;
+        for (int from = 0; from < terms.size(); from += similarityBatchSize) {
+            List<String> batch = terms.subList(from, Math.min(from + similarityBatchSize, terms.size()));
+            if (names.length > 0) {
+                // count of keywords x count of names
+                similarities = word2vec.getUnitVectors(batch).mmul(catalogMatrix.unitVectors).dup('c').data().asFloat();
+            }
+            for (int row = 0; row < batch.size(); row++) {
+                String keyword = batch.get(row);
+                temps.clear();
+                for (int column = 0, offset = row * names.length; column < names.length; column++) {
+                    if (similarities[offset + column] >= candidateSimilarity) {
+                        countCandidates++;
+                        if (word2vec.similarity(keyword, names[column]) > similarity) {
+                            temps.add(names[column]);
+                        }
+                    }
+                }
+                matches.put(keyword, temps.toArray(new String[temps.size()]));
+            }
+            LOGGER.info(MessageFormat.format("keywords {0} of {1}, candidates {2}", from + batch.size(), terms.size(), countCandidates));
+        }
+        return matches;
+
+    }
+
+    /**
+     * this method return the matching catalog names of keywords, each keyword is compared with each catalog name
+     *
+     * @param keywords
+     * @param catalog
+     * @return new reference of {@code Map<String, String[]>}
+     * @throws IOException
+     */
+    private Map<String, String[]> getMatchesPairwise(List<String> keywords, Catalog<? extends HasName> catalog) throws IOException {
+
+        Map<String, String[]> matches = new HashMap<String, String[]>(keywords.size() * 2);
+        List<String> temps = new ArrayList<String>();
+        double currentSimilarity = 0.0f;
+        int count = 1;
+        for (String keyword : keywords) {
+            temps.clear();
+            for (String name : catalog.getNames()) {
+                currentSimilarity = word2vec.similarity(keyword, name);
+                if (currentSimilarity > similarity) {
+                    temps.add(name);
+                }
+            }
+            matches.put(keyword, temps.toArray(new String[temps.size()]));
+            LOGGER.info(MessageFormat.format("keyword {0} | {1} of {2}", keyword, count++, keywords.size()));
+
+        }
+        return matches;
+
+    }
+
+    /**
+     * this method return the unit vectors of all names of a catalog, calculated once per catalog and model version
+     *
+     * @param catalog
+     * @return {@link CatalogMatrix}
+     * @throws IOException
+     */
+    private CatalogMatrix getCatalogMatrix(Catalog<? extends HasName> catalog) throws IOException {
+        // versions are read before the data, a reload meanwhile gives newer data with the older version (calculated again next time)
+        long catalogVersion = catalog.getVersion();
+        long word2vecVersion = word2vec.getVersion();
+        CatalogMatrix catalogMatrix = catalogMatrices.get(catalog);
+        if (catalogMatrix == null || catalogMatrix.catalogVersion != catalogVersion || catalogMatrix.word2vecVersion != word2vecVersion) {
+            String[] names = catalog.getNames().toArray(new String[0]);
+            catalogMatrix = new CatalogMatrix(names, (names.length > 0) ? word2vec.getUnitVectors(Arrays.asList(names)) : null,
+                    catalogVersion, word2vecVersion);
+            catalogMatrices.put(catalog, catalogMatrix);
+            LOGGER.info(MessageFormat.format("catalog matrix completed: {0} names", names.length));
+        }
+        return catalogMatrix;
+    }
+
     @Override
     public Map<String, Double> getKeywords(final ByteArrayInputStream byteArrayInputStream, final String fileName, KeywordExtractor keywordExtractor)
             throws Exception {
         Map<String, Double> keywords = null;
-        BodyContentHandler bodyContentHandler = documentConverter.getBodyContentHandler(byteArrayInputStream, fileName);
-        List<List<String>> textcorpus = documentConverter.getCleanedTextCorpus(bodyContentHandler, everySingleSentence);
-        keywords = keywordExtractor.getKeywords(textcorpus);
+        AnnotatedCorpus annotatedCorpus = getAnnotatedCorpus(byteArrayInputStream, fileName);
+        keywords = keywordExtractor.getKeywords(annotatedCorpus);
         setKeyWordTextPassages(bodyContentHandler, keywords);
         return keywords;
 
     }
 
+    /**
+     * this method extract the best k keywords from a file ({@code ApplicationConfiguration.TOP_K_KEYWORDS}), only the selected keywords
+     * are converted, see {@link RankedKeywordExtractor#getRankedKeywords(AnnotatedCorpus)}
+     *
+     * @param byteArrayInputStream
+     * @param fileName
+     * @param rankedKeywordExtractor
+     * @return new reference of {@code Map<String, Double>} (keyword : score), ordered by score
+     * @throws Exception
+     */
+    public Map<String, Double> getRankedKeywords(final ByteArrayInputStream byteArrayInputStream, final String fileName,
+            RankedKeywordExtractor rankedKeywordExtractor) throws Exception {
+        AnnotatedCorpus annotatedCorpus = getAnnotatedCorpus(byteArrayInputStream, fileName);
+        Map<String, Double> keywords = rankedKeywordExtractor.getRankedKeywords(annotatedCorpus).toMap();
+        setKeyWordTextPassages(bodyContentHandler, keywords);
+        return keywords;
+    }
+
+    /**
+     * this method return the annotated text corpus of a file. the corpus is build once per file (pos tagging, stemming) and reused by
+     * each following keyword extractor. a file is identified by its content and file name, another stream of the same file is a hit
+     *
+     * @param byteArrayInputStream
+     * @param fileName
+     * @return {@link AnnotatedCorpus}
+     * @throws Exception
+     */
+    public AnnotatedCorpus getAnnotatedCorpus(final ByteArrayInputStream byteArrayInputStream, final String fileName) throws Exception {
+        String documentKey = getDocumentKey(byteArrayInputStream, fileName);
+        if (annotatedCorpus != null && documentKey.equals(this.documentKey)) {
+            return annotatedCorpus;
+        }
+        // a failed build must not hit with the corpus of the document before
+        this.documentKey = null;
+        bodyContentHandler = documentConverter.getBodyContentHandler(byteArrayInputStream, fileName);
+        TokenArena tokenArena = documentConverter.getCleanedTokenArena(bodyContentHandler, everySingleSentence);
+        annotatedCorpus = new AnnotatedCorpus(tokenArena, documentConverter.getTextProcessing());
+        this.documentKey = documentKey;
+        LOGGER.info(MessageFormat.format("annotated corpus completed: {0} sentences, {1} terms",
+                annotatedCorpus.countSentences(),
+                annotatedCorpus.countTerms()));
+        return annotatedCorpus;
+    }
+
     /**
      * this method return all sentence, where occur the keywords or an empty container
      *
@@ -142,6 +464,25 @@ public class DocumentKeywordAnalyser implements Keywords, AutoCloseable {
 
     }
 
+    /**
+     * this method records a file in the document frequency index of a tf idf extractor (normalization corpus). call after all keywords
+     * of the file are extracted, the keyword extraction only reads the index. a file already recorded (same content and file name) is
+     * skipped without annotating it
+     *
+     * @param byteArrayInputStream
+     * @param fileName
+     * @param tfidfKeywordExtractor
+     * @throws Exception
+     */
+    public void recordDocument(final ByteArrayInputStream byteArrayInputStream, final String fileName,
+            TFIDFKeywordExtractor tfidfKeywordExtractor) throws Exception {
+        String documentKey = getDocumentKey(byteArrayInputStream, fileName);
+        if (tfidfKeywordExtractor.isRecorded(documentKey)) {
+            return;
+        }
+        tfidfKeywordExtractor.recordDocument(documentKey, getAnnotatedCorpus(byteArrayInputStream, fileName));
+    }
+
     /**
      * this method set text sections (hole sentence) of a given keyword
      *
@@ -178,6 +519,11 @@ public class DocumentKeywordAnalyser implements Keywords, AutoCloseable {
             throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.EVERY_SINGLE_SENTENCE");
         }
         everySingleSentence = Boolean.parseBoolean(property);
+
+        similarityBatchSize = Integer.parseInt(properties.getProperty(ApplicationConfiguration.SIMILARITY_BATCH_SIZE, "256"));
+
+        int matchCacheSize = Integer.parseInt(properties.getProperty(ApplicationConfiguration.MATCH_CACHE_SIZE, "100000"));
+        matchCache = (matchCacheSize > 0) ? new LruCache<MatchKey, String[]>(matchCacheSize) : null;
         return true;
     }
 
@@ -7,6 +7,7 @@ import de.citytwin.database.PostgreSQLController;
 import de.citytwin.model.Address;
 import de.citytwin.model.Location;
 import de.citytwin.namedentities.NamedEntitiesExtractor;
+import de.citytwin.text.TextProcessing;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -98,7 +99,8 @@ public class DocumentNamedEntityAnalyser implements NamedEntities, AutoCloseable
         BodyContentHandler bodyContentHandler = documentConverter.getBodyContentHandler(byteArrayInputStream, fileName);
         List<List<String>> textcorpus = documentConverter.getCleanedTextCorpus(bodyContentHandler, everySingleSentence);
         namedEntities.addAll(namedEntitiesExtractor.getNamedEntities(textcorpus));
-        namedEntities.addAll(namedEntitiesExtractor.getNamedEntities(bodyContentHandler.toString(), addressRegex));
+        String text = TextProcessing.removePageBreaks(bodyContentHandler.toString());
+        namedEntities.addAll(namedEntitiesExtractor.getNamedEntities(text, addressRegex));
         setTextPassages(bodyContentHandler, namedEntities);
         return namedEntities;
 
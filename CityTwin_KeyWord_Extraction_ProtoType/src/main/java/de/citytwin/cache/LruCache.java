@@ -0,0 +1,256 @@
+package de.citytwin.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * this class is a size bounded cache, the least recently used entry is evicted <br>
+ * entries are spread over segments (access ordered {@link LinkedHashMap}), each segment is locked separately. hits, misses and
+ * evictions are counted
+ * <p>
+ * thread safe, a value of a missing key is loaded outside of the lock (concurrent loads of the same key are possible, the last one
+ * is kept)
+ *
+ * @author Maik Siegmund, FH Erfurt
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+public class LruCache<K, V> {
+
+    private static final int COUNT_SEGMENTS = 16;
+
+    /**
+     * This inner class is a segment of the cache
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+        private int capacity;
+        private final LongAdder evictions;
+
+        /**
+         * constructor.
+         *
+         * @param capacity
+         * @param evictions counter of the cache
+         */
+        public Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * this method set the capacity and evicts the least recently used entries
+         *
+         * @param capacity
+         */
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+            Iterator<K> iterator = keySet().iterator();
+            while (size() > capacity && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * this method splits the capacity over the segments, each segment keeps at least one entry
+     *
+     * @param capacity
+     * @param segmentIndex
+     * @return capacity of a single segment
+     */
+    private static int segmentCapacity(int capacity, int segmentIndex) {
+        return Math.max(1, capacity / COUNT_SEGMENTS + ((segmentIndex < capacity % COUNT_SEGMENTS) ? 1 : 0));
+    }
+
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int capacity;
+
+    /**
+     * constructor.
+     *
+     * @param capacity maximum count of entries (> 0, at least one entry per segment)
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        segments = (Segment<K, V>[])new Segment<?, ?>[COUNT_SEGMENTS];
+        for (int index = 0; index < COUNT_SEGMENTS; index++) {
+            segments[index] = new Segment<K, V>(segmentCapacity(capacity, index), evictions);
+        }
+    }
+
+    /**
+     * this method removes all entries, counters are kept
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * this method return a cached value
+     *
+     * @param key
+     * @return value or {@code null} if not cached
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentOf(key);
+        V value = null;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * this method return a cached value, a missing value is loaded and cached
+     *
+     * @param key
+     * @param loader called outside of the lock, must not return {@code null}
+     * @return value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return maximum count of entries
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return count of evicted entries
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return count of found values
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return hits / (hits + misses), 0 if nothing was requested
+     */
+    public double getHitRate() {
+        long countHits = getHits();
+        long countRequests = countHits + getMisses();
+        return (countRequests == 0) ? 0.0d : (double)countHits / countRequests;
+    }
+
+    /**
+     * @return count of missing values
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * this method caches a value
+     *
+     * @param key
+     * @param value not {@code null}
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        Segment<K, V> segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * this method return the segment of a key (spread hash, like {@link java.util.HashMap})
+     *
+     * @param key
+     * @return {@link Segment}
+     */
+    private Segment<K, V> segmentOf(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (COUNT_SEGMENTS - 1)];
+    }
+
+    /**
+     * this method set the maximum count of entries, the least recently used entries are evicted
+     *
+     * @param capacity (> 0)
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        for (int index = 0; index < COUNT_SEGMENTS; index++) {
+            synchronized (segments[index]) {
+                segments[index].setCapacity(segmentCapacity(capacity, index));
+            }
+        }
+    }
+
+    /**
+     * @return count of cached entries
+     */
+    public int size() {
+        int result = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                result += segment.size();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "capacity: " + capacity + ", size: " + size() + ", hits: " + getHits() + ", misses: " + getMisses() + ", hit rate: "
+                + String.format(Locale.ROOT, "%.3f", getHitRate()) + ", evictions: " + getEvictions();
+    }
+
+}
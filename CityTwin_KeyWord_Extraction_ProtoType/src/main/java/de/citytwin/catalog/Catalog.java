@@ -8,11 +8,13 @@ import de.citytwin.config.ApplicationConfiguration;
 import de.citytwin.converter.DocumentConverter;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * this class is a subject specific catalog
@@ -23,6 +25,8 @@ import java.util.Set;
 public class Catalog<T extends HasName> implements AutoCloseable {
 
     private static final String classSimpleName = "Term";
+    // source of versions, unique over all catalogs
+    private static final AtomicLong VERSIONS = new AtomicLong();
 
     /**
      * this method return default properties
@@ -44,9 +48,11 @@ public class Catalog<T extends HasName> implements AutoCloseable {
         return properties;
     }
 
-    private Map<String, T> catalog = null;
+    // replaced as a whole on reload, never changed after publishing
+    private volatile Map<String, T> catalog = null;
     private String path2catalogFile = null;
     private Class<T> clazz = null;
+    private volatile long version = 0;
 
     /**
      * constructor.
@@ -66,7 +72,6 @@ public class Catalog<T extends HasName> implements AutoCloseable {
 
     @Override
     public void close() throws Exception {
-        catalog.clear();
         catalog = null;
 
     }
@@ -92,6 +97,16 @@ public class Catalog<T extends HasName> implements AutoCloseable {
         return catalog.get(name);
     }
 
+    /**
+     * this method return the version of the loaded names, unique over all catalogs and changed on each {@link Catalog#reload()} <br>
+     * results calculated of the names (e.g. cached similarities) are valid as long as the version is the same
+     *
+     * @return {@code long}
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * this methods return the keys
      *
@@ -102,7 +117,7 @@ public class Catalog<T extends HasName> implements AutoCloseable {
     }
 
     /**
-     * this method initialize the catalog
+     * this method initialize the catalog, the entries are read into a new map and published before the version is changed
      *
      * @throws JsonParseException
      * @throws JsonMappingException
@@ -110,10 +125,21 @@ public class Catalog<T extends HasName> implements AutoCloseable {
      */
     private void initialize() throws JsonParseException, JsonMappingException, IOException {
         List<T> temps = DocumentConverter.getObjects(new TypeReference<List<T>>() {}, path2catalogFile);
-        catalog = new HashMap<String, T>();
+        Map<String, T> entries = new HashMap<String, T>(temps.size() * 2);
         for (T t : temps) {
-            catalog.put(t.getName(), t);
+            entries.put(t.getName(), t);
         }
+        catalog = Collections.unmodifiableMap(entries);
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * this method reads the catalog file again, a new version is set
+     *
+     * @throws IOException
+     */
+    public void reload() throws IOException {
+        initialize();
     }
 
     /**
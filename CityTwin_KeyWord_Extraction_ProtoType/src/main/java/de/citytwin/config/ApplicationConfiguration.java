@@ -1,6 +1,9 @@
 package de.citytwin.config;
 
 import de.citytwin.algorithm.keywords.TextRankKeywordExtractor;
+import de.citytwin.algorithm.word2vec.VocabularySubset;
+import de.citytwin.keywords.RankedKeywordExtractor;
+import de.citytwin.text.TextProcessing;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -22,17 +25,57 @@ public class ApplicationConfiguration {
     public final static String MIN_TERM_COUNT = "min.term.count";
     public final static String WORD_WINDOW_SIZE = "word.window.size";
     public final static String ITERATION = "iteration";
+    /** how many threads calculate the textrank score (1 sequential) */
+    public final static String TEXTRANK_PARALLELISM = "textrank.parallelism";
     public final static String WITH_VECTOR_NORMALIZATION = "with.vector.normalization";
+    /** which textrank matrix (sparse, dense) */
+    public final static String TEXTRANK_ENGINE = "textrank.engine";
+    /** which textrank solver (power, gauss-seidel, push), only for engine sparse, all solvers converge to the same fixed point */
+    public final static String TEXTRANK_SOLVER = "textrank.solver";
+    /** textrank stops if the L1 residual is less (0.0 run all iterations) */
+    public final static String TEXTRANK_TOLERANCE = "textrank.tolerance";
     /** remove stopwords? */
     public static final String WITH_STOPWORDFILTER = "with.stopword.filter";
     /** use stemming */
     public static final String WITH_STEMMING = "with.stemming";
-    /** which type of mathematically normalization (none, log, double) */
+    /** maximum count of cached stems (term : stem), shared by all {@link TextProcessing}, set by the first instance */
+    public static final String STEM_CACHE_SIZE = "stem.cache.size";
+    /** which type of mathematically normalization (none, log, double, corpus) */
     public static final String NORMALIZATION_TYPE = "normalization";
+    /** path to the document frequency index of all analysed documents, only for normalization corpus */
+    public static final String PATH_2_DOCUMENT_FREQUENCY_INDEX_FILE = "path.2.document.frequency.index.file";
+    /** how many threads count the terms of tf idf (1 sequential) */
+    public static final String TFIDF_PARALLELISM = "tfidf.parallelism";
+    /** maximum count of keywords of a ranked result (best k, {@link RankedKeywordExtractor}) */
+    public static final String TOP_K_KEYWORDS = "top.k.keywords";
     /** path to pretrained word2vec model {@link org.deeplearning4j.models.word2vec.Word2Vec} */
     public static final String PATH_2_WORD_2_VEC_FILE = "path.2.word2vec.file";
+    /** nearest words by hnsw index (approximate, index file next to the word2vec model) or exact (all words) */
+    public static final String NEAREST_ENGINE = "word2vec.nearest.engine";
+    /** maximum count of neighbours of a word on a level of the hnsw index */
+    public static final String HNSW_M = "hnsw.m";
+    /** size of the dynamic candidate list while building the hnsw index */
+    public static final String HNSW_EF_CONSTRUCTION = "hnsw.ef.construction";
+    /** size of the dynamic candidate list while searching the hnsw index, greater --> better recall and slower */
+    public static final String HNSW_EF_SEARCH = "hnsw.ef.search";
+    /** build a missing or outdated hnsw index on start (true, slow on large models) or search exact until it is built (false) */
+    public static final String HNSW_BUILD = "hnsw.build";
+    /** path to the memory mapped vector store, converted once of the word2vec model (empty = dl4j model on heap) */
+    public static final String PATH_2_VECTOR_STORE_FILE = "path.2.vector.store.file";
+    /** which values of the vector store (float32, float16, int8), only for the conversion */
+    public static final String VECTOR_STORE_QUANTIZATION = "vector.store.quantization";
+    /** path to the pruned vector store of catalog names and document terms ({@link VocabularySubset}) */
+    public static final String PATH_2_VOCABULARY_SUBSET_FILE = "path.2.vocabulary.subset.file";
+    /** minimum frequency of a document term in the training corpus of word2vec (0 = off), only for the vocabulary subset */
+    public static final String VOCABULARY_SUBSET_MIN_FREQUENCY = "vocabulary.subset.min.frequency";
+    /** minimum count of a document term in all analysed documents, only for the vocabulary subset */
+    public static final String VOCABULARY_SUBSET_MIN_COUNT = "vocabulary.subset.min.count";
     /** similarity in percent */
     public static final String SIMILARITY = "similarity";
+    /** count of keywords compared with all catalog names in one matrix product (0 compares each pair separately) */
+    public static final String SIMILARITY_BATCH_SIZE = "similarity.batch.size";
+    /** count of keywords whose matching catalog names are cached over all documents of an analyser (0 disables the cache) */
+    public static final String MATCH_CACHE_SIZE = "match.cache.size";
     /** how many nearest words, simultaneously maximum value */
     public static final String MAX_NEAREST = "max.nearest";
     /** maximum new lines sequences in a line */
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.citytwin.config.ApplicationConfiguration;
 import de.citytwin.text.TextProcessing;
+import de.citytwin.text.TokenArena;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
@@ -157,6 +158,34 @@ public class DocumentConverter implements AutoCloseable {
         return (everySingleSentence) ? getCleanedTextCorpusBySentences(bodyContentHandler) : getCleanedTextCorpusOnHoleCorpus(bodyContentHandler);
     }
 
+    /**
+     * this method tokenize bodyContentHandler in sentences and each term and remove footers, table of content, like
+     * {@link DocumentConverter#getCleanedTextCorpus(BodyContentHandler, boolean)}. terms are stored in one {@link TokenArena} instead of
+     * a string per term, read by {@link de.citytwin.text.AnnotatedCorpus#AnnotatedCorpus(TokenArena, TextProcessing)}
+     *
+     * @param bodyContentHandler
+     * @param everySingleSentence
+     * @return new reference of {@link TokenArena}
+     * @throws IOException
+     */
+    public TokenArena getCleanedTokenArena(BodyContentHandler bodyContentHandler, boolean everySingleSentence) throws IOException {
+
+        TokenArena result = new TokenArena();
+        int count = 0;
+        if (everySingleSentence) {
+            for (String sentence : textProcessing.tokenize2Sencences(bodyContentHandler, maxNewLines)) {
+                count += textProcessing.try2CleanSentence(sentence, cleaningPattern, minTermLength, minTermCount, minTableOfContent, result);
+            }
+        } else {
+            for (String sentence : textProcessing.getPreProcessedTextCorpus(bodyContentHandler.toString())) {
+                count += textProcessing.tokenize2Term(sentence, result);
+            }
+        }
+        result.trim();
+        LOGGER.info(MessageFormat.format("text corpus cleaned, {0} terms remain", count));
+        return result;
+    }
+
     /**
      * this method tokenize bodyContentHandler in sentences and each term and remove footers, table of content
      *
@@ -353,13 +382,14 @@ public class DocumentConverter implements AutoCloseable {
      */
     public void saveAsTextFile(final BodyContentHandler bodyContentHandler, final String destination) throws IOException {
         try(BufferedWriter writer = new BufferedWriter(new BufferedWriter(new FileWriter(destination, false)))) {
-            writer.write(bodyContentHandler.toString());
+            writer.write(TextProcessing.removePageBreaks(bodyContentHandler.toString()));
             writer.close();
         }
     }
 
     /**
-     * this method convert a fileInputStream to BodyContentHandler includes text
+     * this method convert a fileInputStream to BodyContentHandler includes text, each page ends with a form feed line
+     * ({@link PageBreakContentHandler})
      *
      * @param byteArrayInputStream
      * @param fileName
@@ -372,7 +402,7 @@ public class DocumentConverter implements AutoCloseable {
     private BodyContentHandler setTikaComponents(final ByteArrayInputStream byteArrayInputStream, String fileName)
             throws SAXException, TikaException, IOException, Exception {
 
-        this.bodyContentHandler = new BodyContentHandler(Integer.MAX_VALUE);
+        this.bodyContentHandler = new BodyContentHandler(new PageBreakContentHandler(Integer.MAX_VALUE));
         this.autoDetectParser = new AutoDetectParser();
         this.metadata = new Metadata();
         this.parseContext = prepareParserContext(fileName);
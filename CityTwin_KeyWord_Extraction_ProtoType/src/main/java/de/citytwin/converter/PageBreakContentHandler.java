@@ -0,0 +1,56 @@
+package de.citytwin.converter;
+
+import de.citytwin.text.TextProcessing;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * this class writes the text of a document like {@link WriteOutContentHandler} and marks the end of each page (tika
+ * {@code <div class="page">}) by {@link TextProcessing#PAGE_BREAK} <br>
+ * tika writes a newline after each page, so the form feed is a line of its own
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class PageBreakContentHandler extends ContentHandlerDecorator {
+
+    private static final char[] PAGE_BREAK_CHARS = { TextProcessing.PAGE_BREAK };
+
+    // depth of open div elements, marks the depth of the open page div
+    private int divDepth = 0;
+    private int pageDepth = -1;
+
+    /**
+     * constructor.
+     *
+     * @param writeLimit maximum number of characters
+     */
+    public PageBreakContentHandler(int writeLimit) {
+        super(new WriteOutContentHandler(writeLimit));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String name) throws SAXException {
+        super.endElement(uri, localName, name);
+        if ("div".equals(localName)) {
+            if (--divDepth == pageDepth) {
+                pageDepth = -1;
+                characters(PAGE_BREAK_CHARS, 0, PAGE_BREAK_CHARS.length);
+            }
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+        super.startElement(uri, localName, name, atts);
+        if ("div".equals(localName)) {
+            if (pageDepth < 0 && "page".equals(atts.getValue("class"))) {
+                pageDepth = divDepth;
+            }
+            divDepth++;
+        }
+    }
+
+}
@@ -1,9 +1,9 @@
 package de.citytwin.example;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-
 import de.citytwin.algorithm.keywords.TFIDFKeywordExtractor;
 import de.citytwin.algorithm.keywords.TextRankKeywordExtractor;
+import de.citytwin.algorithm.word2vec.VectorStore;
+import de.citytwin.algorithm.word2vec.VocabularySubset;
 import de.citytwin.algorithm.word2vec.Word2Vec;
 import de.citytwin.analyser.DocumentKeywordAnalyser;
 import de.citytwin.analyser.DocumentNamedEntityAnalyser;
@@ -13,15 +13,19 @@ import de.citytwin.config.ApplicationConfiguration;
 import de.citytwin.converter.DocumentConverter;
 import de.citytwin.database.Neo4JController;
 import de.citytwin.database.PostgreSQLController;
-import de.citytwin.keywords.KeywordExtractor;
+import de.citytwin.keywords.RankedKeywordExtractor;
 import de.citytwin.location.LocationEntitiesExtractor;
 import de.citytwin.model.ALKIS;
 import de.citytwin.model.Address;
 import de.citytwin.model.Keyword;
 import de.citytwin.model.Location;
 import de.citytwin.model.Term;
-import de.citytwin.model.WikiArticle;
+import de.citytwin.text.AnnotatedCorpus;
+import de.citytwin.text.TermCleaner;
 import de.citytwin.text.TextProcessing;
+import de.citytwin.text.TokenArena;
+import de.citytwin.text.TokenizedCorpus;
+import de.citytwin.text.WikiSentenceIterator;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -42,6 +46,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 
@@ -57,6 +65,26 @@ import org.slf4j.LoggerFactory;
  */
 public class Example {
 
+    /**
+     * This inner class holds the keyword extractors of a run, closing it closes each extractor (e.g. its fork join pool)
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static class KeywordExtractors extends ArrayList<RankedKeywordExtractor> implements AutoCloseable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void close() throws Exception {
+            for (RankedKeywordExtractor keywordExtractor : this) {
+                if (keywordExtractor instanceof AutoCloseable) {
+                    ((AutoCloseable)keywordExtractor).close();
+                }
+            }
+            clear();
+        }
+    }
+
     /** Klassenspezifischer, aktueller Logger (Server: org.apache.log4j.Logger; Client: java.util.logging.Logger) */
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     private static final String PROPERTY_ARGUMENT = "-p";
@@ -147,7 +175,7 @@ public class Example {
      *
      * @param properties
      * @param textProcessing
-     * @return
+     * @return {@link KeywordExtractors} close after use
      * @throws NoSuchMethodException
      * @throws SecurityException
      * @throws InstantiationException
@@ -156,20 +184,39 @@ public class Example {
      * @throws InvocationTargetException
      * @throws ClassNotFoundException
      */
-    private static List<KeywordExtractor> createKeywordExtractor(Properties properties, TextProcessing textProcessing) throws NoSuchMethodException,
-            SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, ClassNotFoundException {
+    private static KeywordExtractors createKeywordExtractor(Properties properties, TextProcessing textProcessing)
+            throws NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException,
+            InvocationTargetException, ClassNotFoundException {
         String temp = properties.getProperty(ApplicationConfiguration.KEYWORD_EXTRACTOR_ALGORITHMS);
         String[] keywordExtractorClassNames = temp.split(",");
-        List<KeywordExtractor> keywordExtractors = new ArrayList<KeywordExtractor>();
+        KeywordExtractors keywordExtractors = new KeywordExtractors();
         for (String keywordExtractorClassName : keywordExtractorClassNames) {
             Class<?> keyWordExtractorClass = Class.forName(keywordExtractorClassName);
             Constructor<?> constructor = keyWordExtractorClass.getConstructor(Properties.class, TextProcessing.class);
-            KeywordExtractor keywordExtractor = (KeywordExtractor)constructor.newInstance(properties, textProcessing);
+            RankedKeywordExtractor keywordExtractor = (RankedKeywordExtractor)constructor.newInstance(properties, textProcessing);
             keywordExtractors.add(keywordExtractor);
         }
         return keywordExtractors;
     }
 
+    /**
+     * this method records a document in the document frequency index of each tf idf extractor, once after all keywords are extracted
+     *
+     * @param documentKeywordAnalyser
+     * @param keywordExtractors
+     * @param byteArrayInputStream
+     * @param fileName
+     * @throws Exception
+     */
+    private static void recordDocument(DocumentKeywordAnalyser documentKeywordAnalyser, List<RankedKeywordExtractor> keywordExtractors,
+            ByteArrayInputStream byteArrayInputStream, String fileName) throws Exception {
+        for (RankedKeywordExtractor keywordExtractor : keywordExtractors) {
+            if (keywordExtractor instanceof TFIDFKeywordExtractor) {
+                documentKeywordAnalyser.recordDocument(byteArrayInputStream, fileName, (TFIDFKeywordExtractor)keywordExtractor);
+            }
+        }
+    }
+
     /**
      * this method analyzes documents and store the results properties load from file
      *
@@ -196,6 +243,7 @@ public class Example {
                 TextProcessing textProcessing = new TextProcessing(properties);
                 DocumentConverter documentConverter = new DocumentConverter(properties, textProcessing);
                 DocumentKeywordAnalyser documentKeywordAnalyser = new DocumentKeywordAnalyser(properties, documentConverter, word2Vec);
+                KeywordExtractors keywordExtractors = createKeywordExtractor(properties, textProcessing);
                 // Neo4JController neo4JController = new Neo4JController(properties);
                 PostgreSQLController postgreSQLController = new PostgreSQLController(properties)) {
 
@@ -205,10 +253,10 @@ public class Example {
                 // keyword extractor
                 ByteArrayInputStream byteArrayInputStream = Example.getByteArrayInputStream(file);
                 String fileName = file.getName();
-                List<KeywordExtractor> keywordExtractors = createKeywordExtractor(properties, textProcessing);
-                for (KeywordExtractor keywordExtractor : keywordExtractors) {
-                    keywords.putAll(documentKeywordAnalyser.getKeywords(byteArrayInputStream, fileName, keywordExtractor));
+                for (RankedKeywordExtractor keywordExtractor : keywordExtractors) {
+                    keywords.putAll(documentKeywordAnalyser.getRankedKeywords(byteArrayInputStream, fileName, keywordExtractor));
                 }
+                Example.recordDocument(documentKeywordAnalyser, keywordExtractors, byteArrayInputStream, fileName);
                 // filtering
                 Map<String, Double> filteredKeywords = new HashMap<String, Double>();
                 List<Catalog<HasName>> catalogs = Example.createCatalogs(properties);
@@ -233,6 +281,50 @@ public class Example {
         LOGGER.info("finished");
     }
 
+    /**
+     * this method is an example to create a vocabulary subset of the word2vec model: all catalog names and the terms of the documents
+     * in {@code documents.folder} are written as pruned vector store {@code path.2.vocabulary.subset.file}, use it as
+     * {@code path.2.vector.store.file}
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void createVocabularySubset(String[] args) throws Exception {
+
+        String propertiesPath = validateProgramArgumentOrExit(args);
+
+        InputStream inputStream = new FileInputStream(propertiesPath);
+        Properties properties = new Properties();
+        properties.load(inputStream);
+
+        List<File> files = new ArrayList<File>();
+        getFiles(properties.getProperty(ApplicationConfiguration.DOCUMENTS_FOLDER), files, false);
+        long minFrequency = Long.parseLong(properties.getProperty(ApplicationConfiguration.VOCABULARY_SUBSET_MIN_FREQUENCY));
+        int minCount = Integer.parseInt(properties.getProperty(ApplicationConfiguration.VOCABULARY_SUBSET_MIN_COUNT));
+        boolean everySingleSentence = Boolean.parseBoolean(properties.getProperty(ApplicationConfiguration.EVERY_SINGLE_SENTENCE));
+
+        try(
+                Word2Vec word2Vec = new Word2Vec(properties);
+                TextProcessing textProcessing = new TextProcessing(properties);
+                DocumentConverter documentConverter = new DocumentConverter(properties, textProcessing);) {
+
+            VocabularySubset vocabularySubset = new VocabularySubset(word2Vec, minFrequency, minCount);
+            for (Catalog<HasName> catalog : Example.createCatalogs(properties)) {
+                vocabularySubset.addCatalog(catalog);
+            }
+            for (File file : files) {
+                try(ByteArrayInputStream byteArrayInputStream = Example.getByteArrayInputStream(file);) {
+                    BodyContentHandler bodyContentHandler = documentConverter.getBodyContentHandler(byteArrayInputStream, file.getName());
+                    TokenArena tokenArena = documentConverter.getCleanedTokenArena(bodyContentHandler, everySingleSentence);
+                    vocabularySubset.addCorpus(new AnnotatedCorpus(tokenArena, textProcessing), textProcessing);
+                }
+            }
+            vocabularySubset.save(properties.getProperty(ApplicationConfiguration.PATH_2_VOCABULARY_SUBSET_FILE),
+                    VectorStore.quantizationOf(properties.getProperty(ApplicationConfiguration.VECTOR_STORE_QUANTIZATION)));
+        }
+        LOGGER.info("vocabulary subset finished");
+    }
+
     /**
      * this method is an example to analysis a single document edit parameters
      *
@@ -257,14 +349,15 @@ public class Example {
                 TextProcessing textProcessing = new TextProcessing(properties);
                 DocumentConverter documentConverter = new DocumentConverter(properties, textProcessing);
                 DocumentKeywordAnalyser documentKeywordAnalyser = new DocumentKeywordAnalyser(properties, documentConverter, word2Vec);
+                KeywordExtractors keywordExtractors = createKeywordExtractor(properties, textProcessing);
                 ByteArrayInputStream byteArrayInputStream = Example.getByteArrayInputStream(file);) {
 
-            List<KeywordExtractor> keywordExtractors = createKeywordExtractor(properties, textProcessing);
-
-            for (KeywordExtractor keywordExtractor : keywordExtractors) {
-                Map<String, Double> temp = documentKeywordAnalyser.getKeywords(byteArrayInputStream, file.getName(), keywordExtractor);
+            for (RankedKeywordExtractor keywordExtractor : keywordExtractors) {
+                Map<String, Double> temp = documentKeywordAnalyser.getRankedKeywords(byteArrayInputStream, file.getName(),
+                        keywordExtractor);
                 keywords.putAll(temp);
             }
+            Example.recordDocument(documentKeywordAnalyser, keywordExtractors, byteArrayInputStream, file.getName());
 
             List<Catalog<HasName>> catalogs = Example.createCatalogs(properties);
             for (Catalog<HasName> catalog : catalogs) {
@@ -441,10 +534,13 @@ public class Example {
                 ByteArrayInputStream byteArrayInputStream = Example.getByteArrayInputStream(file);) {
 
             String fileName = file.getName();
+            String documentKey = DocumentKeywordAnalyser.getDocumentKey(byteArrayInputStream, fileName);
             BodyContentHandler bodyContentHandler = documentConverter.getBodyContentHandler(byteArrayInputStream, fileName);
             List<List<String>> textCorpus = documentConverter.getCleanedTextCorpus(bodyContentHandler, true);
+            AnnotatedCorpus annotatedCorpus = new AnnotatedCorpus(textCorpus, textProcessing);
 
-            keywords = tfidfKeywordExtractor.getKeywords(textCorpus);
+            keywords = tfidfKeywordExtractor.getRankedKeywords(annotatedCorpus).toMap();
+            tfidfKeywordExtractor.recordDocument(documentKey, annotatedCorpus);
             keywords.forEach((key, value) -> System.out.println(key + ":" + value));
             LOGGER.info("TFIDF finish");
         }
@@ -452,6 +548,155 @@ public class Example {
         return keywords;
     }
 
+    /**
+     * this method is an example to measure the throughput of text processing (sentence detection, tokenization and pos tagging) on 1,
+     * 2, 4 and 8 threads, each thread analyse whole documents. edit parameters!
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void runTextProcessingThroughput(String[] args) throws Exception {
+
+        int[] countThreads = { 1, 2, 4, 8 };
+        List<File> files = new ArrayList<File>();
+        getFiles("D:\\VMS\\documents", files, false);
+
+        String propertiesPath = validateProgramArgumentOrExit(args);
+
+        InputStream inputStream = new FileInputStream(propertiesPath);
+        Properties properties = new Properties();
+        properties.load(inputStream);
+
+        try(
+                TextProcessing textProcessing = new TextProcessing(properties);
+                DocumentConverter documentConverter = new DocumentConverter(properties, textProcessing);) {
+
+            List<String> articles = new ArrayList<String>();
+            for (File file : files) {
+                try(ByteArrayInputStream byteArrayInputStream = Example.getByteArrayInputStream(file);) {
+                    articles.add(documentConverter.getBodyContentHandler(byteArrayInputStream, file.getName()).toString());
+                }
+            }
+            // warm up
+            Example.runTextProcessing(textProcessing, articles, 1);
+            double baseline = 0.0d;
+            for (int threads : countThreads) {
+                long start = System.nanoTime();
+                long countSentences = Example.runTextProcessing(textProcessing, articles, threads);
+                double seconds = (System.nanoTime() - start) / 1e9d;
+                double throughput = countSentences / seconds;
+                baseline = (threads == 1) ? throughput : baseline;
+                LOGGER.info(MessageFormat.format("threads: {0} sentences: {1} seconds: {2} sentences/s: {3} speedup: {4}",
+                        threads,
+                        countSentences,
+                        seconds,
+                        throughput,
+                        throughput / baseline));
+            }
+        }
+        LOGGER.info("throughput finish");
+    }
+
+    /**
+     * this method is an example to measure term cleaning of {@link TextProcessing#try2CleanSentence}, the regex cleaning (per term
+     * {@code replaceAll} and {@code try2RemoveHypen}) is compared with {@link TermCleaner} on the same terms. edit parameters!
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void runTermCleaningBenchmark(String[] args) throws Exception {
+
+        File file = new File("D:\\VMS\\documents\\wohnungsmarktbericht_wohnungsbaupotenziale_pr__sentation.pdf");
+        int repetitions = 10;
+
+        String propertiesPath = validateProgramArgumentOrExit(args);
+
+        InputStream inputStream = new FileInputStream(propertiesPath);
+        Properties properties = new Properties();
+        properties.load(inputStream);
+        String cleaningPattern = properties.getProperty(ApplicationConfiguration.CLEANING_REGEX);
+        int maxNewLines = Integer.parseInt(properties.getProperty(ApplicationConfiguration.MAX_NEW_LINES));
+        int minTermLength = Integer.parseInt(properties.getProperty(ApplicationConfiguration.MIN_TERM_LENGTH));
+        int minTermCount = Integer.parseInt(properties.getProperty(ApplicationConfiguration.MIN_TERM_COUNT));
+        int minTableOfContent = Integer.parseInt(properties.getProperty(ApplicationConfiguration.MIN_TABLE_OF_CONTENT));
+
+        try(
+                TextProcessing textProcessing = new TextProcessing(properties);
+                DocumentConverter documentConverter = new DocumentConverter(properties, textProcessing);
+                ByteArrayInputStream byteArrayInputStream = Example.getByteArrayInputStream(file);) {
+
+            BodyContentHandler bodyContentHandler = documentConverter.getBodyContentHandler(byteArrayInputStream, file.getName());
+            List<String> sentences = textProcessing.tokenize2Sencences(bodyContentHandler, maxNewLines);
+            List<String> terms = new ArrayList<String>();
+            for (String sentence : sentences) {
+                terms.addAll(textProcessing.tokenize2Term(sentence));
+            }
+            TermCleaner termCleaner = new TermCleaner(cleaningPattern);
+            long regexNanos = 0;
+            long cleanerNanos = 0;
+            long sentenceNanos = 0;
+            int differences = 0;
+            for (int repetition = 0; repetition < repetitions; repetition++) {
+                long start = System.nanoTime();
+                List<String> regexCleaned = new ArrayList<String>(terms.size());
+                for (String term : terms) {
+                    regexCleaned.add(textProcessing.try2RemoveHypen(term.trim().replaceAll(cleaningPattern, "")));
+                }
+                regexNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                List<String> cleaned = new ArrayList<String>(terms.size());
+                for (String term : terms) {
+                    cleaned.add(termCleaner.clean(term));
+                }
+                cleanerNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                for (String sentence : sentences) {
+                    textProcessing.try2CleanSentence(sentence, cleaningPattern, minTermLength, minTermCount, minTableOfContent);
+                }
+                sentenceNanos += System.nanoTime() - start;
+                differences = (regexCleaned.equals(cleaned)) ? differences : differences + 1;
+            }
+            LOGGER.info(MessageFormat.format("terms: {0} regex ms: {1} cleaner ms: {2} speedup: {3} differences: {4} sentences ms: {5}",
+                    terms.size(),
+                    regexNanos / repetitions / 1e6d,
+                    cleanerNanos / repetitions / 1e6d,
+                    (double)regexNanos / cleanerNanos,
+                    differences,
+                    sentenceNanos / repetitions / 1e6d));
+        }
+    }
+
+    /**
+     * this method detect sentences, tokenize and tag all articles on a fixed thread pool
+     *
+     * @param textProcessing
+     * @param articles
+     * @param threads
+     * @return count of processed sentences
+     * @throws Exception
+     */
+    private static long runTextProcessing(TextProcessing textProcessing, List<String> articles, int threads) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        AtomicLong countSentences = new AtomicLong();
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (String article : articles) {
+                futures.add(executorService.submit(() -> {
+                    for (String sentence : textProcessing.tokenize2Sencences(article)) {
+                        textProcessing.getPOSTags(textProcessing.tokenize2Term(sentence));
+                        countSentences.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        return countSentences.get();
+    }
+
     /**
      * this method returns default properties
      *
@@ -519,19 +764,25 @@ public class Example {
         List<File> files = new ArrayList<File>();
         Example.getFiles("D:\\vms\\sharedFolder\\wikidumps\\text", files, false);
 
+        // tokenized once, further trainings replay the file
+        String path2TokenizedCorpusFile = "D:\\vms\\sharedFolder\\wikidumps\\wiki_tokenized.bin";
+
         try(
                 TextProcessing textProcessing = new TextProcessing(properties);
                 Word2Vec word2Vec = new Word2Vec(properties);) {
 
-            List<String> articlesSentences = new ArrayList<String>();
-            for (File file : files) {
-                List<WikiArticle> articles = DocumentConverter.getObjects(new TypeReference<List<WikiArticle>>() {}, file.getAbsolutePath());
-                for (WikiArticle article : articles) {
-                    articlesSentences.addAll(textProcessing.tokenize2Sencences(article.getText()));
+            if (!new File(path2TokenizedCorpusFile).exists()) {
+                // articles streamed file by file, a dump does not fit into the memory
+                int threads = Runtime.getRuntime().availableProcessors();
+                try(WikiSentenceIterator sentenceIterator = new WikiSentenceIterator(files, textProcessing,
+                        WikiSentenceIterator.DEFAULT_CAPACITY)) {
+                    TokenizedCorpus.write(sentenceIterator, textProcessing, threads, path2TokenizedCorpusFile);
                 }
             }
+            TokenizedCorpus tokenizedCorpus = TokenizedCorpus.open(path2TokenizedCorpusFile);
             HashMap<String, Integer> trainParameters = Word2Vec.getDefaultTrainParameters();
-            word2Vec.trainModel(articlesSentences, trainParameters, textProcessing);
+            word2Vec.trainModel(tokenizedCorpus.iterator(), tokenizedCorpus.getTokenizerFactory(), trainParameters,
+                    textProcessing.getStopwords());
             word2Vec.saveModel("D:\\vms\\sharedFolder\\trainModels\\word2vec_" + LocalDate.now() + ".bin");
             LOGGER.info("word2vec model trained successfully");
         }
@@ -612,7 +863,7 @@ public class Example {
                 documentKeywordAnalyser = new DocumentKeywordAnalyser(properties, documentConverter, word2Vec);
                 Map<String, Double> keywords = new HashMap<String, Double>();
                 Map<String, Double> filteredKeywords = new HashMap<String, Double>();
-                List<KeywordExtractor> keywordExtractors = createKeywordExtractor(properties, textProcessing);
+                KeywordExtractors keywordExtractors = createKeywordExtractor(properties, textProcessing);
                 List<Catalog<HasName>> catalogs = Example.createCatalogs(properties);
                 for (Long documentId : unanalyzedDocuments.keySet()) {
                     try {
@@ -625,9 +876,11 @@ public class Example {
                             continue;
                         }
                         // get keywords
-                        for (KeywordExtractor keywordExtractor : keywordExtractors) {
-                            keywords.putAll(documentKeywordAnalyser.getKeywords(byteArrayInputStream, metaData.get("name"), keywordExtractor));
+                        for (RankedKeywordExtractor keywordExtractor : keywordExtractors) {
+                            keywords.putAll(
+                                    documentKeywordAnalyser.getRankedKeywords(byteArrayInputStream, metaData.get("name"), keywordExtractor));
                         }
+                        Example.recordDocument(documentKeywordAnalyser, keywordExtractors, byteArrayInputStream, metaData.get("name"));
                         // filtering
                         for (Catalog<HasName> catalog : catalogs) {
                             filteredKeywords.putAll(documentKeywordAnalyser.filterKeywords(keywords, catalog));
@@ -669,6 +922,7 @@ public class Example {
                     }
 
                 }
+                keywordExtractors.close();
                 word2Vec.close();
                 documentKeywordAnalyser.close();
             }
@@ -1,5 +1,7 @@
 package de.citytwin.keywords;
 
+import de.citytwin.text.AnnotatedCorpus;
+
 import java.util.List;
 import java.util.Map;
 
@@ -24,4 +26,14 @@ public interface KeywordExtractor {
      */
 
     public Map<String, Double> getKeywords(List<List<String>> textcorpus) throws Exception;
+
+    /**
+     * this method extract keywords from an annotated text corpus, pos tags, stemmed terms and stopword flags are reused
+     *
+     * @param annotatedCorpus {@link AnnotatedCorpus}
+     * @return {@code  Map<String, Double>} <br>
+     *         key = keyword, value = score
+     * @throws Exception
+     */
+    public Map<String, Double> getKeywords(AnnotatedCorpus annotatedCorpus) throws Exception;
 }
@@ -0,0 +1,34 @@
+package de.citytwin.keywords;
+
+import de.citytwin.text.AnnotatedCorpus;
+
+/**
+ * this interface provide method(s) for keyword extraction with a compact ranked result, only the best k keywords are selected (bounded
+ * heap, no sorting of all scored terms)
+ *
+ * @author Maik Siegmund, FH Erfurt
+ * @version $Revision: 1.0 $
+ * @since CityTwin_KeyWord_Extraction_ProtoType 1.0
+ */
+public interface RankedKeywordExtractor extends KeywordExtractor {
+
+    /**
+     * this method extract the best k keywords from an annotated text corpus, k is configured by
+     * {@code ApplicationConfiguration.TOP_K_KEYWORDS}
+     *
+     * @param annotatedCorpus {@link AnnotatedCorpus}
+     * @return new reference of {@link RankedKeywords} (ordered by score, descending)
+     * @throws Exception
+     */
+    public RankedKeywords getRankedKeywords(AnnotatedCorpus annotatedCorpus) throws Exception;
+
+    /**
+     * this method extract the best k keywords from an annotated text corpus
+     *
+     * @param annotatedCorpus {@link AnnotatedCorpus}
+     * @param k maximum count of keywords (> 0)
+     * @return new reference of {@link RankedKeywords} (ordered by score, descending)
+     * @throws Exception
+     */
+    public RankedKeywords getRankedKeywords(AnnotatedCorpus annotatedCorpus, int k) throws Exception;
+}
@@ -0,0 +1,102 @@
+package de.citytwin.keywords;
+
+import de.citytwin.text.TermDictionary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * this class is a ranked result of a keyword extraction, stored as parallel arrays (index is the rank, 0 is the best keyword) <br>
+ * {@code termIds[rank]} id of the {@link TermDictionary} of the text corpus (or {@link TermDictionary#UNKNOWN}), {@code terms[rank]}
+ * keyword, {@code scores[rank]} score
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class RankedKeywords {
+
+    private final int[] termIds;
+    private final String[] terms;
+    private final double[] scores;
+
+    /**
+     * constructor.
+     *
+     * @param termIds
+     * @param terms
+     * @param scores
+     */
+    public RankedKeywords(int[] termIds, String[] terms, double[] scores) {
+        if (termIds.length != terms.length || terms.length != scores.length) {
+            throw new IllegalArgumentException("arrays have different lengths");
+        }
+        this.termIds = termIds;
+        this.terms = terms;
+        this.scores = scores;
+    }
+
+    /**
+     * @param rank
+     * @return score of the keyword
+     */
+    public double getScore(int rank) {
+        return scores[rank];
+    }
+
+    /**
+     * @return {@code double[]} scores, index is rank, only read
+     */
+    public double[] getScores() {
+        return scores;
+    }
+
+    /**
+     * @param rank
+     * @return keyword
+     */
+    public String getTerm(int rank) {
+        return terms[rank];
+    }
+
+    /**
+     * @param rank
+     * @return term id of the keyword or {@link TermDictionary#UNKNOWN}
+     */
+    public int getTermId(int rank) {
+        return termIds[rank];
+    }
+
+    /**
+     * @return {@code int[]} term ids, index is rank, only read
+     */
+    public int[] getTermIds() {
+        return termIds;
+    }
+
+    /**
+     * @return {@code String[]} keywords, index is rank, only read
+     */
+    public String[] getTerms() {
+        return terms;
+    }
+
+    /**
+     * @return count of keywords
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * this method converts the result like {@link KeywordExtractor#getKeywords(de.citytwin.text.AnnotatedCorpus)}
+     *
+     * @return new reference of {@code Map<String, Double>} (keyword : score), ordered by rank
+     */
+    public Map<String, Double> toMap() {
+        Map<String, Double> results = new LinkedHashMap<String, Double>(terms.length * 2);
+        for (int rank = 0; rank < terms.length; rank++) {
+            results.put(terms[rank], scores[rank]);
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,202 @@
+package de.citytwin.keywords;
+
+import de.citytwin.text.TermDictionary;
+
+import java.util.Arrays;
+
+/**
+ * this class selects the best k of a stream of scored terms by a bounded min heap (root is the worst selected term), each offer costs
+ * O(log k), memory O(k) <br>
+ * the order is the order of {@code sorted(Comparator.comparingDouble(v -> -v.getValue()))}: score descending, equal scores in order
+ * of offering
+ * <p>
+ * not thread safe
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TopKSelector {
+
+    /**
+     * this method compare two scored terms like {@code Comparator.comparingDouble(v -> -v)} on a stable sort
+     *
+     * @param leftScore
+     * @param leftSequence
+     * @param rightScore
+     * @param rightSequence
+     * @return {@code true} if left is ranked before right
+     */
+    private static boolean isBefore(double leftScore, long leftSequence, double rightScore, long rightSequence) {
+        int compare = Double.compare(-leftScore, -rightScore);
+        return compare < 0 || (compare == 0 && leftSequence < rightSequence);
+    }
+
+    private final int k;
+    // heap, index 0 is root, grows up to k
+    private int[] termIds;
+    private String[] terms;
+    private double[] scores;
+    private long[] sequences;
+    private int size = 0;
+    private long countOffers = 0;
+
+    /**
+     * constructor.
+     *
+     * @param k maximum count of selected terms (> 0)
+     */
+    public TopKSelector(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k: " + k);
+        }
+        this.k = k;
+        int capacity = Math.min(k, 1024);
+        termIds = new int[capacity];
+        terms = new String[capacity];
+        scores = new double[capacity];
+        sequences = new long[capacity];
+    }
+
+    /**
+     * this method grow the heap (double, at most k)
+     */
+    private void grow() {
+        int capacity = (int)Math.min(k, 2L * termIds.length);
+        termIds = Arrays.copyOf(termIds, capacity);
+        terms = Arrays.copyOf(terms, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+    }
+
+    /**
+     * this method compare two heap entries
+     *
+     * @param left heap index
+     * @param right heap index
+     * @return {@code true} if left is ranked before right
+     */
+    private boolean isBefore(int left, int right) {
+        return isBefore(scores[left], sequences[left], scores[right], sequences[right]);
+    }
+
+    /**
+     * this method offers a scored term
+     *
+     * @param termId {@link TermDictionary} id or {@link TermDictionary#UNKNOWN}
+     * @param term
+     * @param score
+     * @return {@code true} if the term is selected (yet)
+     */
+    public boolean offer(int termId, String term, double score) {
+        long sequence = countOffers++;
+        if (size < k) {
+            if (size == termIds.length) {
+                grow();
+            }
+            set(size, termId, term, score, sequence);
+            siftUp(size++);
+            return true;
+        }
+        // worse than the worst selected term
+        if (!isBefore(score, sequence, scores[0], sequences[0])) {
+            return false;
+        }
+        set(0, termId, term, score, sequence);
+        siftDown(0, size);
+        return true;
+    }
+
+    /**
+     * this method set a heap entry
+     *
+     * @param index
+     * @param termId
+     * @param term
+     * @param score
+     * @param sequence
+     */
+    private void set(int index, int termId, String term, double score, long sequence) {
+        termIds[index] = termId;
+        terms[index] = term;
+        scores[index] = score;
+        sequences[index] = sequence;
+    }
+
+    /**
+     * this method moves a heap entry down, the worst entry is moved to the root
+     *
+     * @param index
+     * @param heapSize
+     */
+    private void siftDown(int index, int heapSize) {
+        int child = 0;
+        while ((child = 2 * index + 1) < heapSize) {
+            if (child + 1 < heapSize && isBefore(child, child + 1)) {
+                child++;
+            }
+            if (!isBefore(index, child)) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    /**
+     * this method moves a heap entry up
+     *
+     * @param index
+     */
+    private void siftUp(int index) {
+        int parent = 0;
+        while (index > 0 && isBefore(parent = (index - 1) / 2, index)) {
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    /**
+     * @return count of selected terms
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * this method swaps two heap entries
+     *
+     * @param left
+     * @param right
+     */
+    private void swap(int left, int right) {
+        int tempTermId = termIds[left];
+        String tempTerm = terms[left];
+        double tempScore = scores[left];
+        long tempSequence = sequences[left];
+        set(left, termIds[right], terms[right], scores[right], sequences[right]);
+        set(right, tempTermId, tempTerm, tempScore, tempSequence);
+    }
+
+    /**
+     * this method creates the ranked result (heap sort, O(k log k)), the selector is empty afterwards
+     *
+     * @return new reference of {@link RankedKeywords}
+     */
+    public RankedKeywords toRankedKeywords() {
+        int count = size;
+        int[] resultTermIds = new int[count];
+        String[] resultTerms = new String[count];
+        double[] resultScores = new double[count];
+        // root is the worst entry, fill from the last rank
+        for (int rank = count - 1; rank >= 0; rank--) {
+            resultTermIds[rank] = termIds[0];
+            resultTerms[rank] = terms[0];
+            resultScores[rank] = scores[0];
+            swap(0, --size);
+            terms[size] = null;
+            siftDown(0, size);
+        }
+        countOffers = 0;
+        return new RankedKeywords(resultTermIds, resultTerms, resultScores);
+    }
+
+}
@@ -0,0 +1,246 @@
+package de.citytwin.text;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * this class represent an annotated text corpus of a document. each term holds its pos tag, stemmed term and stopword flag. <br>
+ * build once per document and shared by all {@link de.citytwin.keywords.KeywordExtractor}, so pos tagging runs only once
+ * <p>
+ * pos tags are calculated on the whole (unfiltered) sentence. terms and stemmed terms are stored as ids of the
+ * {@link TermDictionary} of this corpus, so extractors count and compare {@code int} instead of hashing strings. terms of a sentence
+ * are read from the dictionary, no string is stored per term. the dictionary is released with the corpus, ids of two corpora are
+ * not comparable
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class AnnotatedCorpus {
+
+    /**
+     * This inner class adapts the term ids of a sentence to {@code List<String>}, terms are the strings of the {@link TermDictionary}
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private class TermList extends AbstractList<String> implements RandomAccess {
+
+        private final int sentenceIndex;
+
+        /**
+         * constructor.
+         *
+         * @param sentenceIndex
+         */
+        public TermList(int sentenceIndex) {
+            this.sentenceIndex = sentenceIndex;
+        }
+
+        @Override
+        public String get(int termIndex) {
+            return termDictionary.getTerm(termIds[sentenceIndex][termIndex]);
+        }
+
+        @Override
+        public int size() {
+            return termIds[sentenceIndex].length;
+        }
+    }
+
+    private List<List<String>> sentences;
+    private String[][] posTags;
+    private int[][] termIds;
+    private int[][] stemIds;
+    private TermDictionary termDictionary;
+    private boolean[][] stopwords;
+    private int countTerms;
+
+    /**
+     * constructor.
+     *
+     * @param textCorpus {@code List<List<String>>} <br>
+     *            first list is a sentence and this contains a list of terms
+     * @param textProcessing
+     */
+    public AnnotatedCorpus(List<List<String>> textCorpus, TextProcessing textProcessing) {
+        List<List<String>> tempTextCorpus = (textCorpus instanceof RandomAccess) ? textCorpus : new ArrayList<List<String>>(textCorpus);
+        initialize(tempTextCorpus.size());
+        for (List<String> sentence : tempTextCorpus) {
+            countTerms += sentence.size();
+        }
+        IntStream.range(0, tempTextCorpus.size())
+                .parallel()
+                .forEach(sentenceIndex -> {
+                    annotate(sentenceIndex, termDictionary.getIds(tempTextCorpus.get(sentenceIndex)), textProcessing);
+                });
+    }
+
+    /**
+     * constructor. the tokens are read by views and mapped to term ids, a string is only created for a term unknown to the
+     * {@link TermDictionary}
+     *
+     * @param tokenArena
+     * @param textProcessing
+     */
+    public AnnotatedCorpus(TokenArena tokenArena, TextProcessing textProcessing) {
+        initialize(tokenArena.countSentences());
+        countTerms = tokenArena.countTokens();
+        IntStream.range(0, tokenArena.countSentences())
+                .parallel()
+                .forEach(sentenceIndex -> annotate(sentenceIndex, getIds(tokenArena, sentenceIndex), textProcessing));
+    }
+
+    /**
+     * this method tags, stemms and checks each term of a sentence
+     *
+     * @param sentenceIndex
+     * @param tempTermIds ids of the terms of the sentence
+     * @param textProcessing
+     */
+    private void annotate(int sentenceIndex, int[] tempTermIds, TextProcessing textProcessing) {
+        termIds[sentenceIndex] = tempTermIds;
+        List<String> sentence = sentences.get(sentenceIndex);
+        List<Pair<String, String>> posTagged = textProcessing.getPOSTags(sentence);
+        int countSentenceTerms = sentence.size();
+        String[] tempPosTags = new String[countSentenceTerms];
+        int[] tempStemIds = new int[countSentenceTerms];
+        boolean[] tempStopwords = new boolean[countSentenceTerms];
+        for (int termIndex = 0; termIndex < countSentenceTerms; termIndex++) {
+            tempPosTags[termIndex] = posTagged.get(termIndex).getRight();
+            tempStemIds[termIndex] = textProcessing.stemm(termDictionary, tempTermIds[termIndex]);
+            tempStopwords[termIndex] = textProcessing.isStopword(sentence.get(termIndex));
+        }
+        posTags[sentenceIndex] = tempPosTags;
+        stemIds[sentenceIndex] = tempStemIds;
+        stopwords[sentenceIndex] = tempStopwords;
+    }
+
+    /**
+     * @return count of sentences
+     */
+    public int countSentences() {
+        return sentences.size();
+    }
+
+    /**
+     * @return count of terms overall
+     */
+    public int countTerms() {
+        return countTerms;
+    }
+
+    /**
+     * this method return the term ids of a sentence of an arena
+     *
+     * @param tokenArena
+     * @param sentenceIndex
+     * @return new reference of {@code int[]}
+     */
+    private int[] getIds(TokenArena tokenArena, int sentenceIndex) {
+        TokenArena.Token token = tokenArena.newToken();
+        int firstToken = tokenArena.getFirstToken(sentenceIndex);
+        int[] results = new int[tokenArena.countTokens(sentenceIndex)];
+        for (int termIndex = 0; termIndex < results.length; termIndex++) {
+            results[termIndex] = termDictionary.getId(token.set(firstToken + termIndex));
+        }
+        return results;
+    }
+
+    /**
+     * @param sentenceIndex
+     * @param termIndex
+     * @return pos tag of the term
+     */
+    public String getPosTag(int sentenceIndex, int termIndex) {
+        return posTags[sentenceIndex][termIndex];
+    }
+
+    /**
+     * @param sentenceIndex
+     * @return {@code List<String>} terms of a sentence, only read
+     */
+    public List<String> getSentence(int sentenceIndex) {
+        return sentences.get(sentenceIndex);
+    }
+
+    /**
+     * @param sentenceIndex
+     * @param termIndex
+     * @return stemmed term
+     */
+    public String getStem(int sentenceIndex, int termIndex) {
+        return termDictionary.getTerm(stemIds[sentenceIndex][termIndex]);
+    }
+
+    /**
+     * @param sentenceIndex
+     * @return {@code int[]} ids of the stemmed terms of a sentence ({@link TermDictionary}), only read
+     */
+    public int[] getStemIds(int sentenceIndex) {
+        return stemIds[sentenceIndex];
+    }
+
+    /**
+     * @param sentenceIndex
+     * @param termIndex
+     * @return term
+     */
+    public String getTerm(int sentenceIndex, int termIndex) {
+        return termDictionary.getTerm(termIds[sentenceIndex][termIndex]);
+    }
+
+    /**
+     * @return {@link TermDictionary} of the term ids and stem ids
+     */
+    public TermDictionary getTermDictionary() {
+        return termDictionary;
+    }
+
+    /**
+     * @param sentenceIndex
+     * @return {@code int[]} ids of the terms of a sentence ({@link TermDictionary}), only read
+     */
+    public int[] getTermIds(int sentenceIndex) {
+        return termIds[sentenceIndex];
+    }
+
+    /**
+     * @return {@code List<List<String>>} whole text corpus, only read
+     */
+    public List<List<String>> getTextCorpus() {
+        return sentences;
+    }
+
+    /**
+     * this method initialize the fields, sentences are annotated afterwards in parallel (common fork join pool)
+     *
+     * @param size count of sentences
+     */
+    private void initialize(int size) {
+        List<List<String>> tempSentences = new ArrayList<List<String>>(size);
+        posTags = new String[size][];
+        termIds = new int[size][];
+        stemIds = new int[size][];
+        termDictionary = new TermDictionary();
+        stopwords = new boolean[size][];
+        countTerms = 0;
+        for (int sentenceIndex = 0; sentenceIndex < size; sentenceIndex++) {
+            tempSentences.add(new TermList(sentenceIndex));
+        }
+        sentences = Collections.unmodifiableList(tempSentences);
+    }
+
+    /**
+     * @param sentenceIndex
+     * @param termIndex
+     * @return {@code true} if the term is in the stopword list
+     */
+    public boolean isStopword(int sentenceIndex, int termIndex) {
+        return stopwords[sentenceIndex][termIndex];
+    }
+
+}
@@ -0,0 +1,202 @@
+package de.citytwin.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * this class checks whether a text contains one of many words (case insensitive), by an aho corasick automaton. <br>
+ * words are lower cased once, the text is scanned once without allocation
+ * <p>
+ * same result as {@code text.toLowerCase().contains(word.toLowerCase())} for any word. chars lower cased differently by
+ * {@link String#toLowerCase()} (surrogates, {@code İ}, {@code Σ} and locales tr, az, lt) are checked by this way
+ *
+ * @see <a href=https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm> aho corasick wiki</a>
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class KeepwordMatcher {
+
+    private static final int ROOT = 0;
+
+    // lower cased words, only used by the fallback
+    private String[] words;
+    private boolean isLocaleSensitive;
+    // goto function, labels of state i are labels[labelPointers[i]] ... labels[labelPointers[i + 1] - 1] (ascending)
+    private int[] labelPointers;
+    private char[] labels;
+    private int[] targets;
+    private int[] fails;
+    // state ends a word or a suffix of the state ends a word
+    private boolean[] accepts;
+
+    /**
+     * constructor.
+     *
+     * @param words
+     */
+    public KeepwordMatcher(Collection<String> words) {
+        initialize(words);
+    }
+
+    /**
+     * this method checks whether a text contains any word
+     *
+     * @param text
+     * @return {@code boolean}
+     */
+    public boolean containsAny(CharSequence text) {
+        return containsAny(text, 0, text.length());
+    }
+
+    /**
+     * this method checks whether a part of a text contains any word
+     *
+     * @param text
+     * @param start inclusive
+     * @param end exclusive
+     * @return {@code boolean}
+     */
+    public boolean containsAny(CharSequence text, int start, int end) {
+        if (accepts[ROOT]) {
+            return true;
+        }
+        if (isLocaleSensitive) {
+            return containsAnyByString(text, start, end);
+        }
+        int state = ROOT;
+        for (int index = start; index < end; index++) {
+            char ch = text.charAt(index);
+            if (Character.isSurrogate(ch) || ch == '\u0130' || ch == '\u03A3') {
+                return containsAnyByString(text, start, end);
+            }
+            ch = Character.toLowerCase(ch);
+            int next = getTarget(state, ch);
+            while (next < 0 && state != ROOT) {
+                state = fails[state];
+                next = getTarget(state, ch);
+            }
+            state = (next < 0) ? ROOT : next;
+            if (accepts[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * this method checks whether a part of a text contains any word by {@link String#toLowerCase()} and {@link String#contains}
+     *
+     * @param text
+     * @param start inclusive
+     * @param end exclusive
+     * @return {@code boolean}
+     */
+    private boolean containsAnyByString(CharSequence text, int start, int end) {
+        String lowerCase = text.subSequence(start, end).toString().toLowerCase();
+        for (String word : words) {
+            if (lowerCase.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * this method return the next state (goto function)
+     *
+     * @param state
+     * @param ch
+     * @return next state or -1
+     */
+    private int getTarget(int state, char ch) {
+        int from = labelPointers[state];
+        int to = labelPointers[state + 1];
+        if (from == to) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(labels, from, to, ch);
+        return (position < 0) ? -1 : targets[position];
+    }
+
+    /**
+     * this method build the trie, the fail links and compile the goto function to arrays
+     *
+     * @param words
+     */
+    private void initialize(Collection<String> words) {
+        String language = Locale.getDefault().getLanguage();
+        isLocaleSensitive = "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+        List<String> lowerCases = new ArrayList<String>(words.size());
+        for (String word : words) {
+            lowerCases.add(word.toLowerCase());
+        }
+        this.words = lowerCases.toArray(new String[lowerCases.size()]);
+
+        // trie
+        List<Map<Character, Integer>> trie = new ArrayList<Map<Character, Integer>>();
+        List<Boolean> ends = new ArrayList<Boolean>();
+        trie.add(new TreeMap<Character, Integer>());
+        ends.add(false);
+        for (String word : this.words) {
+            int state = ROOT;
+            for (int index = 0; index < word.length(); index++) {
+                Integer next = trie.get(state).get(word.charAt(index));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<Character, Integer>());
+                    ends.add(false);
+                    trie.get(state).put(word.charAt(index), next);
+                }
+                state = next;
+            }
+            ends.set(state, true);
+        }
+
+        // compile goto function
+        int countStates = trie.size();
+        labelPointers = new int[countStates + 1];
+        for (int state = 0; state < countStates; state++) {
+            labelPointers[state + 1] = labelPointers[state] + trie.get(state).size();
+        }
+        labels = new char[labelPointers[countStates]];
+        targets = new int[labelPointers[countStates]];
+        accepts = new boolean[countStates];
+        for (int state = 0; state < countStates; state++) {
+            int position = labelPointers[state];
+            for (Map.Entry<Character, Integer> entry : trie.get(state).entrySet()) {
+                labels[position] = entry.getKey();
+                targets[position++] = entry.getValue();
+            }
+            accepts[state] = ends.get(state);
+        }
+
+        // fail links by breadth first search
+        fails = new int[countStates];
+        Queue<Integer> queue = new ArrayDeque<Integer>();
+        for (int position = labelPointers[ROOT]; position < labelPointers[ROOT + 1]; position++) {
+            queue.add(targets[position]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int position = labelPointers[state]; position < labelPointers[state + 1]; position++) {
+                int next = targets[position];
+                int fail = fails[state];
+                int target = getTarget(fail, labels[position]);
+                while (target < 0 && fail != ROOT) {
+                    fail = fails[fail];
+                    target = getTarget(fail, labels[position]);
+                }
+                fails[next] = (target < 0 || target == next) ? ROOT : target;
+                accepts[next] |= accepts[fails[next]];
+                queue.add(next);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package de.citytwin.text;
+
+import java.util.BitSet;
+import java.util.regex.Pattern;
+
+/**
+ * this class cleans a term like {@code TextProcessing.try2RemoveHypen(term.trim().replaceAll(cleaningPattern, ""))} in one pass <br>
+ * a cleaning pattern of a single character class (e.g. {@code [^–-\wäÄöÖüÜß,-/]}) is compiled once to a bitset of the kept
+ * chars, the term is cleaned into a reusable buffer (one per thread) and only the cleaned term is allocated (or nothing, if the
+ * buffer is read directly). other cleaning patterns are matched by the precompiled regex.
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TermCleaner {
+
+    // single character class, no nested classes
+    private static final Pattern CHARACTER_CLASS = Pattern.compile("\\[(?:\\\\.|[^\\\\\\[\\]])*\\]");
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    private Pattern cleaningPattern;
+    // kept chars, null if cleaning pattern is not a single character class
+    private BitSet keepings = null;
+
+    /**
+     * constructor.
+     *
+     * @param cleaningPattern regex, matching chars are removed
+     */
+    public TermCleaner(String cleaningPattern) {
+        this.cleaningPattern = Pattern.compile(cleaningPattern);
+        if (CHARACTER_CLASS.matcher(cleaningPattern).matches()) {
+            keepings = new BitSet(Character.MAX_VALUE + 1);
+            for (int ch = Character.MIN_VALUE; ch <= Character.MAX_VALUE; ch++) {
+                if (!this.cleaningPattern.matcher(String.valueOf((char)ch)).matches()) {
+                    keepings.set(ch);
+                }
+            }
+        }
+    }
+
+    /**
+     * this method trims a term, removes all chars matching the cleaning pattern and tries to remove a hyphen like
+     * {@link TextProcessing#try2RemoveHypen(String)}
+     *
+     * @param term
+     * @return cleaned term
+     */
+    public String clean(String term) {
+        int length = clean(term, 0, term.length());
+        return new String(BUFFER.get(), 0, length);
+    }
+
+    /**
+     * this method cleans a part of a text like {@link TermCleaner#clean(String)} into the buffer of the current thread, no allocation
+     * on a single character class
+     *
+     * @param text
+     * @param start inclusive
+     * @param end exclusive
+     * @return count of cleaned chars in {@link TermCleaner#getBuffer()}
+     */
+    public int clean(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        char[] buffer = BUFFER.get();
+        if (buffer.length < end - start) {
+            buffer = new char[end - start];
+            BUFFER.set(buffer);
+        }
+        if (keepings == null) {
+            return cleanByPattern(text, start, end, buffer);
+        }
+        int length = 0;
+        for (int index = start; index < end; index++) {
+            char ch = text.charAt(index);
+            if (Character.isSurrogate(ch)) {
+                // regex matches code points
+                return cleanByPattern(text, start, end, buffer);
+            }
+            if (keepings.get(ch)) {
+                buffer[length++] = ch;
+            }
+        }
+        // like String.split("-"), trailing hyphens are ignored, exact two parts and second part starts lower case
+        int last = length;
+        while (last > 0 && buffer[last - 1] == '-') {
+            last--;
+        }
+        int hyphen = -1;
+        for (int index = 0; index < last; index++) {
+            if (buffer[index] == '-') {
+                if (hyphen >= 0) {
+                    return length;
+                }
+                hyphen = index;
+            }
+        }
+        if (hyphen < 0 || !Character.isLowerCase(buffer[hyphen + 1])) {
+            return length;
+        }
+        System.arraycopy(buffer, hyphen + 1, buffer, hyphen, last - hyphen - 1);
+        return last - 1;
+    }
+
+    /**
+     * this method cleans a part of a text by the precompiled regex into a buffer
+     *
+     * @param text
+     * @param start inclusive
+     * @param end exclusive
+     * @param buffer size >= end - start
+     * @return count of cleaned chars
+     */
+    private int cleanByPattern(CharSequence text, int start, int end, char[] buffer) {
+        String cleaned = removeHyphen(cleaningPattern.matcher(text.subSequence(start, end)).replaceAll(""));
+        cleaned.getChars(0, cleaned.length(), buffer, 0);
+        return cleaned.length();
+    }
+
+    /**
+     * @return {@code char[]} buffer of the current thread, valid until the next call of {@link TermCleaner#clean(CharSequence, int, int)}
+     */
+    public char[] getBuffer() {
+        return BUFFER.get();
+    }
+
+    /**
+     * this method tries to remove a hyphen of a cleaned term, see {@link TextProcessing#try2RemoveHypen(String)}
+     *
+     * @param term
+     * @return
+     */
+    private String removeHyphen(String term) {
+        String[] parts = term.split("-");
+        if (parts.length != 2) {
+            return term;
+        }
+        return (Character.isLowerCase(parts[1].charAt(0))) ? parts[0] + parts[1] : term;
+    }
+
+}
@@ -0,0 +1,152 @@
+package de.citytwin.text;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * this class is a dictionary of the terms of a text corpus, each term is mapped once to an int id (ascending, in order of first
+ * occurrence) <br>
+ * ids are stable for the lifetime of the dictionary, so sentences can be stored and compared as {@code int[]}. each
+ * {@link AnnotatedCorpus} owns its dictionary, the terms are released with the corpus
+ * <p>
+ * thread safe, known terms are looked up without locking, only new terms are appended under a lock
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TermDictionary {
+
+    /**
+     * This inner class is a lookup key of a char sequence (e.g. a {@link TokenArena.Token} view). same hash code as {@link String} and
+     * equal to a stored term with the same chars, so known terms are found without creating a string
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private static final class CharSequenceKey {
+
+        private final CharSequence text;
+        private final int hash;
+
+        /**
+         * constructor.
+         *
+         * @param text
+         */
+        public CharSequenceKey(CharSequence text) {
+            int temp = 0;
+            for (int index = 0; index < text.length(); index++) {
+                temp = 31 * temp + text.charAt(index);
+            }
+            this.text = text;
+            this.hash = temp;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            // stored keys are strings, the key is only used by get
+            return object instanceof String && ((String)object).contentEquals(text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /** id of an unknown term */
+    public static final int UNKNOWN = -1;
+
+    // keys are strings, looked up by strings or CharSequenceKey
+    private final Map<Object, Integer> ids = new ConcurrentHashMap<Object, Integer>();
+    // index is id, replaced on growing (copy), published by the volatile write
+    private volatile String[] terms = new String[1024];
+    private volatile int size = 0;
+
+    /**
+     * this method append a new term, only called once per term (by {@link ConcurrentHashMap#computeIfAbsent})
+     *
+     * @param term
+     * @return id of the term
+     */
+    private synchronized Integer add(String term) {
+        int id = size;
+        String[] tempTerms = terms;
+        if (id == tempTerms.length) {
+            tempTerms = Arrays.copyOf(tempTerms, id * 2);
+        }
+        tempTerms[id] = term;
+        // volatile write, publish the term
+        terms = tempTerms;
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * this method return the id of a term, without adding it
+     *
+     * @param term
+     * @return id or {@link TermDictionary#UNKNOWN}
+     */
+    public int findId(String term) {
+        Integer id = ids.get(term);
+        return (id == null) ? UNKNOWN : id;
+    }
+
+    /**
+     * this method return the id of a term, unknown terms get the next id
+     *
+     * @param term
+     * @return {@code int}
+     */
+    public int getId(String term) {
+        Integer id = ids.get(term);
+        return (id != null) ? id : ids.computeIfAbsent(term, key -> add(term));
+    }
+
+    /**
+     * this method return the id of a term given as char sequence, a string is created only for an unknown term
+     *
+     * @param term e.g. {@link TokenArena.Token}
+     * @return {@code int}
+     */
+    public int getId(CharSequence term) {
+        if (term instanceof String) {
+            return getId((String)term);
+        }
+        Integer id = ids.get(new CharSequenceKey(term));
+        return (id != null) ? id : getId(term.toString());
+    }
+
+    /**
+     * this method return the ids of all terms of a sentence
+     *
+     * @param terms
+     * @return new reference of {@code int[]}
+     */
+    public int[] getIds(List<String> terms) {
+        int[] results = new int[terms.size()];
+        int index = 0;
+        for (String term : terms) {
+            results[index++] = getId(term);
+        }
+        return results;
+    }
+
+    /**
+     * @param id
+     * @return term of id
+     */
+    public String getTerm(int id) {
+        return terms[id];
+    }
+
+    /**
+     * @return count of terms
+     */
+    public int size() {
+        return size;
+    }
+
+}
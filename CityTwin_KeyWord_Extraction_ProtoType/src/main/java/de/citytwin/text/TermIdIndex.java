@@ -0,0 +1,130 @@
+package de.citytwin.text;
+
+import java.util.Arrays;
+
+/**
+ * this class maps ids of a {@link TermDictionary} to dense indexes (0 ... size - 1, in order of first occurrence) <br>
+ * a document contains only a few terms of the shared dictionary, counts of a document are stored in arrays by index. primitive open
+ * addressing table, no boxing
+ * <p>
+ * not thread safe, one instance per document
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TermIdIndex {
+
+    private static final int EMPTY = -1;
+
+    /**
+     * this method calculate a slot of the table (murmur3 finalizer)
+     *
+     * @param id
+     * @param mask
+     * @return {@code int}
+     */
+    private static int slot(int id, int mask) {
+        id ^= id >>> 16;
+        id *= 0x85ebca6b;
+        id ^= id >>> 13;
+        id *= 0xc2b2ae35;
+        id ^= id >>> 16;
+        return id & mask;
+    }
+
+    // open addressing table, key = id, value = index
+    private int[] keys;
+    private int[] values;
+    // index to id
+    private int[] ids;
+    private int size = 0;
+
+    /**
+     * constructor.
+     */
+    public TermIdIndex() {
+        keys = new int[1024];
+        values = new int[1024];
+        ids = new int[512];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * this method return the index of an id, unknown ids get the next index
+     *
+     * @param id
+     * @return {@code int}
+     */
+    public int add(int id) {
+        int mask = keys.length - 1;
+        int slot = slot(id, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == id) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        values[slot] = size;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        // load factor 0.5
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * @param index
+     * @return id of the index
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * this method return the index of an id
+     *
+     * @param id
+     * @return index or {@link TermDictionary#UNKNOWN}
+     */
+    public int indexOf(int id) {
+        int mask = keys.length - 1;
+        int slot = slot(id, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == id) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return TermDictionary.UNKNOWN;
+    }
+
+    /**
+     * this method doubles the table
+     */
+    private void rehash() {
+        keys = new int[keys.length * 2];
+        values = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = slot(ids[index], mask);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = ids[index];
+            values[slot] = index;
+        }
+    }
+
+    /**
+     * @return count of ids
+     */
+    public int size() {
+        return size;
+    }
+
+}
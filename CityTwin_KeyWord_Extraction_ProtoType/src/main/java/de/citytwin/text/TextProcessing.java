@@ -2,6 +2,7 @@
 
 package de.citytwin.text;
 
+import de.citytwin.cache.LruCache;
 import de.citytwin.config.ApplicationConfiguration;
 
 import java.io.FileInputStream;
@@ -18,7 +19,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.tuple.Pair;
 // import org.apache.lucene.analysis.Analyzer;
@@ -37,9 +38,11 @@ import opennlp.tools.stemmer.snowball.SnowballStemmer;
 import opennlp.tools.tokenize.Tokenizer;
 import opennlp.tools.tokenize.TokenizerME;
 import opennlp.tools.tokenize.TokenizerModel;
+import opennlp.tools.util.Span;
 
 /**
- * this class provides text processing methods
+ * this class provides text processing methods <br>
+ * thread safe, each nlp model is loaded once, each thread uses its own sentence detector, tokenizer, pos tagger and stemmer
  *
  * @author Maik Siegmund, FH Erfurt
  */
@@ -49,6 +52,24 @@ import opennlp.tools.tokenize.TokenizerModel;
 public class TextProcessing implements AutoCloseable {
 
     private static transient final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    /** marks the end of a page in a text corpus (form feed) */
+    public static final char PAGE_BREAK = '\f';
+    // features of a line, used by try2CleanTextCorpus
+    private static final int LINE_START = 0;
+    private static final int LINE_LENGTH = 1;
+    private static final int LINE_TERMS = 2;
+    private static final int LINE_DOTS = 3;
+    private static final int LINE_DIGITS = 4;
+    private static final int LINE_BLANKS = 5;
+    private static final int LINE_KEEPWORD = 6;
+    private static final int LINE_HYPHEN = 7;
+    private static final int LINE_PAGE = 8;
+    private static final int LINE_FEATURES = 9;
+    // running header and footer, count of first and last lines of a page and minimum count of pages
+    private static final int PAGE_MARGIN_LINES = 2;
+    private static final int MIN_PAGES_OF_HEADER = 3;
+    // stemming is independent of the instance, the cache is shared by all instances (and threads), created by the first instance
+    private static volatile LruCache<String, String> stemCache = null;
 
     /**
      * this method create default properties
@@ -67,17 +88,62 @@ public class TextProcessing implements AutoCloseable {
         properties.setProperty(ApplicationConfiguration.MIN_TERM_LENGTH, "2");
         properties.setProperty(ApplicationConfiguration.MIN_TERM_COUNT, "5");
         properties.setProperty(ApplicationConfiguration.MIN_TABLE_OF_CONTENT, "80");
+        properties.setProperty(ApplicationConfiguration.STEM_CACHE_SIZE, "100000");
         return properties;
     }
 
+    /**
+     * this method return the stem cache shared by all instances (e.g. to read hits and misses)
+     *
+     * @return {@link LruCache} (term : stemmed term) or {@code null} if no instance was created
+     */
+    public static LruCache<String, String> getStemCache() {
+        return stemCache;
+    }
+
+    /**
+     * this method creates the shared stem cache once, the capacity is set by the first instance and not changed by later ones
+     *
+     * @param capacity
+     */
+    private static synchronized void initializeStemCache(int capacity) {
+        if (stemCache == null) {
+            stemCache = new LruCache<String, String>(capacity);
+            return;
+        }
+        if (stemCache.getCapacity() != capacity) {
+            LOGGER.info(MessageFormat.format("stem cache is shared, capacity {0} is kept (requested {1}).", stemCache.getCapacity(),
+                    capacity));
+        }
+    }
+
+    /**
+     * this method removes the page breaks ({@link TextProcessing#PAGE_BREAK}) of a text, e.g. before sentence detection or named entity
+     * recognition. only the header and footer detection needs them
+     *
+     * @param text
+     * @return {@code String} text without page breaks
+     */
+    public static String removePageBreaks(String text) {
+        return (text.indexOf(PAGE_BREAK) < 0) ? text : text.replace(String.valueOf(PAGE_BREAK), "");
+    }
+
     private boolean isInitialzied = false;
-    private POSTaggerME posTagger = null;
-    private SentenceDetectorME sentenceDetector = null;
+    // models are thread safe and loaded once, the me instances are not thread safe (one instance per thread)
+    private SentenceModel sentenceModel = null;
+    private POSModel posModel = null;
+    private TokenizerModel tokenizerModel = null;
+    private ThreadLocal<POSTaggerME> posTagger = ThreadLocal.withInitial(() -> new POSTaggerME(posModel));
+    private ThreadLocal<SentenceDetectorME> sentenceDetector = ThreadLocal.withInitial(() -> new SentenceDetectorME(sentenceModel));
     private Set<String> stopwords = new HashSet<String>();
     private Set<String> keepwords = new HashSet<String>();
+    private KeepwordMatcher keepwordMatcher = null;
+    // compiled cleaning patterns
+    private Map<String, TermCleaner> termCleaners = new ConcurrentHashMap<String, TermCleaner>();
     private Set<String> posTags = new HashSet<String>();
-    private Tokenizer tokenizer = null;
-    private SnowballStemmer snowballStemmer = null;
+    private ThreadLocal<Tokenizer> tokenizer = ThreadLocal.withInitial(() -> new TokenizerME(tokenizerModel));
+    private ThreadLocal<SnowballStemmer> snowballStemmer = ThreadLocal
+            .withInitial(() -> new SnowballStemmer(SnowballStemmer.ALGORITHM.GERMAN));
     private String path2SentenceDetectorFile = null;
     private String path2PosTaggerFile = null;
     private String path2SentenceTokenizerFile = null;
@@ -106,6 +172,15 @@ public class TextProcessing implements AutoCloseable {
 
     @Override
     public void close() throws Exception {
+        LOGGER.info(MessageFormat.format("stem cache: {0}", stemCache));
+        // instances of the calling thread are removed now, those of worker threads become stale entries with the unreferenced thread locals
+        this.posTagger.remove();
+        this.sentenceDetector.remove();
+        this.snowballStemmer.remove();
+        this.tokenizer.remove();
+        this.posModel = null;
+        this.sentenceModel = null;
+        this.tokenizerModel = null;
         this.posTagger = null;
         this.posTags.clear();
         this.posTags = null;
@@ -115,6 +190,8 @@ public class TextProcessing implements AutoCloseable {
         this.stopwords = null;
         this.keepwords.clear();
         this.keepwords = null;
+        this.keepwordMatcher = null;
+        this.termCleaners.clear();
         this.tokenizer = null;
     }
 
@@ -206,6 +283,26 @@ public class TextProcessing implements AutoCloseable {
 
     }
 
+    /**
+     * this method checks whether a pos tag is used (keeping)
+     *
+     * @param posTag
+     * @return {@code boolean}
+     */
+    public boolean isPosTag(final String posTag) {
+        return posTags.contains(posTag);
+    }
+
+    /**
+     * this method checks whether a term is in the stopword list
+     *
+     * @param term
+     * @return {@code boolean}
+     */
+    public boolean isStopword(final String term) {
+        return stopwords.contains(term.toLowerCase());
+    }
+
     /**
      * this method gets used pos tags
      *
@@ -228,7 +325,7 @@ public class TextProcessing implements AutoCloseable {
         List<Pair<String, String>> results = new ArrayList<Pair<String, String>>(terms.size());
         String[] strings = new String[terms.size()];
         strings = terms.toArray(strings);
-        String[] tags = posTagger.tag(strings);
+        String[] tags = posTagger.get().tag(strings);
         int tagIndex = 0;
         for (String term : terms) {
             Pair<String, String> pair = Pair.of(term, tags[tagIndex++]);
@@ -253,22 +350,20 @@ public class TextProcessing implements AutoCloseable {
     private void initialize() throws IOException {
 
         try(InputStream inputStream = new FileInputStream(path2SentenceDetectorFile);) {
-            SentenceModel sentenceModel = new SentenceModel(inputStream);
-            sentenceDetector = new SentenceDetectorME(sentenceModel);
+            sentenceModel = new SentenceModel(inputStream);
         }
         try(InputStream inputStream = new FileInputStream(path2PosTaggerFile);) {
-            posTagger = new POSTaggerME(new POSModel(inputStream));
+            posModel = new POSModel(inputStream);
         }
         try(InputStream inputStream = new FileInputStream(path2SentenceTokenizerFile);) {
-            TokenizerModel tokenizerModel = new TokenizerModel(inputStream);
-            tokenizer = new TokenizerME(tokenizerModel);
+            tokenizerModel = new TokenizerModel(inputStream);
         }
 
         initializeWordLists(path2StopwordsFile, stopwords);
         initializeWordLists(path2PosTagsFile, posTags);
         initializeWordLists(path2keepwordsFile, keepwords);
+        keepwordMatcher = new KeepwordMatcher(keepwords);
 
-        snowballStemmer = new SnowballStemmer(SnowballStemmer.ALGORITHM.GERMAN);
         isInitialzied = true;
     }
 
@@ -299,14 +394,45 @@ public class TextProcessing implements AutoCloseable {
      * @return {@code int} in percent
      */
     public int probabilityOfSentenceTabelofContent(final String sentence) {
+        return probabilityOfSentenceTabelofContent(getTermCount(sentence),
+                countChar(sentence, '.'),
+                countDigits(sentence),
+                countChar(sentence, ' '));
+    }
 
-        float countDots = this.countChar(sentence, '.');
-        float countDigits = this.countDigits(sentence);
-        float countBlanks = this.countChar(sentence, ' ');
-        float lenghtWithoutTerms = getTermCount(sentence) + countDots + countDigits + countBlanks;
+    /**
+     * this method calculate the probability whether sentence is table of content by its counts
+     *
+     * @param countTerms
+     * @param countDots
+     * @param countDigits
+     * @param countBlanks
+     * @return {@code int} in percent
+     */
+    private int probabilityOfSentenceTabelofContent(int countTerms, float countDots, float countDigits, float countBlanks) {
+        float lenghtWithoutTerms = countTerms + countDots + countDigits + countBlanks;
         float accurany = (countDots + countDigits + countBlanks) / lenghtWithoutTerms * 100.0f;
         return (int)Math.ceil(accurany);
+    }
 
+    /**
+     * this method split a text in sentences, without logging (thread safe, each thread uses its own sentence detector)
+     *
+     * @param text
+     * @return new reference of {@code String[]}
+     */
+    public String[] splitSentences(final String text) {
+        return sentenceDetector.get().sentDetect(text);
+    }
+
+    /**
+     * this method split a sentence in terms, without logging (thread safe, each thread uses its own tokenizer)
+     *
+     * @param sentence
+     * @return new reference of {@code String[]}
+     */
+    public String[] splitTerms(final String sentence) {
+        return tokenizer.get().tokenize(sentence);
     }
 
     /**
@@ -318,15 +444,34 @@ public class TextProcessing implements AutoCloseable {
     public Map<String, String> stemm(final List<String> terms) {
 
         Map<String, String> results = new HashMap<String, String>();
-        String stemmed = "";
         for (String term : terms) {
-            stemmed = snowballStemmer.stem(term).toString();
-            results.put(term, stemmed);
+            results.computeIfAbsent(term, this::stemm);
         }
         return results;
 
     }
 
+    /**
+     * this method stemmed a term, stems are cached by a bounded cache shared by all instances
+     *
+     * @param term
+     * @return stemmed term
+     */
+    public String stemm(String term) {
+        return stemCache.get(term, key -> snowballStemmer.get().stem(key).toString());
+    }
+
+    /**
+     * this method stemmed a term of a term dictionary, the stem is read by {@link TextProcessing#stemm(String)} (shared stem cache)
+     *
+     * @param termDictionary
+     * @param id {@link TermDictionary#getId(String)}
+     * @return id of the stemmed term, the stem is added to the dictionary
+     */
+    public int stemm(TermDictionary termDictionary, int id) {
+        return termDictionary.getId(stemm(termDictionary.getTerm(id)));
+    }
+
     /**
      * this method tokenize bodyContentHandler in each sentences and remove newline pattern {@code "-\n"} and
      * <p>
@@ -344,7 +489,7 @@ public class TextProcessing implements AutoCloseable {
     public List<String> tokenize2Sencences(BodyContentHandler bodyContentHandler, int maxNewLines) throws IOException {
 
         List<String> results = new ArrayList<String>();
-        String[] sentences = sentenceDetector.sentDetect(bodyContentHandler.toString());
+        String[] sentences = sentenceDetector.get().sentDetect(removePageBreaks(bodyContentHandler.toString()));
         String temp = "";
         for (String sentence : sentences) {
             temp = sentence.replaceAll("-\n", "");
@@ -366,7 +511,7 @@ public class TextProcessing implements AutoCloseable {
      */
     public List<String> tokenize2Sencences(final String article) {
         List<String> results = new ArrayList<String>();
-        String[] sentences = sentenceDetector.sentDetect(article);
+        String[] sentences = splitSentences(article);
         for (String sentence : sentences) {
             results.add(sentence);
         }
@@ -383,7 +528,7 @@ public class TextProcessing implements AutoCloseable {
     public List<String> tokenize2Term(final String sentence) {
 
         List<String> results = new ArrayList<String>();
-        for (String term : tokenizer.tokenize(sentence)) {
+        for (String term : splitTerms(sentence)) {
             results.add(term);
         }
         LOGGER.info(MessageFormat.format("tokenize completed, sentence contains {0} terms", results.size()));
@@ -391,7 +536,7 @@ public class TextProcessing implements AutoCloseable {
     }
 
     /**
-     * This method tokenize a sentence in each term
+     * This method tokenize a sentence in each term, each term is cleaned and hyphens are removed ({@link TermCleaner})
      *
      * @param sentence
      * @param cleaningPattern
@@ -402,18 +547,62 @@ public class TextProcessing implements AutoCloseable {
 
         String temp = "";
         List<String> results = new ArrayList<String>();
-        for (String term : tokenizer.tokenize(sentence)) {
-            temp = term.trim().replaceAll(cleaningPattern, "");
-            temp = try2RemoveHypen(temp);
+        TermCleaner termCleaner = termCleaners.computeIfAbsent(cleaningPattern, TermCleaner::new);
+        for (String term : tokenizer.get().tokenize(sentence)) {
+            temp = termCleaner.clean(term);
             if (temp.length() >= minTermLenght) {
                 results.add(temp);
             }
 
         }
-        LOGGER.info(MessageFormat.format("tokenize completed, sentence contains {0} terms", results.size()));
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(MessageFormat.format("tokenize completed, sentence contains {0} terms", results.size()));
+        }
         return results;
     }
 
+    /**
+     * This method tokenize a sentence in each term and add the terms as new sentence to a token arena, no term is allocated
+     *
+     * @param sentence
+     * @param tokenArena {@link TokenArena}
+     * @return count of added terms
+     */
+    public int tokenize2Term(final String sentence, TokenArena tokenArena) {
+
+        tokenArena.startSentence();
+        Span[] spans = tokenizer.get().tokenizePos(sentence);
+        for (Span span : spans) {
+            tokenArena.addToken(sentence, span.getStart(), span.getEnd());
+        }
+        return spans.length;
+    }
+
+    /**
+     * This method tokenize a sentence in each term and add the cleaned terms ({@link TermCleaner}) as new sentence to a token arena,
+     * each term is cleaned from the sentence to the arena, no term is allocated
+     *
+     * @param sentence
+     * @param cleaningPattern
+     * @param minTermLenght
+     * @param tokenArena {@link TokenArena}
+     * @return count of added terms
+     */
+    public int tokenize2Term(final String sentence, String cleaningPattern, int minTermLenght, TokenArena tokenArena) {
+
+        int result = 0;
+        TermCleaner termCleaner = termCleaners.computeIfAbsent(cleaningPattern, TermCleaner::new);
+        tokenArena.startSentence();
+        for (Span span : tokenizer.get().tokenizePos(sentence)) {
+            int length = termCleaner.clean(sentence, span.getStart(), span.getEnd());
+            if (length >= minTermLenght) {
+                tokenArena.addToken(termCleaner.getBuffer(), 0, length);
+                result++;
+            }
+        }
+        return result;
+    }
+
     /**
      * this method try to remove unimportant information like headings, table of content and listing
      *
@@ -438,14 +627,36 @@ public class TextProcessing implements AutoCloseable {
         if (probabilityOfSentenceTabelofContent(sentence) >= minTableOfContent) {
             return results;
         }
-        for (String term : terms) {
-            String temp = try2RemoveHypen(term);
-            results.add(temp);
-        }
+        // hyphens already removed by tokenize2Term
+        results.addAll(terms);
         return results;
 
     }
 
+    /**
+     * this method try to remove unimportant information like headings, table of content and listing, like
+     * {@link TextProcessing#try2CleanSentence(String, String, int, int, int)}. the cleaned sentence is added to a token arena, a removed
+     * sentence is added empty
+     *
+     * @param sentence
+     * @param cleaningPattern
+     * @param minTermLength
+     * @param minTermCount
+     * @param minTableOfContent
+     * @param tokenArena {@link TokenArena}
+     * @return count of added terms
+     */
+    public int try2CleanSentence(String sentence, String cleaningPattern, int minTermLength, int minTermCount, int minTableOfContent,
+            TokenArena tokenArena) {
+
+        int countTerms = tokenize2Term(sentence, cleaningPattern, minTermLength, tokenArena);
+        if (countTerms <= minTermCount || probabilityOfSentenceTabelofContent(sentence) >= minTableOfContent) {
+            tokenArena.clearSentence();
+            return 0;
+        }
+        return countTerms;
+    }
+
     /**
      * this method try to remove hypen(-) in a term like <br>
      * frühr-er --> frührer <br>
@@ -521,6 +732,11 @@ public class TextProcessing implements AutoCloseable {
             throw new IllegalArgumentException("set property --> " + ApplicationConfiguration.MIN_TABLE_OF_CONTENT);
         }
         minTableOfContent = Integer.parseInt(property);
+        int stemCacheSize = Integer.parseInt(properties.getProperty(ApplicationConfiguration.STEM_CACHE_SIZE, "100000"));
+        if (stemCacheSize < 1) {
+            throw new IllegalArgumentException("set property --> " + "ApplicationConfiguration.STEM_CACHE_SIZE (>= 1)");
+        }
+        initializeStemCache(stemCacheSize);
 
         return true;
     }
@@ -534,108 +750,247 @@ public class TextProcessing implements AutoCloseable {
      */
     public List<String> getPreProcessedTextCorpus(String textCorpus) throws IOException {
 
-        String temp = try2RemoveUnimportantLinesOnTextCorpus(textCorpus);
-        temp = try2RemoveTableOfContentOnTextCorpus(temp);
-        temp = try2RemoveDuplicateLinesOnTextCorpus(temp);
-        temp = try2RemoveHyphenOnTextCorpus(temp);
-        String[] sentences = sentenceDetector.sentDetect(temp.replaceAll("\r\n", " "));
+        // page breaks are needed by the header and footer detection only
+        String temp = removePageBreaks(try2CleanTextCorpus(textCorpus));
+        String[] sentences = sentenceDetector.get().sentDetect(temp.replaceAll("\r\n", " "));
         return Arrays.asList(sentences);
 
     }
 
     /**
-     * this method provides some logic to try remove lines contains only digtis, newlines, words contains in keepword-list remain
+     * this method provides some logic to clean a text corpus line by line. all line features (term count, dots, digits, blanks, keep
+     * word, hyphen) are calculated in one scan, then the filters are applied on the remaining lines in this order:
+     * <ol>
+     * <li>remove lines contains only digits, newlines, terms count lower than {@link TextProcessing#minTermCount}, words contains in
+     * keepword-list remain</li>
+     * <li>remove table of content lines and header</li>
+     * <li>remove duplicate lines (header, footer), words contains in keepword-list remain</li>
+     * <li>remove hyphens and concatenate these lines</li>
+     * </ol>
+     * each filter is skipped, if its input contains two lines or less <br>
+     * if pages are marked by form feed lines (tika page ends), lines in the margin of the pages are removed as running header or
+     * footer, if they occur in the margin of many pages (digits ignored, e.g. page numbers)
      *
      * @param textCorpus
      * @return
      */
-    private String try2RemoveUnimportantLinesOnTextCorpus(String textCorpus) {
+    private String try2CleanTextCorpus(String textCorpus) {
 
-        String[] textParts = textCorpus.split("\n");
-        if (textParts.length <= 2) {
+        // lines like String.split("\n"), trailing empty lines are ignored
+        int end = textCorpus.length();
+        while (end > 0 && textCorpus.charAt(end - 1) == '\n') {
+            end--;
+        }
+        int countLines = (end == 0) ? ((textCorpus.length() == 0) ? 1 : 0) : countChar(textCorpus.substring(0, end), '\n') + 1;
+        if (countLines <= 2) {
             return textCorpus;
         }
-        StringBuilder stringBuilder = new StringBuilder();
-        for (String textPart : textParts) {
-            if (textPart.trim().length() == 0 || containsOnlyDigits(textPart)) {
+
+        // remove unimportant lines and collect features of remaining lines
+        List<String> lines = new ArrayList<String>();
+        List<int[]> features = new ArrayList<int[]>();
+        int lineStart = 0;
+        int page = 0;
+        int pageBreak = textCorpus.indexOf(PAGE_BREAK);
+        while (lineStart <= end) {
+            int lineEnd = textCorpus.indexOf('\n', lineStart);
+            lineEnd = (lineEnd < 0 || lineEnd > end) ? end : lineEnd;
+            int[] feature = getLineFeatures(textCorpus, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+            // every page break counts, page breaks before the text of a line belong to the line
+            int textStart = (feature != null) ? feature[LINE_START] : lineEnd;
+            while (pageBreak >= 0 && pageBreak < textStart) {
+                page++;
+                pageBreak = textCorpus.indexOf(PAGE_BREAK, pageBreak + 1);
+            }
+            if (feature != null) {
+                feature[LINE_PAGE] = page;
+            }
+            while (pageBreak >= 0 && pageBreak < lineEnd) {
+                page++;
+                pageBreak = textCorpus.indexOf(PAGE_BREAK, pageBreak + 1);
+            }
+            if (feature == null || feature[LINE_DIGITS] == feature[LINE_LENGTH]) {
                 continue;
             }
-            if (getTermCount(textPart.trim()) < this.minTermCount ^ containsInKeepwords(textPart)) {
+            boolean isKeepword = keepwordMatcher.containsAny(textCorpus, feature[LINE_START], feature[LINE_START] + feature[LINE_LENGTH]);
+            if (feature[LINE_TERMS] < this.minTermCount ^ isKeepword) {
                 continue;
             }
-            stringBuilder.append(textPart.trim());
+            String line = textCorpus.substring(feature[LINE_START], feature[LINE_START] + feature[LINE_LENGTH]);
+            feature[LINE_KEEPWORD] = (isKeepword) ? 1 : 0;
+            lines.add(line);
+            features.add(feature);
+        }
+        if (lines.size() <= 2) {
+            return concatLines(lines);
+        }
+
+        // remove table of content
+        int count = 0;
+        for (int index = 0; index < lines.size(); ++index) {
+            int[] feature = features.get(index);
+            if (probabilityOfSentenceTabelofContent(feature[LINE_TERMS], feature[LINE_DOTS], feature[LINE_DIGITS], feature[LINE_BLANKS])
+                    > minTableOfContent) {
+                continue;
+            }
+            lines.set(count, lines.get(index));
+            features.set(count++, feature);
+        }
+        lines.subList(count, lines.size()).clear();
+        features.subList(count, features.size()).clear();
+        if (lines.size() <= 2) {
+            return concatLines(lines);
+        }
+
+        // remove duplicate lines and running header, footer
+        Map<String, Integer> countOfLines = new HashMap<String, Integer>(lines.size() * 2);
+        for (String line : lines) {
+            countOfLines.merge(line, 1, Integer::sum);
+        }
+        boolean[] isHeader = getRunningHeaders(lines, features, page + 1);
+        count = 0;
+        for (int index = 0; index < lines.size(); ++index) {
+            int[] feature = features.get(index);
+            if ((countOfLines.get(lines.get(index)) > 1 || isHeader[index]) && feature[LINE_KEEPWORD] == 0) {
+                continue;
+            }
+            lines.set(count, lines.get(index));
+            features.set(count++, feature);
+        }
+        lines.subList(count, lines.size()).clear();
+        features.subList(count, features.size()).clear();
+        if (lines.size() <= 2) {
+            return concatLines(lines);
+        }
+
+        // remove hyphens, lines ends with hyphen are concatenate with next line (last lines ends with hyphen are removed)
+        StringBuilder stringBuilder = new StringBuilder(textCorpus.length());
+        int hyphenStart = 0;
+        for (int index = 0; index < lines.size(); ++index) {
+            if (features.get(index)[LINE_HYPHEN] == 1) {
+                continue;
+            }
+            for (int hyphenIndex = hyphenStart; hyphenIndex < index; ++hyphenIndex) {
+                String line = lines.get(hyphenIndex);
+                stringBuilder.append(line, 0, line.length() - 1);
+            }
+            stringBuilder.append(lines.get(index));
             stringBuilder.append("\n");
+            hyphenStart = index + 1;
         }
         return stringBuilder.toString();
     }
 
     /**
-     * this method check whether sentence contains a keep word
+     * this method concatenate lines, each line ends with a newline
      *
-     * @param sentence
+     * @param lines
      * @return
      */
-    private boolean containsInKeepwords(String sentence) {
-        return (keepwords.stream().filter(keepword -> sentence.toLowerCase().contains(keepword.toLowerCase())).count() >= 1);
+    private String concatLines(List<String> lines) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String line : lines) {
+            stringBuilder.append(line);
+            stringBuilder.append("\n");
+        }
+        return stringBuilder.toString();
     }
 
     /**
-     * this method provide some logic to try to remove table of content lines and header
+     * this method calculate the features of a line in one scan, the line is trimmed like {@link String#trim()}
      *
      * @param textCorpus
-     * @return
+     * @param lineStart inclusive
+     * @param lineEnd exclusive
+     * @return {@code int[]} indexed by LINE_* or {@code null} if the trimmed line is empty
      */
-    private String try2RemoveTableOfContentOnTextCorpus(String textCorpus) {
-
-        String[] textParts = textCorpus.split("\n");
-        if (textParts.length <= 2) {
-            return textCorpus;
+    private int[] getLineFeatures(String textCorpus, int lineStart, int lineEnd) {
+        while (lineStart < lineEnd && textCorpus.charAt(lineStart) <= ' ') {
+            lineStart++;
         }
-        StringBuilder stringBuilder = new StringBuilder();
-        for (String textPart : textParts) {
-            if (this.probabilityOfSentenceTabelofContent(textPart) > minTableOfContent) {
-                continue;
+        while (lineEnd > lineStart && textCorpus.charAt(lineEnd - 1) <= ' ') {
+            lineEnd--;
+        }
+        if (lineStart == lineEnd) {
+            return null;
+        }
+        int[] feature = new int[LINE_FEATURES];
+        feature[LINE_START] = lineStart;
+        feature[LINE_LENGTH] = lineEnd - lineStart;
+        feature[LINE_TERMS] = getTermCount(textCorpus, lineStart, lineEnd);
+        for (int index = lineStart; index < lineEnd; ++index) {
+            char ch = textCorpus.charAt(index);
+            if (ch == '.') {
+                feature[LINE_DOTS]++;
+            } else if (ch == ' ') {
+                feature[LINE_BLANKS]++;
+            } else if (Character.isDigit(ch)) {
+                feature[LINE_DIGITS]++;
             }
-            stringBuilder.append(textPart);
-            stringBuilder.append("\n");
-
         }
-        return stringBuilder.toString();
+        feature[LINE_HYPHEN] = (isHyphen(textCorpus.charAt(lineEnd - 1))) ? 1 : 0;
+        return feature;
     }
 
     /**
-     * this method provides some logic to try remove duplicate lines (header, footer)
+     * this method marks running header and footer lines. a line is a running header or footer, if it is one of the first or last
+     * {@link TextProcessing#PAGE_MARGIN_LINES} lines of a page and the same line (digits ignored) is in the margin of at least
+     * {@link TextProcessing#MIN_PAGES_OF_HEADER} pages and a quarter of all pages
      *
-     * @param textCorpus
-     * @return
+     * @param lines
+     * @param features
+     * @param countPages
+     * @return {@code boolean[]} same index as lines
      */
-    private String try2RemoveDuplicateLinesOnTextCorpus(String textCorpus) {
-
-        String[] textParts = textCorpus.split("\n");
-        if (textParts.length <= 2) {
-            return textCorpus;
+    private boolean[] getRunningHeaders(List<String> lines, List<int[]> features, int countPages) {
+        boolean[] results = new boolean[lines.size()];
+        if (countPages < MIN_PAGES_OF_HEADER) {
+            return results;
         }
-        StringBuilder stringBuilder = new StringBuilder();
-
-        List<String> tempTextCorpus = Arrays.stream(textParts).collect(Collectors.toList());
-        int counts[] = new int[tempTextCorpus.size()];
-        // hashmap not suitable, to avoid hashcode collisions
-        // count sentence in text corpus
-        // index are the same
-        for (int index = 0; index < textParts.length; ++index) {
-            String temp = textParts[index];
-            counts[index] = (int)tempTextCorpus.stream().filter(sent -> sent.equals(temp)).count();
+        String[] keys = new String[lines.size()];
+        Map<String, Set<Integer>> pagesOfLines = new HashMap<String, Set<Integer>>();
+        int pageStart = 0;
+        for (int index = 0; index <= lines.size(); ++index) {
+            if (index < lines.size() && features.get(index)[LINE_PAGE] == features.get(pageStart)[LINE_PAGE]) {
+                continue;
+            }
+            // margin of page [pageStart, index)
+            for (int marginIndex = pageStart; marginIndex < index; ++marginIndex) {
+                if (marginIndex - pageStart >= PAGE_MARGIN_LINES && index - marginIndex > PAGE_MARGIN_LINES) {
+                    continue;
+                }
+                keys[marginIndex] = normalizeLine(lines.get(marginIndex));
+                pagesOfLines.computeIfAbsent(keys[marginIndex], key -> new HashSet<Integer>()).add(features.get(marginIndex)[LINE_PAGE]);
+            }
+            pageStart = index;
+        }
+        int minPages = Math.max(MIN_PAGES_OF_HEADER, countPages / 4);
+        for (int index = 0; index < lines.size(); ++index) {
+            results[index] = keys[index] != null && pagesOfLines.get(keys[index]).size() >= minPages;
         }
+        return results;
+    }
 
-        for (int index = 0; index < textParts.length; ++index) {
-            if (counts[index] > 1 && !containsInKeepwords(textParts[index])) {
+    /**
+     * this method normalize a line to compare running header and footer, digit sequences are replaced by {@code #} and whitespaces are
+     * collapsed
+     *
+     * @param line
+     * @return
+     */
+    private String normalizeLine(String line) {
+        StringBuilder stringBuilder = new StringBuilder(line.length());
+        char last = 0;
+        for (int index = 0; index < line.length(); ++index) {
+            char ch = line.charAt(index);
+            ch = (Character.isDigit(ch)) ? '#' : (ch <= ' ') ? ' ' : ch;
+            if ((ch == '#' || ch == ' ') && ch == last) {
                 continue;
             }
-
-            stringBuilder.append(textParts[index]);
-            stringBuilder.append("\n");
+            stringBuilder.append(ch);
+            last = ch;
         }
-
         return stringBuilder.toString();
     }
 
@@ -697,86 +1052,54 @@ public class TextProcessing implements AutoCloseable {
     }
 
     /**
-     * this method provides some logic to remove hyphens of text corpus and concatenate these sentences
+     * this method return a term (simple whitespace tokenizer)
      *
-     * @param textCorpus
+     * @param sentence
      * @return
      */
-    private String try2RemoveHyphenOnTextCorpus(String textCorpus) {
-        String[] textParts = textCorpus.split("\n");
-        if (textParts.length <= 2) {
-            return textCorpus;
-        }
-        StringBuilder stringBuilder = new StringBuilder();
-
-        List<String> partOfTextCorpus = new ArrayList<String>();
-
-        for (int index = 0; index < textParts.length; ++index) {
-            if (endsWithHyphen(textParts[index])) {
-                partOfTextCorpus.add(textParts[index]);
-
-            } else {
-                String temp = "";
-                for (String partOfTextCorpu : partOfTextCorpus) {
-                    temp += partOfTextCorpu.trim().substring(0, partOfTextCorpu.trim().length() - 1);
-                }
-                stringBuilder.append(temp + textParts[index]);
-                stringBuilder.append("\n");
-                partOfTextCorpus.clear();
-            }
-
-        }
-
-        return stringBuilder.toString();
+    private int getTermCount(String sentence) {
+        String temp = sentence.trim();
+        return getTermCount(temp, 0, temp.length());
     }
 
     /**
-     * this method count digits in a String ("123" = 3 not equal "123" = 1 )
+     * this method count terms of a trimmed part of a text, splitted by whitespaces. a term contains only letters, digits,
+     * {@code ( ) / - –} and is longer than {@link TextProcessing#minTermLength}
      *
-     * @param sentence
+     * @param text
+     * @param start inclusive
+     * @param end exclusive
      * @return
      */
-    private boolean containsOnlyDigits(String sentence) {
-        char[] charcaters = sentence.trim().toCharArray();
-        for (char c : charcaters) {
-            if (!Character.isDigit(c)) {
-                return false;
+    private int getTermCount(String text, int start, int end) {
+        int count = 0;
+        int termStart = start;
+        boolean isTerm = true;
+        for (int index = start; index <= end; ++index) {
+            char ch = (index < end) ? text.charAt(index) : ' ';
+            if (ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r') {
+                if (isTerm && index - termStart > this.minTermLength) {
+                    count++;
+                }
+                termStart = index + 1;
+                isTerm = true;
+                continue;
             }
+            // [a-zA-Z()/-\u2013\u002D]
+            isTerm &= (ch >= '/' && ch <= '\u2013') || ch == '(' || ch == ')' || ch == '-';
         }
-        return true;
-    }
-
-    /**
-     * this method checks whether a String ends with a hyphen ...
-     *
-     * @param sentence
-     * @return
-     */
-    private boolean endsWithHyphen(String sentence) {
+        return count;
 
-        String trimed = sentence.trim();
-        if (trimed.length() == 0)
-            return false;
-        String lastCharacter = trimed.substring(trimed.length() - 1, trimed.length());
-        return lastCharacter.matches("[\\u2013\\u002D­]");
     }
 
     /**
-     * this method return a term (simple whitespace tokenizer)
+     * this method checks whether a char is a hyphen
      *
-     * @param sentence
+     * @param ch
      * @return
      */
-    private int getTermCount(String sentence) {
-        String temp = sentence.trim();
-        int count = 0;
-        String[] parts = temp.split("[\\s]");
-        for (String part : parts) {
-            if (part.matches("[a-zA-ZwäÄüÜöÖß()/-\\u2013\\u002D]*") && part.trim().length() > this.minTermLength)
-                count++;
-        }
-        return count;
-
+    private boolean isHyphen(char ch) {
+        return ch == '\u2013' || ch == '\u002D' || ch == '\u00AD';
     }
 
     /**
@@ -0,0 +1,369 @@
+package de.citytwin.text;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * this class is a columnar store of a tokenized text corpus. all chars of all tokens are stored in one buffer, each token is an offset
+ * and a length, each sentence is a range of tokens
+ * <p>
+ * chars of token_i are {@code chars[tokenOffsets[i]] ... chars[tokenOffsets[i] + tokenLengths[i] - 1]} <br>
+ * tokens of sentence_i are {@code sentencePointers[i] ... sentencePointers[i + 1] - 1}
+ * <p>
+ * tokens are read by {@link Token} views (rebind, no allocation), {@link AnnotatedCorpus#AnnotatedCorpus(TokenArena, TextProcessing)}
+ * maps them to ids of the {@link TermDictionary}. {@link TokenArena#asTextCorpus()} adapts the store to {@code List<List<String>>} (a
+ * string per access). not thread safe while building
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TokenArena {
+
+    /**
+     * This inner class is a view of a single token, a view can be rebound to any token of the arena
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    public class Token implements CharSequence {
+
+        private int offset = 0;
+        private int length = 0;
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+            }
+            return chars[offset + index];
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        /**
+         * this method rebind the view
+         *
+         * @param tokenIndex
+         * @return this view
+         */
+        public Token set(int tokenIndex) {
+            offset = tokenOffsets[tokenIndex];
+            length = tokenLengths[tokenIndex];
+            return this;
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+            }
+            return new String(chars, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, offset, length);
+        }
+    }
+
+    /**
+     * This inner class adapts the sentences of the arena to {@code List<List<String>>}
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private class SentenceList extends AbstractList<List<String>> implements RandomAccess {
+
+        @Override
+        public List<String> get(int sentenceIndex) {
+            if (sentenceIndex < 0 || sentenceIndex >= countSentences) {
+                throw new IndexOutOfBoundsException("index: " + sentenceIndex + ", size: " + countSentences);
+            }
+            return new TermList(sentencePointers[sentenceIndex], sentencePointers[sentenceIndex + 1]);
+        }
+
+        @Override
+        public int size() {
+            return countSentences;
+        }
+    }
+
+    /**
+     * This inner class adapts the tokens of a sentence to {@code List<String>}
+     *
+     * @author Maik Siegmund, FH Erfurt
+     */
+    private class TermList extends AbstractList<String> implements RandomAccess {
+
+        private final int fromToken;
+        private final int toToken;
+
+        /**
+         * constructor.
+         *
+         * @param fromToken inclusive
+         * @param toToken exclusive
+         */
+        public TermList(int fromToken, int toToken) {
+            this.fromToken = fromToken;
+            this.toToken = toToken;
+        }
+
+        @Override
+        public String get(int termIndex) {
+            if (termIndex < 0 || termIndex >= toToken - fromToken) {
+                throw new IndexOutOfBoundsException("index: " + termIndex + ", size: " + (toToken - fromToken));
+            }
+            return getTerm(fromToken + termIndex);
+        }
+
+        @Override
+        public int size() {
+            return toToken - fromToken;
+        }
+    }
+
+    /**
+     * this method copies a text corpus in a new arena
+     *
+     * @param textCorpus {@code List<List<String>>}
+     * @return new reference of {@link TokenArena}
+     */
+    public static TokenArena of(List<List<String>> textCorpus) {
+        TokenArena result = new TokenArena();
+        for (List<String> sentence : textCorpus) {
+            result.startSentence();
+            for (String term : sentence) {
+                result.addToken(term, 0, term.length());
+            }
+        }
+        return result;
+    }
+
+    private char[] chars;
+    private int countChars = 0;
+    private int[] tokenOffsets;
+    private int[] tokenLengths;
+    private int countTokens = 0;
+    // size = count of sentences + 1
+    private int[] sentencePointers;
+    private int countSentences = 0;
+
+    /**
+     * constructor.
+     */
+    public TokenArena() {
+        chars = new char[4096];
+        tokenOffsets = new int[1024];
+        tokenLengths = new int[1024];
+        sentencePointers = new int[128];
+    }
+
+    /**
+     * this method add a token to the current sentence
+     *
+     * @param buffer
+     * @param offset
+     * @param length
+     * @return index of the token
+     */
+    public int addToken(char[] buffer, int offset, int length) {
+        ensureToken(length);
+        System.arraycopy(buffer, offset, chars, countChars, length);
+        return commitToken(length);
+    }
+
+    /**
+     * this method add a part of a text as token to the current sentence
+     *
+     * @param text
+     * @param start inclusive
+     * @param end exclusive
+     * @return index of the token
+     */
+    public int addToken(CharSequence text, int start, int end) {
+        int length = end - start;
+        ensureToken(length);
+        if (text instanceof String) {
+            ((String)text).getChars(start, end, chars, countChars);
+        } else {
+            for (int index = start; index < end; index++) {
+                chars[countChars + index - start] = text.charAt(index);
+            }
+        }
+        return commitToken(length);
+    }
+
+    /**
+     * this method adapts the arena to a text corpus, terms are created on each access
+     *
+     * @return {@code List<List<String>>} view, only read
+     */
+    public List<List<String>> asTextCorpus() {
+        return new SentenceList();
+    }
+
+    /**
+     * this method removes all tokens of the current sentence, the empty sentence is kept
+     */
+    public void clearSentence() {
+        int firstToken = sentencePointers[countSentences - 1];
+        if (firstToken < countTokens) {
+            countChars = tokenOffsets[firstToken];
+            countTokens = firstToken;
+        }
+        sentencePointers[countSentences] = countTokens;
+    }
+
+    /**
+     * this method finish a token, chars are already copied
+     *
+     * @param length
+     * @return index of the token
+     */
+    private int commitToken(int length) {
+        tokenOffsets[countTokens] = countChars;
+        tokenLengths[countTokens] = length;
+        countChars += length;
+        sentencePointers[countSentences] = ++countTokens;
+        return countTokens - 1;
+    }
+
+    /**
+     * this method compare a token with a text
+     *
+     * @param tokenIndex
+     * @param text
+     * @return {@code true} if same chars
+     */
+    public boolean contentEquals(int tokenIndex, CharSequence text) {
+        int length = tokenLengths[tokenIndex];
+        if (length != text.length()) {
+            return false;
+        }
+        int offset = tokenOffsets[tokenIndex];
+        for (int index = 0; index < length; index++) {
+            if (chars[offset + index] != text.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return count of sentences
+     */
+    public int countSentences() {
+        return countSentences;
+    }
+
+    /**
+     * @return count of tokens overall
+     */
+    public int countTokens() {
+        return countTokens;
+    }
+
+    /**
+     * @param sentenceIndex
+     * @return count of tokens of a sentence
+     */
+    public int countTokens(int sentenceIndex) {
+        return sentencePointers[sentenceIndex + 1] - sentencePointers[sentenceIndex];
+    }
+
+    /**
+     * this method grow the buffers for one more token
+     *
+     * @param length of the token
+     */
+    private void ensureToken(int length) {
+        if (countSentences == 0) {
+            throw new IllegalStateException("start a sentence first");
+        }
+        if (countChars + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, countChars + length));
+        }
+        // empty after trim()
+        if (countTokens == tokenOffsets.length) {
+            tokenOffsets = Arrays.copyOf(tokenOffsets, Math.max(16, countTokens * 2));
+            tokenLengths = Arrays.copyOf(tokenLengths, Math.max(16, countTokens * 2));
+        }
+    }
+
+    /**
+     * @return {@code char[]} backing buffer (size >= count of chars), only read
+     */
+    public char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * @param sentenceIndex
+     * @return index of the first token of a sentence
+     */
+    public int getFirstToken(int sentenceIndex) {
+        return sentencePointers[sentenceIndex];
+    }
+
+    /**
+     * this method creates a string of a token
+     *
+     * @param tokenIndex
+     * @return new reference of {@code String}
+     */
+    public String getTerm(int tokenIndex) {
+        return new String(chars, tokenOffsets[tokenIndex], tokenLengths[tokenIndex]);
+    }
+
+    /**
+     * @param tokenIndex
+     * @return count of chars of a token
+     */
+    public int getTokenLength(int tokenIndex) {
+        return tokenLengths[tokenIndex];
+    }
+
+    /**
+     * @param tokenIndex
+     * @return offset of a token in {@link TokenArena#getChars()}
+     */
+    public int getTokenOffset(int tokenIndex) {
+        return tokenOffsets[tokenIndex];
+    }
+
+    /**
+     * this method creates a view, rebind it by {@link Token#set(int)}
+     *
+     * @return new reference of {@link Token}
+     */
+    public Token newToken() {
+        return new Token();
+    }
+
+    /**
+     * this method starts a new (empty) sentence, following tokens are added to it
+     *
+     * @return index of the sentence
+     */
+    public int startSentence() {
+        if (countSentences + 1 == sentencePointers.length) {
+            sentencePointers = Arrays.copyOf(sentencePointers, sentencePointers.length * 2);
+        }
+        sentencePointers[++countSentences] = countTokens;
+        return countSentences - 1;
+    }
+
+    /**
+     * this method shrink the buffers to the used size
+     */
+    public void trim() {
+        chars = Arrays.copyOf(chars, countChars);
+        tokenOffsets = Arrays.copyOf(tokenOffsets, countTokens);
+        tokenLengths = Arrays.copyOf(tokenLengths, countTokens);
+        sentencePointers = Arrays.copyOf(sentencePointers, countSentences + 1);
+    }
+
+}
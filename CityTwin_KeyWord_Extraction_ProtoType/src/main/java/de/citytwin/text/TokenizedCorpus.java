@@ -0,0 +1,481 @@
+package de.citytwin.text;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * this class is a corpus, tokenized once and stored as binary file of vocabulary ids. replayed memory mapped by
+ * {@link #iterator()} and {@link #getTokenizerFactory()}, so repeated word2vec trainings skip sentence detection and tokenizing
+ * <p>
+ * file layout (little endian) <br>
+ * header {@code magic (int), version (int), count of words (int), reserved (int), count of sentences (long), count of tokens (long),
+ * offsets of sentences and vocabulary (2 x long)} <br>
+ * sentences {@code count of tokens, ids of tokens (each varint)} <br>
+ * vocabulary {@code length (varint), utf-8 bytes} for each word, in order of ids (first occurrence)
+ * <p>
+ * terms of the tokenizer contain no blanks. thread safe (read only), each iterator has its own position
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TokenizedCorpus {
+
+    /**
+     * this inner class implements {@link org.deeplearning4j.text.sentenceiterator.SentenceIterator}, a sentence is its tokens joined
+     * by blank
+     */
+    public class ReplayIterator implements org.deeplearning4j.text.sentenceiterator.SentenceIterator {
+
+        private org.deeplearning4j.text.sentenceiterator.SentencePreProcessor sentencePreProcessor = new SentencePreProcessor();
+        private ByteBuffer chunk = null;
+        private int chunkIndex = 0;
+        private long sentenceIndex = 0;
+
+        /**
+         * constructor.
+         */
+        private ReplayIterator() {
+            reset();
+        }
+
+        @Override
+        public void finish() {
+            sentenceIndex = countSentences;
+        }
+
+        @Override
+        public org.deeplearning4j.text.sentenceiterator.SentencePreProcessor getPreProcessor() {
+            return sentencePreProcessor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return sentenceIndex < countSentences;
+        }
+
+        @Override
+        public String nextSentence() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int length = readVarint();
+            StringBuilder stringBuilder = new StringBuilder(length * 8);
+            for (int index = 0; index < length; index++) {
+                if (index > 0) {
+                    stringBuilder.append(' ');
+                }
+                stringBuilder.append(words[readVarint()]);
+            }
+            sentenceIndex++;
+            String sentence = stringBuilder.toString();
+            return (sentencePreProcessor != null) ? sentencePreProcessor.preProcess(sentence) : sentence;
+        }
+
+        /**
+         * this method reads a varint, continued in the next chunk
+         *
+         * @return {@code int}
+         */
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            int current = 0;
+            do {
+                while (!chunk.hasRemaining()) {
+                    chunk = chunks[++chunkIndex].duplicate();
+                }
+                current = chunk.get() & 0xff;
+                value |= (current & 0x7f) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        @Override
+        public void reset() {
+            chunkIndex = 0;
+            chunk = (chunks.length > 0) ? chunks[0].duplicate() : ByteBuffer.allocate(0);
+            sentenceIndex = 0;
+        }
+
+        @Override
+        public void setPreProcessor(org.deeplearning4j.text.sentenceiterator.SentencePreProcessor preProcessor) {
+            sentencePreProcessor = preProcessor;
+        }
+
+    }
+
+    /**
+     * this inner class implements {@link org.deeplearning4j.text.tokenization.tokenizer.Tokenizer}, splits a replayed sentence by blank
+     */
+    public static class ReplayTokenizer implements org.deeplearning4j.text.tokenization.tokenizer.Tokenizer {
+
+        private final List<String> tokens;
+        private TokenPreProcess tokenPreProcess = null;
+        private int currentIndex = 0;
+
+        /**
+         * constructor.
+         *
+         * @param sentence
+         * @param tokenPreProcess
+         */
+        public ReplayTokenizer(String sentence, TokenPreProcess tokenPreProcess) {
+            this.tokens = (sentence.isEmpty()) ? new ArrayList<String>() : Arrays.asList(sentence.split(" "));
+            this.tokenPreProcess = tokenPreProcess;
+        }
+
+        @Override
+        public int countTokens() {
+            return tokens.size();
+        }
+
+        @Override
+        public List<String> getTokens() {
+            List<String> results = new ArrayList<String>(tokens.size());
+            while (hasMoreTokens()) {
+                results.add(nextToken());
+            }
+            return results;
+        }
+
+        @Override
+        public boolean hasMoreTokens() {
+            return (currentIndex < tokens.size());
+        }
+
+        @Override
+        public String nextToken() {
+            if (!hasMoreTokens()) {
+                return "";
+            }
+            String token = tokens.get(currentIndex++);
+            return (tokenPreProcess != null) ? tokenPreProcess.preProcess(token) : token;
+        }
+
+        @Override
+        public void setTokenPreProcessor(TokenPreProcess tokenPreProcessor) {
+            this.tokenPreProcess = tokenPreProcessor;
+        }
+
+    }
+
+    /**
+     * this inner class implements {@link org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory} of
+     * {@link ReplayTokenizer}
+     */
+    public static class ReplayTokenizerFactory implements org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory {
+
+        private TokenPreProcess tokenPreProcess = null;
+
+        @Override
+        public org.deeplearning4j.text.tokenization.tokenizer.Tokenizer create(InputStream toTokenize) {
+            return create(TokenizerFactory.read(toTokenize));
+        }
+
+        @Override
+        public org.deeplearning4j.text.tokenization.tokenizer.Tokenizer create(String toTokenize) {
+            return new ReplayTokenizer(toTokenize, tokenPreProcess);
+        }
+
+        @Override
+        public TokenPreProcess getTokenPreProcessor() {
+            return tokenPreProcess;
+        }
+
+        @Override
+        public void setTokenPreProcessor(TokenPreProcess preProcessor) {
+            tokenPreProcess = preProcessor;
+        }
+
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int MAGIC = 0x43544b43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    // maximum size of a mapped part of the sentences
+    private static final int CHUNK_SIZE = 1 << 30;
+    private static final int BUFFER_SIZE = 1 << 20;
+    // count of sentences tokenized by one task
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * this method writes the buffer, if it has less than the required bytes remaining
+     *
+     * @param channel
+     * @param buffer
+     * @param required
+     * @throws IOException
+     */
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int required) throws IOException {
+        if (buffer.remaining() < required) {
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * this method writes the content of a buffer and clears it
+     *
+     * @param channel
+     * @param buffer
+     * @throws IOException
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * this method maps a corpus file
+     *
+     * @param path2TokenizedCorpusFile
+     * @return new reference of {@link TokenizedCorpus}
+     * @throws IOException
+     */
+    public static TokenizedCorpus open(String path2TokenizedCorpusFile) throws IOException {
+        return new TokenizedCorpus(Paths.get(path2TokenizedCorpusFile));
+    }
+
+    /**
+     * this method writes a varint
+     *
+     * @param channel
+     * @param buffer
+     * @param value not negative
+     * @throws IOException
+     */
+    private static void putVarint(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        ensureRemaining(channel, buffer, 5);
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte)((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    /**
+     * this method tokenize the sentences of an iterator on a fixed thread pool and writes the corpus file (temp file and atomic move)
+     * <br>
+     * the sentences are written in order of the iterator, empty sentences are skipped
+     *
+     * @param sentenceIterator e.g. {@link WikiSentenceIterator}, reset before
+     * @param textProcessing tokenizer
+     * @param parallelism count of threads
+     * @param path2TokenizedCorpusFile
+     * @throws IOException
+     */
+    public static void write(org.deeplearning4j.text.sentenceiterator.SentenceIterator sentenceIterator, TextProcessing textProcessing,
+            int parallelism, String path2TokenizedCorpusFile) throws IOException {
+
+        long start = System.currentTimeMillis();
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> words = new ArrayList<String>();
+        long countSentences = 0;
+        long countTokens = 0;
+        long vocabularyOffset = 0;
+
+        Path path = Paths.get(path2TokenizedCorpusFile);
+        Path tempPath = Paths.get(path2TokenizedCorpusFile + ".tmp");
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+        try(FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            channel.position(HEADER_SIZE);
+            // tokenized batches in order of the iterator, bounded to keep the memory fixed
+            Deque<Future<List<String[]>>> futures = new ArrayDeque<Future<List<String[]>>>();
+            sentenceIterator.reset();
+            while (sentenceIterator.hasNext() || !futures.isEmpty()) {
+                if (sentenceIterator.hasNext() && futures.size() < 2 * Math.max(parallelism, 1)) {
+                    List<String> sentences = new ArrayList<String>(BATCH_SIZE);
+                    while (sentences.size() < BATCH_SIZE && sentenceIterator.hasNext()) {
+                        sentences.add(sentenceIterator.nextSentence());
+                    }
+                    futures.add(executorService.submit(() -> {
+                        List<String[]> results = new ArrayList<String[]>(sentences.size());
+                        for (String sentence : sentences) {
+                            results.add(textProcessing.splitTerms(sentence));
+                        }
+                        return results;
+                    }));
+                    continue;
+                }
+                for (String[] terms : futures.poll().get()) {
+                    if (terms.length == 0) {
+                        continue;
+                    }
+                    putVarint(channel, buffer, terms.length);
+                    for (String term : terms) {
+                        Integer id = ids.get(term);
+                        if (id == null) {
+                            id = words.size();
+                            ids.put(term, id);
+                            words.add(term);
+                        }
+                        putVarint(channel, buffer, id);
+                    }
+                    countSentences++;
+                    countTokens += terms.length;
+                }
+            }
+            flush(channel, buffer);
+            vocabularyOffset = channel.position();
+            for (String word : words) {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                putVarint(channel, buffer, bytes.length);
+                if (bytes.length > buffer.capacity()) {
+                    flush(channel, buffer);
+                    ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped);
+                    }
+                    continue;
+                }
+                ensureRemaining(channel, buffer, bytes.length);
+                buffer.put(bytes);
+            }
+            flush(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(words.size()).putInt(0);
+            header.putLong(countSentences).putLong(countTokens).putLong(HEADER_SIZE).putLong(vocabularyOffset);
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(true);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("tokenize interrupted", exception);
+        } catch (ExecutionException exception) {
+            throw new IOException("tokenize failed", exception.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info(MessageFormat.format("tokenized corpus completed: {0}, {1} sentences, {2} tokens, {3} words, {4} ms",
+                path2TokenizedCorpusFile,
+                countSentences,
+                countTokens,
+                words.size(),
+                System.currentTimeMillis() - start));
+    }
+
+    private final long countSentences;
+    private final long countTokens;
+    private final ByteBuffer[] chunks;
+    private final String[] words;
+
+    /**
+     * constructor.
+     *
+     * @param path
+     * @throws IOException
+     */
+    private TokenizedCorpus(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size()))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.capacity() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("no tokenized corpus (version " + VERSION + "): " + path);
+            }
+            words = new String[header.getInt(8)];
+            countSentences = header.getLong(16);
+            countTokens = header.getLong(24);
+            long sentencesOffset = header.getLong(32);
+            long vocabularyOffset = header.getLong(40);
+            long size = vocabularyOffset - sentencesOffset;
+            chunks = new ByteBuffer[(int)((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int index = 0; index < chunks.length; index++) {
+                long position = sentencesOffset + (long)index * CHUNK_SIZE;
+                chunks[index] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, vocabularyOffset - position));
+            }
+            ByteBuffer vocabulary = channel.map(FileChannel.MapMode.READ_ONLY, vocabularyOffset, channel.size() - vocabularyOffset);
+            for (int index = 0; index < words.length; index++) {
+                int length = 0;
+                int shift = 0;
+                int current = 0;
+                do {
+                    current = vocabulary.get() & 0xff;
+                    length |= (current & 0x7f) << shift;
+                    shift += 7;
+                } while ((current & 0x80) != 0);
+                byte[] bytes = new byte[length];
+                vocabulary.get(bytes);
+                words[index] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        LOGGER.info(MessageFormat.format("tokenized corpus opened: {0}, {1} sentences, {2} tokens, {3} words", path, countSentences,
+                countTokens, words.length));
+    }
+
+    /**
+     * @return count of sentences
+     */
+    public long countSentences() {
+        return countSentences;
+    }
+
+    /**
+     * @return count of tokens of all sentences
+     */
+    public long countTokens() {
+        return countTokens;
+    }
+
+    /**
+     * @return count of different words
+     */
+    public int countWords() {
+        return words.length;
+    }
+
+    /**
+     * this method return a new tokenizer factory of the replayed sentences (no nlp, split by blank)
+     *
+     * @return new reference of {@link ReplayTokenizerFactory}
+     */
+    public ReplayTokenizerFactory getTokenizerFactory() {
+        return new ReplayTokenizerFactory();
+    }
+
+    /**
+     * this method return a new iterator over all sentences, positioned at the first sentence
+     *
+     * @return new reference of {@link ReplayIterator}
+     */
+    public ReplayIterator iterator() {
+        return new ReplayIterator();
+    }
+
+}
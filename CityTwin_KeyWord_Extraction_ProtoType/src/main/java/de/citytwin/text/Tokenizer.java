@@ -1,11 +1,14 @@
 package de.citytwin.text;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
 
 /**
- * This class implements {@link org.deeplearning4j.text.tokenization.tokenizer.Tokenizer}
+ * This class implements {@link org.deeplearning4j.text.tokenization.tokenizer.Tokenizer} <br>
+ * tokenized on construction by the tokenizer of the current thread ({@link TextProcessing#splitTerms(String)})
  *
  * @author Maik, FH Erfurt
  * @version $Revision: 1.0 $
@@ -14,10 +17,23 @@ import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
 public class Tokenizer implements org.deeplearning4j.text.tokenization.tokenizer.Tokenizer {
 
     private List<String> tokens = null;
+    private TokenPreProcess tokenPreProcess = null;
     private int currentIndex = 0;
 
     public Tokenizer(TextProcessing textProcessing, String toTokenize) {
-        this.tokens = textProcessing.tokenize2Term(toTokenize);
+        this(textProcessing, toTokenize, null);
+    }
+
+    /**
+     * constructor.
+     *
+     * @param textProcessing
+     * @param toTokenize
+     * @param tokenPreProcess applied on each token, {@code null} = none
+     */
+    public Tokenizer(TextProcessing textProcessing, String toTokenize, TokenPreProcess tokenPreProcess) {
+        this.tokens = Arrays.asList(textProcessing.splitTerms(toTokenize));
+        this.tokenPreProcess = tokenPreProcess;
     }
 
     @Override
@@ -27,7 +43,14 @@ public class Tokenizer implements org.deeplearning4j.text.tokenization.tokenizer
 
     @Override
     public List<String> getTokens() {
-        return tokens;
+        if (tokenPreProcess == null) {
+            return tokens;
+        }
+        List<String> results = new ArrayList<String>(tokens.size());
+        for (String token : tokens) {
+            results.add(tokenPreProcess.preProcess(token));
+        }
+        return results;
     }
 
     @Override
@@ -37,13 +60,16 @@ public class Tokenizer implements org.deeplearning4j.text.tokenization.tokenizer
 
     @Override
     public String nextToken() {
-        return (currentIndex < tokens.size()) ? tokens.get(currentIndex++) : "";
+        if (currentIndex >= tokens.size()) {
+            return "";
+        }
+        String token = tokens.get(currentIndex++);
+        return (tokenPreProcess != null) ? tokenPreProcess.preProcess(token) : token;
     }
 
     @Override
     public void setTokenPreProcessor(TokenPreProcess tokenPreProcessor) {
-        // TODO Auto-generated method stub
-
+        this.tokenPreProcess = tokenPreProcessor;
     }
 
 }
@@ -1,12 +1,17 @@
 package de.citytwin.text;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
 import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
 
 /**
- * This class implements {@link org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory}
+ * This class implements {@link org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory} <br>
+ * thread safe, each dl4j worker tokenizes with its own tokenizer of the shared model ({@link TextProcessing#splitTerms(String)})
  *
  * @author Maik Siegmund, FH Erfurt
  * @version $Revision: 1.0 $
@@ -14,8 +19,29 @@ import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
  */
 public class TokenizerFactory implements org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory {
 
+    /**
+     * this method reads the content of a stream (utf-8) and closes it
+     *
+     * @param inputStream
+     * @return content
+     * @throws IllegalStateException if the stream can not be read
+     */
+    static String read(InputStream inputStream) throws IllegalStateException {
+        StringBuilder stringBuilder = new StringBuilder();
+        char[] buffer = new char[4096];
+        try(Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            int count = 0;
+            while ((count = reader.read(buffer)) != -1) {
+                stringBuilder.append(buffer, 0, count);
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("read stream to tokenize failed", exception);
+        }
+        return stringBuilder.toString();
+    }
+
     private TextProcessing textProcessing = null;
-    private TokenPreProcess tokenPreProcess = null;
+    private volatile TokenPreProcess tokenPreProcess = null;
 
     public TokenizerFactory() {
 
@@ -27,17 +53,16 @@ public class TokenizerFactory implements org.deeplearning4j.text.tokenization.to
 
     @Override
     public Tokenizer create(InputStream toTokenize) {
-        return create(toTokenize.toString());
+        return create(read(toTokenize));
     }
 
     @Override
     public Tokenizer create(String toTokenize) {
-        return new de.citytwin.text.Tokenizer(this.textProcessing, toTokenize);
+        return new de.citytwin.text.Tokenizer(this.textProcessing, toTokenize, tokenPreProcess);
     }
 
     @Override
     public TokenPreProcess getTokenPreProcessor() {
-        // TODO Auto-generated method stub
         return tokenPreProcess;
     }
 
@@ -0,0 +1,240 @@
+package de.citytwin.text;
+
+import de.citytwin.model.WikiArticle;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * this class implements {@link org.deeplearning4j.text.sentenceiterator.SentenceIterator} over wiki dump files ({@link WikiArticle}) <br>
+ * articles are read one by one with the jackson streaming parser and split in sentences on a prefetch thread into a bounded queue, so
+ * the memory does not grow with the size of the dump. {@link #reset()} reads the files again
+ * <p>
+ * a file contains an array of articles or articles one after another (json lines). not thread safe, one consumer
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class WikiSentenceIterator implements org.deeplearning4j.text.sentenceiterator.SentenceIterator, AutoCloseable {
+
+    /**
+     * this inner class reads the files once and puts the sentences into its own queue, ends with {@link WikiSentenceIterator#END}
+     */
+    private class Prefetcher implements Runnable {
+
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<String>(capacity);
+        private volatile boolean stopped = false;
+        private volatile Exception failure = null;
+        private long countArticles = 0;
+        private long countSentences = 0;
+
+        /**
+         * this method puts the sentences of an article into the queue
+         *
+         * @param article
+         * @throws InterruptedException
+         */
+        private void put(WikiArticle article) throws InterruptedException {
+            if (article.getText() == null || article.getText().isEmpty()) {
+                return;
+            }
+            for (String sentence : textProcessing.splitSentences(article.getText())) {
+                if (stopped) {
+                    return;
+                }
+                queue.put(sentence);
+                countSentences++;
+            }
+            countArticles++;
+        }
+
+        /**
+         * this method reads the articles of a file incrementally
+         *
+         * @param file
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        private void read(File file) throws IOException, InterruptedException {
+            try(JsonParser parser = READER.getFactory().createParser(file)) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+                while (token == JsonToken.START_OBJECT && !stopped) {
+                    WikiArticle article = READER.readValue(parser);
+                    put(article);
+                    token = parser.nextToken();
+                }
+            }
+            LOGGER.debug(MessageFormat.format("wiki dump file read: {0}", file.getName()));
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            try {
+                for (File file : files) {
+                    if (stopped) {
+                        return;
+                    }
+                    read(file);
+                }
+                LOGGER.info(MessageFormat.format("wiki dump read: {0} files, {1} articles, {2} sentences, {3} ms",
+                        files.size(),
+                        countArticles,
+                        countSentences,
+                        System.currentTimeMillis() - start));
+            } catch (InterruptedException exception) {
+                return;
+            } catch (IOException | RuntimeException exception) {
+                failure = exception;
+            }
+            try {
+                if (!stopped) {
+                    queue.put(END);
+                }
+            } catch (InterruptedException exception) {
+                // stopped by consumer
+            }
+        }
+
+    }
+
+    /** default count of prefetched sentences */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // end of all files, compared by reference
+    private static final String END = new String("end of wiki dump");
+    private static final ObjectReader READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerFor(WikiArticle.class);
+
+    private final List<File> files;
+    private final TextProcessing textProcessing;
+    private final int capacity;
+    private org.deeplearning4j.text.sentenceiterator.SentencePreProcessor sentencePreProcessor = new SentencePreProcessor();
+    private Prefetcher prefetcher = null;
+    private Thread thread = null;
+    private String next = null;
+
+    /**
+     * constructor.
+     *
+     * @param files wiki dump files, read in this order
+     * @param textProcessing sentence detector
+     * @param capacity maximum count of prefetched sentences ({@link #DEFAULT_CAPACITY})
+     */
+    public WikiSentenceIterator(final List<File> files, TextProcessing textProcessing, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.files = new ArrayList<File>(files);
+        this.textProcessing = textProcessing;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void close() {
+        finish();
+    }
+
+    @Override
+    public void finish() {
+        stop();
+        next = END;
+    }
+
+    @Override
+    public org.deeplearning4j.text.sentenceiterator.SentencePreProcessor getPreProcessor() {
+        return sentencePreProcessor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = take();
+            if (next == END && prefetcher.failure != null) {
+                throw new IllegalStateException("read wiki dump failed", prefetcher.failure);
+            }
+        }
+        return next != END;
+    }
+
+    @Override
+    public String nextSentence() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String sentence = next;
+        next = null;
+        return (sentencePreProcessor != null) ? sentencePreProcessor.preProcess(sentence) : sentence;
+    }
+
+    @Override
+    public void reset() {
+        stop();
+        next = null;
+    }
+
+    @Override
+    public void setPreProcessor(org.deeplearning4j.text.sentenceiterator.SentencePreProcessor preProcessor) {
+        sentencePreProcessor = preProcessor;
+    }
+
+    /**
+     * this method stops the prefetch thread, the prefetched sentences are dropped
+     */
+    private void stop() {
+        if (prefetcher == null) {
+            return;
+        }
+        prefetcher.stopped = true;
+        thread.interrupt();
+        prefetcher.queue.clear();
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        prefetcher = null;
+        thread = null;
+    }
+
+    /**
+     * this method takes the next sentence of the queue, starts the prefetch thread on first call after construction or reset
+     *
+     * @return sentence or {@link #END}
+     */
+    private String take() {
+        if (prefetcher == null) {
+            prefetcher = new Prefetcher();
+            thread = new Thread(prefetcher, "wiki-sentence-prefetcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try {
+            return prefetcher.queue.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for sentences", exception);
+        }
+    }
+
+}
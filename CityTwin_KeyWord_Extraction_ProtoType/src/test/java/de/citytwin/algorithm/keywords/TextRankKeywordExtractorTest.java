@@ -0,0 +1,113 @@
+package de.citytwin.algorithm.keywords;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import de.citytwin.config.ApplicationConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * this class tests the textrank solvers of the sparse engine
+ *
+ * @author Maik Siegmund, FH Erfurt
+ */
+public class TextRankKeywordExtractorTest {
+
+    private static final double D = 0.85d;
+    private static final int TOP_K = 10;
+
+    /**
+     * this method creates a text corpus, terms "end_*" only close a sentence and have no out going edges (dangling terms)
+     *
+     * @return {@code List<List<String>>}
+     */
+    private static List<List<String>> getTextCorpus() {
+        Random random = new Random(42);
+        List<List<String>> results = new ArrayList<List<String>>();
+        for (int sentence = 0; sentence < 60; sentence++) {
+            List<String> terms = new ArrayList<String>();
+            int size = 4 + random.nextInt(8);
+            for (int index = 0; index < size; index++) {
+                // skewed distribution, some terms are more frequent
+                terms.add("term_" + (int)(40 * random.nextDouble() * random.nextDouble()));
+            }
+            terms.add("end_" + random.nextInt(5));
+            results.add(terms);
+        }
+        return results;
+    }
+
+    /**
+     * this method calculate the scores of a solver
+     *
+     * @param graph
+     * @param solver
+     * @return {@code Map<String, Double>} (term : score)
+     * @throws Exception
+     */
+    private static Map<String, Double> getScores(CooccurrenceGraph graph, String solver) throws Exception {
+        Properties properties = TextRankKeywordExtractor.getDefaultProperties();
+        properties.setProperty(ApplicationConfiguration.TEXTRANK_SOLVER, solver);
+        properties.setProperty(ApplicationConfiguration.ITERATION, "1000");
+        properties.setProperty(ApplicationConfiguration.TEXTRANK_TOLERANCE, "1e-12");
+        try (TextRankKeywordExtractor textRankKeywordExtractor = new TextRankKeywordExtractor(properties, null)) {
+            return textRankKeywordExtractor.calculateSparseScore(graph, D, 1000, true);
+        }
+    }
+
+    /**
+     * this method returns the best k terms, ordered by score
+     *
+     * @param scores
+     * @return {@code List<String>}
+     */
+    private static List<String> getTopK(Map<String, Double> scores) {
+        return scores.entrySet()
+                .stream()
+                .sorted((left, right) -> Double.compare(right.getValue(), left.getValue()))
+                .limit(TOP_K)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * this method compares the scores and the top k of a solver with power
+     *
+     * @param solver
+     * @throws Exception
+     */
+    private static void assertSameAsPower(String solver) throws Exception {
+        CooccurrenceGraph graph = new CooccurrenceGraph(getTextCorpus(), 3, 1.0d);
+        boolean hasDanglingTerm = false;
+        for (int id = 0; id < graph.countTerms(); id++) {
+            hasDanglingTerm |= graph.outDegreeOf(id) == 0;
+        }
+        assertTrue("graph without dangling terms", hasDanglingTerm);
+
+        Map<String, Double> expected = getScores(graph, TextRankKeywordExtractor.POWER);
+        Map<String, Double> actual = getScores(graph, solver);
+        assertEquals(getTopK(expected), getTopK(actual));
+        for (Map.Entry<String, Double> score : expected.entrySet()) {
+            assertEquals(score.getKey(), score.getValue(), actual.get(score.getKey()), 1e-9);
+        }
+    }
+
+    @Test
+    public void testGaussSeidelSameAsPower() throws Exception {
+        assertSameAsPower(TextRankKeywordExtractor.GAUSS_SEIDEL);
+    }
+
+    @Test
+    public void testPushSameAsPower() throws Exception {
+        assertSameAsPower(TextRankKeywordExtractor.PUSH);
+    }
+
+}